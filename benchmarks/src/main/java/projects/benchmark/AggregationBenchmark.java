@@ -0,0 +1,90 @@
+package projects.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import projects.analytics.CostAggregator;
+import projects.analytics.ProjectCatalog;
+import projects.dao.ProjectDao;
+import projects.entity.CostReport;
+import projects.entity.Project;
+
+/**********************************************************************
+* AggregationBenchmark computes the same CostReport three ways over
+* projectCount * childCount material rows: pushed down as SQL aggregates,
+* in memory over the columnar ProjectCatalog and in memory over loaded
+* Project graphs. The setup checks that all three agree.
+************************************************************************/
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class AggregationBenchmark {
+
+	@Param({ "100000" })
+	public int projectCount;
+
+	@Param({ "10" })
+	public int childCount;
+
+	private final ProjectDao projectDao = new ProjectDao();
+	private ProjectCatalog catalog;
+	private List<Project> projects;
+
+	/************************************************************************/
+	@Setup(Level.Trial)
+	public void setUp() {
+		BenchmarkDatabase.create(projectCount, childCount);
+
+		List<Integer> ids = new ArrayList<>(projectCount);
+		for(int id = 1; id <= projectCount; id++) {
+			ids.add(id);
+		}
+
+		catalog = projectDao.loadProjectCatalog();
+		projects = projectDao.fetchProjectsByIds(ids);
+
+		String expected = sqlPushdown().toString();
+
+		if(!expected.equals(inMemoryCatalog().toString()) || !expected.equals(inMemoryGraphs().toString())) {
+			throw new IllegalStateException("The aggregation paths disagree:" + expected);
+		}
+	}
+
+	/************************************************************************/
+	@Benchmark
+	public CostReport sqlPushdown() {
+		return projectDao.aggregateCosts();
+	}
+
+	/************************************************************************/
+	@Benchmark
+	public CostReport inMemoryCatalog() {
+		return CostAggregator.aggregate(catalog);
+	}
+
+	/************************************************************************/
+	@Benchmark
+	public CostReport inMemoryGraphs() {
+		return CostAggregator.aggregate(projects);
+	}
+
+	/************************************************************************/
+}
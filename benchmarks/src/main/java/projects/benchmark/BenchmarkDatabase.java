@@ -0,0 +1,133 @@
+package projects.benchmark;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import projects.dao.DbConnection;
+import projects.dao.ProjectDao;
+import projects.entity.Category;
+import projects.entity.Material;
+import projects.entity.Project;
+import projects.entity.Step;
+import projects.service.SqlScriptTokenizer;
+
+/**********************************************************************
+* BenchmarkDatabase points DbConnection at an in-memory H2 database in
+* MySQL mode, creates the application schema from project_schema.sql and
+* seeds it with generated projects. Every benchmark JVM fork gets its own
+* database.
+************************************************************************/
+
+public class BenchmarkDatabase {
+
+	public static final int CATEGORY_COUNT = 10;
+
+	/*     OPTIMIZE_REUSE_RESULTS=0 stops H2 from returning a cached result for a repeated query on unchanged tables.     */
+	private static final String URL = "jdbc:h2:mem:projects;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1;OPTIMIZE_REUSE_RESULTS=0";
+	private static final String SCHEMA_FILE = "project_schema.sql";
+
+	private static boolean created;
+
+	/**********************************************************************
+	* create() builds the schema and inserts projectCount projects, each
+	* with childCount materials and steps and two categories. Calling it
+	* again in the same JVM drops and rebuilds everything.
+	************************************************************************/
+
+	public static synchronized void create(int projectCount, int childCount) {
+		System.setProperty(DbConnection.URL_PROPERTY, URL);
+
+		try(Connection conn = DbConnection.getConnection()) {
+			runSchemaScript(conn);
+			insertCategories(conn);
+		} catch (SQLException | IOException e) {
+			throw new IllegalStateException("Unable to create the benchmark database", e);
+		}
+
+		new ProjectDao().insertProjects(newProjects(projectCount, childCount), 1000);
+		created = true;
+	}
+
+	/************************************************************************/
+	public static boolean isCreated() {
+		return created;
+	}
+
+	/************************************************************************/
+	private static void runSchemaScript(Connection conn) throws SQLException, IOException {
+		try(SqlScriptTokenizer tokenizer = new SqlScriptTokenizer(new InputStreamReader(
+				BenchmarkDatabase.class.getClassLoader().getResourceAsStream(SCHEMA_FILE), StandardCharsets.UTF_8));
+				Statement stmt = conn.createStatement()) {
+			String sql;
+
+			while((sql = tokenizer.nextStatement()) != null) {
+				/*     The script selects the MySQL schema; H2 uses the default one.     */
+				if(!sql.toLowerCase().startsWith("use ")) {
+					stmt.execute(sql);
+				}
+			}
+		}
+	}
+
+	/************************************************************************/
+	private static void insertCategories(Connection conn) throws SQLException {
+		try(Statement stmt = conn.createStatement()) {
+			for(int index = 1; index <= CATEGORY_COUNT; index++) {
+				stmt.execute("INSERT INTO category (category_name) VALUES ('Category " + index + "')");
+			}
+		}
+	}
+
+	/**********************************************************************
+	* newProjects() builds unsaved project graphs with predictable values.
+	************************************************************************/
+
+	public static List<Project> newProjects(int projectCount, int childCount) {
+		List<Project> projects = new ArrayList<>(projectCount);
+
+		for(int index = 0; index < projectCount; index++) {
+			projects.add(newProject(index, childCount));
+		}
+
+		return projects;
+	}
+
+	/************************************************************************/
+	public static Project newProject(int index, int childCount) {
+		Project project = new Project();
+		project.setProjectName("Project " + index);
+		project.setEstimatedHours(BigDecimal.valueOf(100 + index % 900, 2));
+		project.setActualHours(BigDecimal.valueOf(150 + index % 700, 2));
+		project.setDifficulty(1 + index % 5);
+		project.setNotes("Notes for project " + index);
+
+		for(int child = 0; child < childCount; child++) {
+			Material material = new Material();
+			material.setMaterialName("Material " + child);
+			material.setNumRequired(1 + child);
+			material.setCost(BigDecimal.valueOf(250 + child, 2));
+			project.getMaterials().add(material);
+
+			Step step = new Step();
+			step.setStepText("Step " + child + " of project " + index);
+			project.getSteps().add(step);
+		}
+
+		for(int link = 0; link < 2; link++) {
+			Category category = new Category();
+			category.setCategoryId(1 + (index + link * 3) % CATEGORY_COUNT);
+			project.getCategories().add(category);
+		}
+
+		return project;
+	}
+
+	/************************************************************************/
+}
@@ -0,0 +1,39 @@
+package projects.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**********************************************************************
+* BenchmarkRunner is the entry point of benchmarks.jar. It accepts the
+* usual JMH command line options (for example a benchmark name regex or
+* -f 1 -wi 2 -i 3) and, unless -rf/-rff are given, writes the results as
+* JSON to target/jmh-result.json so runs from different commits can be
+* compared.
+************************************************************************/
+
+public class BenchmarkRunner {
+
+	private static final String DEFAULT_RESULT_FILE = "target/jmh-result.json";
+
+	/************************************************************************/
+	public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+		CommandLineOptions commandLine = new CommandLineOptions(args);
+		ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine);
+
+		if(!commandLine.getResultFormat().hasValue()) {
+			options.resultFormat(ResultFormatType.JSON);
+		}
+		if(!commandLine.getResult().hasValue()) {
+			options.result(DEFAULT_RESULT_FILE);
+		}
+
+		new Runner(options.build()).run();
+	}
+
+	/************************************************************************/
+}
@@ -0,0 +1,94 @@
+package projects.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import projects.dao.ProjectDao;
+
+/**********************************************************************
+* BulkDeleteBenchmark deletes DELETE_COUNT projects, each with two
+* materials, two steps and two category links, in chunks of chunkSize
+* projects per transaction, up to ProjectDao.MAX_DELETE_CHUNK_SIZE. While the delete runs a reader thread keeps looking up
+* projects that are not being deleted; the slowest lookup is printed
+* after each delete.
+************************************************************************/
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class BulkDeleteBenchmark {
+
+	private static final int DELETE_COUNT = 10_000;
+	private static final int KEPT_COUNT = 5_000;
+
+	@Param({ "64", "512", "1024" })
+	public int chunkSize;
+
+	private final ProjectDao projectDao = new ProjectDao();
+	private List<Integer> projectIds;
+	private Thread reader;
+	private volatile boolean reading;
+	private volatile long slowestReadNanos;
+
+	/************************************************************************/
+	@Setup(Level.Invocation)
+	public void setUp() {
+		BenchmarkDatabase.create(DELETE_COUNT + KEPT_COUNT, 2);
+		projectIds = new ArrayList<>(DELETE_COUNT);
+
+		for(int projectId = 1; projectId <= DELETE_COUNT; projectId++) {
+			projectIds.add(projectId);
+		}
+
+		slowestReadNanos = 0;
+		reading = true;
+		reader = new Thread(this::readKeptProjects);
+		reader.start();
+	}
+
+	/************************************************************************/
+	@TearDown(Level.Invocation)
+	public void tearDown() throws InterruptedException {
+		reading = false;
+		reader.join();
+		System.out.printf("slowest concurrent read: %.1f ms%n", slowestReadNanos / 1e6);
+	}
+
+	/************************************************************************/
+	@Benchmark
+	public int deleteProjects() {
+		return projectDao.deleteProjects(projectIds, chunkSize);
+	}
+
+	/************************************************************************/
+	private void readKeptProjects() {
+		while(reading) {
+			int projectId = DELETE_COUNT + 1 + ThreadLocalRandom.current().nextInt(KEPT_COUNT);
+			long start = System.nanoTime();
+
+			projectDao.fetchProjectById(projectId).orElseThrow();
+			slowestReadNanos = Math.max(slowestReadNanos, System.nanoTime() - start);
+		}
+	}
+
+	/************************************************************************/
+}
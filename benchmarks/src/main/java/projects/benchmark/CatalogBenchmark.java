@@ -0,0 +1,100 @@
+package projects.benchmark;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import projects.analytics.ProjectCatalog;
+import projects.dao.ProjectDao;
+import projects.entity.Material;
+import projects.entity.Project;
+
+/**********************************************************************
+* CatalogBenchmark compares a full scan for the total material cost over
+* loaded Project graphs (BigDecimal arithmetic on boxed entities) with the
+* same scan over the columnar ProjectCatalog (scaled long arithmetic on
+* primitive arrays). loadProjectCatalog measures filling the catalog from
+* the database.
+************************************************************************/
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class CatalogBenchmark {
+
+	@Param({ "100000" })
+	public int projectCount;
+
+	@Param({ "5" })
+	public int childCount;
+
+	private final ProjectDao projectDao = new ProjectDao();
+	private List<Project> projects;
+	private ProjectCatalog catalog;
+
+	/************************************************************************/
+	@Setup(Level.Trial)
+	public void setUp() {
+		BenchmarkDatabase.create(projectCount, childCount);
+
+		List<Integer> ids = new ArrayList<>(projectCount);
+		for(int id = 1; id <= projectCount; id++) {
+			ids.add(id);
+		}
+
+		projects = projectDao.fetchProjectsByIds(ids);
+		catalog = projectDao.loadProjectCatalog();
+
+		if(totalCostOfGraphs().compareTo(totalCostOfCatalog()) != 0) {
+			throw new IllegalStateException("The catalog and the project graphs disagree on the total cost.");
+		}
+	}
+
+	/************************************************************************/
+	@Benchmark
+	public BigDecimal totalCostOfGraphs() {
+		BigDecimal total = BigDecimal.ZERO;
+
+		for(Project project : projects) {
+			for(Material material : project.getMaterials()) {
+				if(Objects.nonNull(material.getNumRequired()) && Objects.nonNull(material.getCost())) {
+					total = total.add(material.getCost().multiply(BigDecimal.valueOf(material.getNumRequired())));
+				}
+			}
+		}
+
+		return total;
+	}
+
+	/************************************************************************/
+	@Benchmark
+	public BigDecimal totalCostOfCatalog() {
+		return catalog.totalMaterialCost();
+	}
+
+	/************************************************************************/
+	@Benchmark
+	public ProjectCatalog loadProjectCatalog() {
+		return projectDao.loadProjectCatalog();
+	}
+
+	/************************************************************************/
+}
@@ -0,0 +1,92 @@
+package projects.benchmark;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import projects.analytics.CategoryIndex;
+import projects.dao.ProjectDao;
+import projects.entity.ProjectPage;
+
+/**********************************************************************
+* CategoryFilterBenchmark answers multi-category filters (projects in
+* all, or any, of two categories) with SQL against the project_category
+* indexes and with the in-memory bitmap CategoryIndex. Each generated
+* project is linked to two of the ten categories, so an AND of categories
+* 1 and 4 matches a tenth of the projects and an OR matches two fifths.
+* firstCategoryPage reads one page of a category listing.
+************************************************************************/
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class CategoryFilterBenchmark {
+
+	private static final List<Integer> CATEGORIES = List.of(1, 4);
+
+	@Param({ "1000000" })
+	public int projectCount;
+
+	private final ProjectDao projectDao = new ProjectDao();
+	private CategoryIndex categoryIndex;
+
+	/************************************************************************/
+	@Setup(Level.Trial)
+	public void setUp() {
+		BenchmarkDatabase.create(projectCount, 0);
+		categoryIndex = projectDao.loadCategoryIndex();
+
+		if(!Arrays.equals(sqlMatchAll(), bitmapMatchAll()) || !Arrays.equals(sqlMatchAny(), bitmapMatchAny())) {
+			throw new IllegalStateException("SQL and bitmap category filters disagree.");
+		}
+	}
+
+	/************************************************************************/
+	@Benchmark
+	public int[] sqlMatchAll() {
+		return projectDao.fetchProjectIdsByCategories(CATEGORIES, true);
+	}
+
+	/************************************************************************/
+	@Benchmark
+	public int[] sqlMatchAny() {
+		return projectDao.fetchProjectIdsByCategories(CATEGORIES, false);
+	}
+
+	/************************************************************************/
+	@Benchmark
+	public int[] bitmapMatchAll() {
+		return categoryIndex.matchAll(CATEGORIES).toArray();
+	}
+
+	/************************************************************************/
+	@Benchmark
+	public int[] bitmapMatchAny() {
+		return categoryIndex.matchAny(CATEGORIES).toArray();
+	}
+
+	/************************************************************************/
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public ProjectPage firstCategoryPage() {
+		return projectDao.listProjectsByCategory(CATEGORIES.get(0), 50, null);
+	}
+
+	/************************************************************************/
+}
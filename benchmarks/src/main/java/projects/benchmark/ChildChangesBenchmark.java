@@ -0,0 +1,121 @@
+package projects.benchmark;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import projects.dao.DbConnection;
+import projects.dao.ProjectDao;
+import projects.entity.ProjectChanges;
+import projects.entity.Step;
+
+/**********************************************************************
+* ChildChangesBenchmark edits the steps of one project the way a bulk
+* editing screen does. replaceSteps removes stepCount steps and adds as
+* many new ones in one change set. reorderSteps reverses their order with
+* the single-statement reorder, and reorderStepsRowByRow does the same
+* with one UPDATE per step in a transaction, for comparison.
+************************************************************************/
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChildChangesBenchmark {
+
+	private static final int PROJECT_ID = 1;
+
+	@Param({ "200" })
+	public int stepCount;
+
+	private final ProjectDao projectDao = new ProjectDao();
+	private List<Integer> stepIds;
+
+	/************************************************************************/
+	@Setup(Level.Trial)
+	public void setUp() {
+		BenchmarkDatabase.create(1000, 0);
+		stepIds = addSteps(new ProjectChanges());
+	}
+
+	/************************************************************************/
+	@Benchmark
+	public List<Integer> replaceSteps() {
+		ProjectChanges changes = new ProjectChanges();
+		stepIds.forEach(changes::removeStep);
+
+		stepIds = addSteps(changes);
+		return stepIds;
+	}
+
+	/************************************************************************/
+	@Benchmark
+	public List<Integer> reorderSteps() {
+		Collections.reverse(stepIds);
+		projectDao.applyProjectChanges(PROJECT_ID, new ProjectChanges().reorderSteps(stepIds));
+		return stepIds;
+	}
+
+	/************************************************************************/
+	@Benchmark
+	public List<Integer> reorderStepsRowByRow() throws SQLException {
+		Collections.reverse(stepIds);
+
+		try(Connection conn = DbConnection.getConnection();
+				PreparedStatement stmt = conn.prepareStatement(
+						"UPDATE step SET step_order = ? WHERE step_id = ? AND project_id = ?")) {
+			conn.setAutoCommit(false);
+
+			for(int index = 0; index < stepIds.size(); index++) {
+				stmt.setInt(1, index + 1);
+				stmt.setInt(2, stepIds.get(index));
+				stmt.setInt(3, PROJECT_ID);
+				stmt.executeUpdate();
+			}
+
+			conn.commit();
+			conn.setAutoCommit(true);
+		}
+
+		return stepIds;
+	}
+
+	/************************************************************************/
+	private List<Integer> addSteps(ProjectChanges changes) {
+		List<Step> steps = new ArrayList<>(stepCount);
+
+		for(int index = 0; index < stepCount; index++) {
+			Step step = new Step();
+			step.setStepText("Bulk step " + index);
+			steps.add(step);
+			changes.addStep(step);
+		}
+
+		projectDao.applyProjectChanges(PROJECT_ID, changes);
+
+		List<Integer> ids = new ArrayList<>(stepCount);
+		steps.forEach(step -> ids.add(step.getStepId()));
+		return ids;
+	}
+
+	/************************************************************************/
+}
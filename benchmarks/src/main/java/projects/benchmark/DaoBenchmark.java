@@ -0,0 +1,101 @@
+package projects.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import projects.dao.ProjectDao;
+import projects.entity.Project;
+
+/**********************************************************************
+* DaoBenchmark measures the main ProjectDao read and write paths against
+* the embedded database:
+*
+* - fetchProjectById, at several child counts per project
+* - fetchProjectsByIds for a batch of 100 IDs
+* - fetchAllProjects over the whole table
+* - insertProject, at several table sizes, to show that insert latency
+*   does not grow with the table
+*
+* Table sizes stop at 100,000 projects rather than 1,000,000: the database
+* is in memory, and a million projects at 50 children each is about 100
+* million child rows, more than the benchmark heap holds. 1k, 10k and 100k
+* are enough to show the growth trend. On a machine with a large heap the
+* million-project point can still be run with -p projectCount=1000000 and
+* -jvmArgs -Xmx<size>.
+************************************************************************/
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DaoBenchmark {
+
+	@Param({ "1000", "10000", "100000" })
+	public int projectCount;
+
+	@Param({ "5", "50" })
+	public int childCount;
+
+	private final ProjectDao projectDao = new ProjectDao();
+	private List<Integer> batchIds;
+
+	/************************************************************************/
+	@Setup(Level.Trial)
+	public void setUp() {
+		BenchmarkDatabase.create(projectCount, childCount);
+
+		batchIds = new ArrayList<>();
+		for(int id = 1; id <= Math.min(100, projectCount); id++) {
+			batchIds.add(id);
+		}
+	}
+
+	/************************************************************************/
+	@Benchmark
+	public Project fetchProjectById() {
+		return projectDao.fetchProjectById(randomProjectId()).orElseThrow();
+	}
+
+	/************************************************************************/
+	@Benchmark
+	public List<Project> fetchProjectsByIds() {
+		return projectDao.fetchProjectsByIds(batchIds);
+	}
+
+	/************************************************************************/
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public List<Project> fetchAllProjects() {
+		return projectDao.fetchAllProjects();
+	}
+
+	/************************************************************************/
+	@Benchmark
+	public Project insertProject() {
+		return projectDao.insertProject(BenchmarkDatabase.newProject(projectCount, 0));
+	}
+
+	/************************************************************************/
+	private int randomProjectId() {
+		return 1 + ThreadLocalRandom.current().nextInt(projectCount);
+	}
+
+	/************************************************************************/
+}
@@ -0,0 +1,169 @@
+package projects.benchmark;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import org.h2.tools.SimpleResultSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import projects.entity.Project;
+import provided.util.DaoBase;
+
+/**********************************************************************
+* ExtractBenchmark measures row mapping in DaoBase on an in-memory result
+* set, so only mapping cost is measured. extractCached reads the rows the
+* way ProjectDao does, through one DaoBase.extractor() created before the
+* row loop; extractReflective is the original per-row reflection
+* implementation, kept here as the baseline.
+*
+* setParameter measures binding the five project columns to a prepared
+* statement.
+************************************************************************/
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExtractBenchmark extends DaoBase {
+
+	@Param({ "100000" })
+	public int rows;
+
+	private SimpleResultSet resultSet;
+	private Connection conn;
+	private PreparedStatement insertStmt;
+
+	/************************************************************************/
+	@Setup(Level.Trial)
+	public void setUp() throws SQLException {
+		resultSet = new SimpleResultSet();
+		resultSet.setAutoClose(false);
+		resultSet.addColumn("project_id", Types.INTEGER, 10, 0);
+		resultSet.addColumn("project_name", Types.VARCHAR, 128, 0);
+		resultSet.addColumn("estimated_hours", Types.DECIMAL, 7, 2);
+		resultSet.addColumn("actual_hours", Types.DECIMAL, 7, 2);
+		resultSet.addColumn("difficulty", Types.INTEGER, 10, 0);
+		resultSet.addColumn("notes", Types.VARCHAR, 1000, 0);
+
+		for(int row = 0; row < rows; row++) {
+			resultSet.addRow(row + 1, "Project " + row, BigDecimal.valueOf(row % 1000, 2),
+					BigDecimal.valueOf(row % 700, 2), 1 + row % 5, "Notes " + row);
+		}
+
+		BenchmarkDatabase.create(0, 0);
+		conn = projects.dao.DbConnection.getConnection();
+		insertStmt = conn.prepareStatement("INSERT INTO project "
+				+ "(project_name, estimated_hours, actual_hours, difficulty, notes) VALUES (?, ?, ?, ?, ?)");
+	}
+
+	/************************************************************************/
+	@TearDown(Level.Trial)
+	public void tearDown() throws SQLException {
+		insertStmt.close();
+		conn.close();
+	}
+
+	/************************************************************************/
+	@Benchmark
+	public void extractCached(Blackhole blackhole) throws SQLException {
+		resultSet.beforeFirst();
+		RowExtractor<Project> projects = extractor(resultSet, Project.class);
+
+		while(resultSet.next()) {
+			blackhole.consume(projects.extract());
+		}
+	}
+
+	/************************************************************************/
+	@Benchmark
+	public void extractReflective(Blackhole blackhole) throws Exception {
+		resultSet.beforeFirst();
+
+		while(resultSet.next()) {
+			blackhole.consume(reflectiveExtract(resultSet, Project.class));
+		}
+	}
+
+	/************************************************************************/
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.NANOSECONDS)
+	public PreparedStatement setParameter() throws SQLException {
+		setParameter(insertStmt, 1, "Project", String.class);
+		setParameter(insertStmt, 2, new BigDecimal("12.50"), BigDecimal.class);
+		setParameter(insertStmt, 3, null, BigDecimal.class);
+		setParameter(insertStmt, 4, 3, Integer.class);
+		setParameter(insertStmt, 5, "Notes", String.class);
+		return insertStmt;
+	}
+
+	/**********************************************************************
+	* reflectiveExtract() is the extract() implementation DaoBase used before
+	* its metadata was cached: constructor and field lookup, setAccessible
+	* and a by-name column lookup for every field of every row.
+	************************************************************************/
+
+	private static <T> T reflectiveExtract(ResultSet rs, Class<T> classType) throws Exception {
+		Constructor<T> con = classType.getConstructor();
+		T obj = con.newInstance();
+
+		for(Field field : classType.getDeclaredFields()) {
+			String colName = camelCaseToSnakeCase(field.getName());
+			field.setAccessible(true);
+			Object fieldValue = null;
+
+			try {
+				fieldValue = rs.getObject(colName);
+			}
+			catch(SQLException e) {
+				/*     The column is not in the result set.     */
+			}
+
+			if(Objects.nonNull(fieldValue)) {
+				field.set(obj, fieldValue);
+			}
+		}
+
+		return obj;
+	}
+
+	/************************************************************************/
+	private static String camelCaseToSnakeCase(String identifier) {
+		StringBuilder nameBuilder = new StringBuilder();
+
+		for(char ch : identifier.toCharArray()) {
+			if(Character.isUpperCase(ch)) {
+				nameBuilder.append('_').append(Character.toLowerCase(ch));
+			}
+			else {
+				nameBuilder.append(ch);
+			}
+		}
+
+		return nameBuilder.toString();
+	}
+
+	/************************************************************************/
+}
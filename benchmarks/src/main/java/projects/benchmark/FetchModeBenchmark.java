@@ -0,0 +1,70 @@
+package projects.benchmark;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import projects.dao.FetchMode;
+import projects.dao.ProjectDao;
+import projects.entity.Project;
+
+/**********************************************************************
+* FetchModeBenchmark compares the two ways fetchProjectById loads a
+* project graph, the four per-table queries and the single UNION ALL
+* query, at several child counts. The embedded database has no network
+* hop, so this shows the query and assembly cost of each mode; on a
+* remote MySQL each saved round trip adds the network latency on top.
+************************************************************************/
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FetchModeBenchmark {
+
+	private static final int PROJECT_COUNT = 10_000;
+
+	@Param({ "1", "10", "50" })
+	public int childCount;
+
+	@Param({ "PER_TABLE", "SINGLE_ROUND_TRIP" })
+	public FetchMode fetchMode;
+
+	private final ProjectDao projectDao = new ProjectDao();
+
+	/************************************************************************/
+	@Setup(Level.Trial)
+	public void setUp() {
+		BenchmarkDatabase.create(PROJECT_COUNT, childCount);
+
+		String perTable = projectDao.fetchProjectById(1, FetchMode.PER_TABLE).orElseThrow().toString();
+		String singleRoundTrip = projectDao.fetchProjectById(1, FetchMode.SINGLE_ROUND_TRIP).orElseThrow().toString();
+
+		if(!perTable.equals(singleRoundTrip)) {
+			throw new IllegalStateException("Fetch modes disagree:" + perTable + "\n---" + singleRoundTrip);
+		}
+	}
+
+	/************************************************************************/
+	@Benchmark
+	public Project fetchProjectById() {
+		int projectId = 1 + ThreadLocalRandom.current().nextInt(PROJECT_COUNT);
+		return projectDao.fetchProjectById(projectId, fetchMode).orElseThrow();
+	}
+
+	/************************************************************************/
+}
@@ -0,0 +1,76 @@
+package projects.benchmark;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.openjdk.jol.info.GraphLayout;
+
+import projects.analytics.ProjectCatalog;
+import projects.dao.ProjectDao;
+import projects.entity.Project;
+
+/**********************************************************************
+* MemoryFootprint loads fully populated projects from the embedded
+* database and reports their retained heap, measured with JOL by walking
+* the object graph. It also measures the child lists alone, as loaded and
+* with the same children held in LinkedLists (the earlier representation),
+* so the saving per project is visible, and the columnar ProjectCatalog
+* holding the same projects.
+*
+*    java -cp target/benchmarks.jar projects.benchmark.MemoryFootprint [projectCount] [childCount]
+*
+* Allocation rates of the load paths can be measured with the JMH gc
+* profiler, e.g. java -jar target/benchmarks.jar DaoBenchmark -prof gc
+************************************************************************/
+
+public class MemoryFootprint {
+
+	/************************************************************************/
+	public static void main(String[] args) {
+		int projectCount = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+		int childCount = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+		BenchmarkDatabase.create(projectCount, childCount);
+
+		List<Integer> ids = new ArrayList<>(projectCount);
+		for(int id = 1; id <= projectCount; id++) {
+			ids.add(id);
+		}
+
+		ProjectDao projectDao = new ProjectDao();
+		List<Project> projects = projectDao.fetchProjectsByIds(ids);
+		ProjectCatalog catalog = projectDao.loadProjectCatalog();
+
+		List<Object> loadedLists = new ArrayList<>(projects.size() * 3);
+		List<Object> linkedLists = new ArrayList<>(projects.size() * 3);
+
+		for(Project project : projects) {
+			loadedLists.add(project.getMaterials());
+			loadedLists.add(project.getSteps());
+			loadedLists.add(project.getCategories());
+			linkedLists.add(new LinkedList<>(project.getMaterials()));
+			linkedLists.add(new LinkedList<>(project.getSteps()));
+			linkedLists.add(new LinkedList<>(project.getCategories()));
+		}
+
+		long graphBytes = GraphLayout.parseInstance(projects).totalSize();
+		long loadedListBytes = GraphLayout.parseInstance(loadedLists).totalSize();
+		long linkedListBytes = GraphLayout.parseInstance(linkedLists).totalSize();
+		long catalogBytes = GraphLayout.parseInstance(catalog).totalSize();
+
+		System.out.printf("projects=%d, childrenPerProject=%d%n", projects.size(), childCount);
+		System.out.printf("project graphs:        %,d bytes (%,.1f per project)%n",
+				graphBytes, (double)graphBytes / projects.size());
+		System.out.printf("child lists as loaded: %,d bytes (%,.1f per project)%n",
+				loadedListBytes, (double)loadedListBytes / projects.size());
+		System.out.printf("child lists as linked: %,d bytes (%,.1f per project)%n",
+				linkedListBytes, (double)linkedListBytes / projects.size());
+		System.out.printf("saved:                 %,d bytes (%,.1f per project)%n",
+				linkedListBytes - loadedListBytes, (double)(linkedListBytes - loadedListBytes) / projects.size());
+		System.out.printf("columnar catalog:      %,d bytes (%,.1f per project, %.1f%% of the graphs)%n",
+				catalogBytes, (double)catalogBytes / projects.size(), 100.0 * catalogBytes / graphBytes);
+	}
+
+	/************************************************************************/
+}
@@ -0,0 +1,118 @@
+package projects.benchmark;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import projects.service.SqlScriptTokenizer;
+
+/**********************************************************************
+* ScriptBenchmark measures splitting a generated seed script into
+* statements. tokenizer uses SqlScriptTokenizer, which replaced
+* ProjectService.convertContentToSqlStatements; legacySplit is that
+* method's original comment stripping, whitespace regex and repeated
+* substring splitting, kept here as the baseline.
+************************************************************************/
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ScriptBenchmark {
+
+	@Param({ "1000", "10000" })
+	public int statements;
+
+	private String script;
+
+	/************************************************************************/
+	@Setup(Level.Trial)
+	public void setUp() {
+		StringBuilder builder = new StringBuilder();
+
+		for(int index = 0; index < statements; index++) {
+			if(index % 10 == 0) {
+				builder.append("-- Project ").append(index).append('\n');
+			}
+			builder.append("INSERT INTO step (project_id, step_text, step_order) VALUES (")
+					.append(index).append(", 'Step   text ").append(index).append("', 1);\n");
+		}
+
+		script = builder.toString();
+	}
+
+	/************************************************************************/
+	@Benchmark
+	public void tokenizer(Blackhole blackhole) throws IOException {
+		try(SqlScriptTokenizer tokenizer = new SqlScriptTokenizer(new StringReader(script))) {
+			String sql;
+
+			while((sql = tokenizer.nextStatement()) != null) {
+				blackhole.consume(sql);
+			}
+		}
+	}
+
+	/************************************************************************/
+	@Benchmark
+	public List<String> legacySplit() {
+		String content = removeComments(script);
+		content = content.replaceAll("\\s+", " ");
+
+		List<String> lines = new LinkedList<>();
+		while(!content.isEmpty()) {
+			int semiColon = content.indexOf(";");
+
+			if(semiColon == -1) {
+				if(!content.isBlank()) {
+					lines.add(content);
+				}
+				content = "";
+			}
+			else {
+				lines.add(content.substring(0, semiColon).trim());
+				content = content.substring(semiColon + 1);
+			}
+		}
+
+		return lines;
+	}
+
+	/************************************************************************/
+	private String removeComments(String content) {
+		StringBuilder builder = new StringBuilder(content);
+		int commentPos = 0;
+
+		while((commentPos = builder.indexOf("-- ", commentPos)) != -1) {
+			int eolPos = builder.indexOf("\n", commentPos + 1);
+			if(eolPos == -1) {
+				builder.replace(commentPos, builder.length(), "");
+			}
+			else {
+				builder.replace(commentPos, eolPos + 1, "");
+			}
+		}
+
+		return builder.toString();
+	}
+
+	/************************************************************************/
+}
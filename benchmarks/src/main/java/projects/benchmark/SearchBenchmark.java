@@ -0,0 +1,90 @@
+package projects.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import projects.dao.ProjectDao;
+import projects.entity.Project;
+import projects.entity.SearchHit;
+import projects.search.SearchIndex;
+
+/**********************************************************************
+* SearchBenchmark queries the in-memory full-text SearchIndex. Every
+* generated project's name, notes and step text contain the word
+* "project" and its number, so searchCommonTerm scores every project,
+* the worst case, while searchRareTerm touches a single posting.
+* reindexProject replaces one project's document, as an update does.
+************************************************************************/
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class SearchBenchmark {
+
+	private static final int LIMIT = 20;
+
+	@Param({ "1000000" })
+	public int projectCount;
+
+	@Param({ "2" })
+	public int childCount;
+
+	private SearchIndex searchIndex;
+	private int nextProject;
+
+	/************************************************************************/
+	@Setup(Level.Trial)
+	public void setUp() {
+		BenchmarkDatabase.create(projectCount, childCount);
+		searchIndex = new ProjectDao().loadSearchIndex();
+
+		List<SearchHit> hits = searchRareTerm();
+
+		if(hits.isEmpty() || !hits.get(0).getProjectName().equals("Project " + (projectCount / 2))) {
+			throw new IllegalStateException("Unexpected search result: " + hits);
+		}
+	}
+
+	/************************************************************************/
+	@Benchmark
+	public List<SearchHit> searchCommonTerm() {
+		return searchIndex.search("project " + (projectCount / 2), LIMIT);
+	}
+
+	/************************************************************************/
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public List<SearchHit> searchRareTerm() {
+		return searchIndex.search(Integer.toString(projectCount / 2), LIMIT);
+	}
+
+	/************************************************************************/
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public SearchIndex reindexProject() {
+		int index = nextProject++ % projectCount;
+		Project project = BenchmarkDatabase.newProject(index, childCount);
+		project.setProjectId(index + 1);
+
+		searchIndex.index(project);
+		return searchIndex;
+	}
+
+	/************************************************************************/
+}
@@ -0,0 +1,80 @@
+package projects.benchmark;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import projects.dao.DbConnection;
+import projects.dao.ProjectDao;
+import projects.entity.Project;
+
+/**********************************************************************
+* StatementCacheBenchmark compares the project lookup path with the
+* pool's prepared statement cache turned off (statementCacheSize = 0) and
+* on. fetchProjectById prepares four statements per call, so it shows the
+* parse cost saved per lookup; fetchProjectRowById prepares one. Each
+* parameter value runs in its own fork because the pool reads its cache
+* size once, when it is created.
+************************************************************************/
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StatementCacheBenchmark {
+
+	private static final int PROJECT_COUNT = 10_000;
+	private static final int CHILD_COUNT = 5;
+
+	@Param({ "0", "64" })
+	public int statementCacheSize;
+
+	private final ProjectDao projectDao = new ProjectDao();
+
+	/************************************************************************/
+	@Setup(Level.Trial)
+	public void setUp() {
+		System.setProperty(DbConnection.STATEMENT_CACHE_SIZE_PROPERTY, String.valueOf(statementCacheSize));
+		BenchmarkDatabase.create(PROJECT_COUNT, CHILD_COUNT);
+	}
+
+	/************************************************************************/
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		System.out.println(DbConnection.getPool());
+	}
+
+	/************************************************************************/
+	@Benchmark
+	public Project fetchProjectById() {
+		return projectDao.fetchProjectById(randomProjectId()).orElseThrow();
+	}
+
+	/************************************************************************/
+	@Benchmark
+	public Project fetchProjectRowById() {
+		return projectDao.fetchProjectRowById(randomProjectId()).orElseThrow();
+	}
+
+	/************************************************************************/
+	private int randomProjectId() {
+		return 1 + ThreadLocalRandom.current().nextInt(PROJECT_COUNT);
+	}
+
+	/************************************************************************/
+}
@@ -0,0 +1,84 @@
+package projects.benchmark;
+
+import java.math.BigDecimal;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import projects.dao.ProjectDao;
+import projects.entity.Project;
+
+/**********************************************************************
+* UpdateBenchmark changes one detail field of a random project.
+* updateAllColumnsAndReload is the old flow: write all five columns, then
+* read the project graph back to show the result. updateChangedColumn
+* writes only the dirty column with a version check and takes the new
+* version from the update itself.
+************************************************************************/
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UpdateBenchmark {
+
+	private static final int PROJECT_COUNT = 10_000;
+	private static final int CHILD_COUNT = 5;
+
+	private final ProjectDao projectDao = new ProjectDao();
+	private Project[] projects;
+
+	/************************************************************************/
+	@Setup(Level.Trial)
+	public void setUp() {
+		BenchmarkDatabase.create(PROJECT_COUNT, CHILD_COUNT);
+		projects = new Project[PROJECT_COUNT];
+
+		for(int index = 0; index < PROJECT_COUNT; index++) {
+			projects[index] = projectDao.fetchProjectRowById(index + 1).orElseThrow();
+		}
+	}
+
+	/************************************************************************/
+	@Benchmark
+	public Project updateAllColumnsAndReload() {
+		Project current = projects[ThreadLocalRandom.current().nextInt(PROJECT_COUNT)];
+
+		Project project = new Project();
+		project.setProjectId(current.getProjectId());
+		project.setProjectName(current.getProjectName());
+		project.setEstimatedHours(current.getEstimatedHours());
+		project.setActualHours(current.getActualHours());
+		project.setDifficulty(current.getDifficulty());
+		project.setNotes("Updated " + System.nanoTime());
+
+		projectDao.modifyProjectDetails(project);
+		return projectDao.fetchProjectById(project.getProjectId()).orElseThrow();
+	}
+
+	/************************************************************************/
+	@Benchmark
+	public Project updateChangedColumn() {
+		Project project = projects[ThreadLocalRandom.current().nextInt(PROJECT_COUNT)];
+		project.setActualHours(BigDecimal.valueOf(ThreadLocalRandom.current().nextInt(10_000), 2));
+
+		project.setVersion(projectDao.modifyProjectDetails(project).orElseThrow());
+		project.clearDirtyFields();
+		return project;
+	}
+
+	/************************************************************************/
+}
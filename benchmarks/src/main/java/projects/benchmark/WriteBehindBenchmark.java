@@ -0,0 +1,99 @@
+package projects.benchmark;
+
+import java.math.BigDecimal;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import projects.dao.ProjectDao;
+import projects.entity.Project;
+import projects.service.WriteBehindBuffer;
+
+/**********************************************************************
+* WriteBehindBenchmark applies TICKS actual-hours updates spread over
+* hotProjects projects, as a time tracker would. updateEachTick writes
+* every tick in its own transaction. writeBehind submits every tick to a
+* WriteBehindBuffer and flushes at the end, so each operation includes
+* all of its database work. The buffer statistics are printed at the end
+* of the trial.
+************************************************************************/
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WriteBehindBenchmark {
+
+	private static final int PROJECT_COUNT = 10_000;
+	private static final int TICKS = 10_000;
+
+	@Param({ "1000" })
+	public int hotProjects;
+
+	private final ProjectDao projectDao = new ProjectDao();
+	private WriteBehindBuffer buffer;
+
+	/************************************************************************/
+	@Setup(Level.Trial)
+	public void setUp() {
+		BenchmarkDatabase.create(PROJECT_COUNT, 0);
+		buffer = new WriteBehindBuffer(projectDao, 5_000, 500, 100, 10_000, flushed -> {});
+	}
+
+	/************************************************************************/
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		buffer.close();
+		System.out.println(buffer);
+	}
+
+	/************************************************************************/
+	@Benchmark
+	public Project updateEachTick() {
+		Project project = null;
+
+		for(int tick = 0; tick < TICKS; tick++) {
+			project = nextTick();
+			projectDao.modifyProjectDetails(project);
+		}
+
+		return project;
+	}
+
+	/************************************************************************/
+	@Benchmark
+	public int writeBehind() {
+		for(int tick = 0; tick < TICKS; tick++) {
+			buffer.submit(nextTick());
+		}
+
+		return buffer.flush();
+	}
+
+	/*     An unversioned update of one hot project's actual hours.     */
+	private Project nextTick() {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+
+		Project project = new Project();
+		project.setProjectId(1 + random.nextInt(hotProjects));
+		project.setActualHours(BigDecimal.valueOf(random.nextInt(100_000), 2));
+		return project;
+	}
+
+	/************************************************************************/
+}
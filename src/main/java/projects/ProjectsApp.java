@@ -5,7 +5,10 @@ import java.util.List;
 import java.util.Objects;
 import java.util.Scanner;
 
+import projects.dao.ProjectSort;
 import projects.entity.Project;
+import projects.entity.ProjectPage;
+import projects.entity.SearchHit;
 import projects.exception.DbException;
 import projects.service.ProjectService;
 
@@ -13,6 +16,12 @@ import projects.service.ProjectService;
 
 public class ProjectsApp {
 	
+	/*     Most search hits shown at once.     */
+	private static final int SEARCH_RESULT_LIMIT = 20;
+	
+	/*     Projects listed per page before asking whether to show more.     */
+	private static final int LIST_PAGE_SIZE = 20;
+	
 	private ProjectService projectService = new ProjectService();
 	private Scanner scanner = new Scanner(System.in);
 	private Project curProject;
@@ -23,7 +32,8 @@ public class ProjectsApp {
 			"2) List projects",
 			"3) Select a project",
 			"4) Update project details",
-			"5) Delete a project"
+			"5) Delete a project",
+			"6) Search projects"
 				
 	);
 	// @formatter:on
@@ -32,10 +42,20 @@ public class ProjectsApp {
 	public static void main(String[] args) {
 		//DbConnection.getConnection(); // simple test
 		
-		new ProjectsApp().processUserSelections();
+		new ProjectsApp().run();
 		
 	}
 
+	/**********************************************************************
+	* run() makes sure the schema is installed once at startup and then
+	* starts the menu loop.
+	************************************************************************/
+	
+	private void run() {
+		projectService.initializeSchema();
+		processUserSelections();
+	}
+
 	/**********************************************************************
 	* processUserSelections() method, performs different actions based on 
 	* user's selection. Example - If a user's choice of selection is 1, then
@@ -77,6 +97,10 @@ public class ProjectsApp {
 				deleteProject();
 				break;
 				
+			case 6:
+				searchProjects();
+				break;
+				
 			default:
 				System.out.println("\n" + selection + " is not valid a valid selection. Try again.");
 				break;
@@ -116,17 +140,44 @@ public class ProjectsApp {
 	}
 	
 	/**********************************************************************
-	* listProjects() method lists all the projects with projectId and
-	* project name for the given project schema.
+	* listProjects() method lists the projects with projectId and project
+	* name, LIST_PAGE_SIZE at a time, so a large table is never loaded at
+	* once. After each full page the user can show the next one or stop.
 	************************************************************************/
 	
 	private void listProjects() {
-		List<Project> projects = projectService.fetchAllProjects();
+		String pageToken = null;
 		
 		System.out.println("\nProjects:");
 		
-		projects.forEach(project -> System.out
-				.println("   " + project.getProjectId() + ": " + project.getProjectName()));
+		do {
+			ProjectPage page = projectService.listProjects(ProjectSort.PROJECT_ID, LIST_PAGE_SIZE, pageToken);
+			
+			page.getProjects().forEach(project -> System.out
+					.println("   " + project.getProjectId() + ": " + project.getProjectName()));
+			
+			pageToken = page.getNextPageToken();
+		} while(Objects.nonNull(pageToken) && Objects.isNull(getStringInput("Press Enter for more projects, or q to stop")));
+	}
+	
+	/**********************************************************************
+	* searchProjects() method lists the projects whose name, notes, materials
+	* or steps best match the words entered by the user, best match first.
+	************************************************************************/
+	
+	private void searchProjects() {
+		String query = getStringInput("Enter the words to search for");
+		List<SearchHit> hits = projectService.searchProjects(query, SEARCH_RESULT_LIMIT);
+		
+		if(hits.isEmpty()) {
+			System.out.println("\nNo projects matched.");
+			return;
+		}
+		
+		System.out.println("\nMatching projects:");
+		
+		hits.forEach(hit -> System.out
+				.println("   " + hit.getProjectId() + ": " + hit.getProjectName()));
 	}
 	
 	/**********************************************************************
@@ -148,8 +199,9 @@ public class ProjectsApp {
 
 	/**********************************************************************
 	* updateProject() method updates a project for a given projectId
-	* specified by the user. The user provides all the project details that
-	* need to be updated. If a user hasn't selected a project then it informs
+	* specified by the user. The user provides the project details that
+	* need to be updated; pressing Enter keeps the current value. If a user
+	* hasn't selected a project then it informs
 	* the user that it needs to select a project first to update it.
 	************************************************************************/
 	
@@ -160,32 +212,63 @@ public class ProjectsApp {
 		}
 		else 
 		{	
-			Project project = new Project();
-			
+			/*     Only the fields given a new value are marked dirty and written.     */
 			String projectName = getStringInput("Enter the project name [" + curProject.getProjectName() + "]");
-			project.setProjectName(Objects.isNull(projectName) ? curProject.getProjectName() : projectName);
+			if(Objects.nonNull(projectName)) {
+				curProject.setProjectName(projectName);
+			}
 			
 			BigDecimal estimatedHours = getDecimalInput("Enter estimated hours [" + curProject.getEstimatedHours() + "]");
-			project.setEstimatedHours(Objects.isNull(estimatedHours) ? curProject.getEstimatedHours() : estimatedHours);
+			if(Objects.nonNull(estimatedHours)) {
+				curProject.setEstimatedHours(estimatedHours);
+			}
 			
 			BigDecimal actualHours = getDecimalInput("Enter actual hours [" + curProject.getActualHours() + "]");
-			project.setActualHours(Objects.isNull(actualHours) ? curProject.getActualHours(): actualHours);
+			if(Objects.nonNull(actualHours)) {
+				curProject.setActualHours(actualHours);
+			}
 			
 			Integer difficulty = getIntInput("Enter difficulty (1 - 5) " + "[" + curProject.getDifficulty() + "]");
-			project.setDifficulty(Objects.isNull(difficulty) ? curProject.getDifficulty() : difficulty);
+			if(Objects.nonNull(difficulty)) {
+				curProject.setDifficulty(difficulty);
+			}
 			
 			String notes = getStringInput("Enter notes [" + curProject.getNotes() + "]");
-			project.setNotes(Objects.isNull(notes) ? curProject.getNotes() : notes);
-			
-			project.setProjectId(curProject.getProjectId());
-			
-			projectService.updateProjectDetails(project);
+			if(Objects.nonNull(notes)) {
+				curProject.setNotes(notes);
+			}
 			
-			curProject = projectService.fetchProjectById(curProject.getProjectId());
+			try {
+				/*     Sets the new version on curProject, so there is nothing to re-read.     */
+				projectService.updateProjectDetails(curProject);
+				System.out.println("\nThe project was updated.");
+			}
+			catch(RuntimeException e) {
+				/*     Drop the unsaved edits so a later update cannot resend them.     */
+				curProject = reloadProject(curProject.getProjectId());
+				throw e;
+			}
 			
 		}
 		
 	}
+	
+	/**********************************************************************
+	* reloadProject() re-reads a project after a failed update: the stored
+	* values if someone else changed it, or null if it has been deleted or
+	* cannot be read, in which case the user selects a project again.
+	************************************************************************/
+	
+	private Project reloadProject(Integer projectId) {
+		
+		try {
+			return projectService.fetchProjectById(projectId);
+		}
+		catch(RuntimeException e) {
+			System.out.println("\nProject " + projectId + " could not be reloaded; please select a project.");
+			return null;
+		}
+	}
 
 	
 	/**********************************************************************
@@ -200,6 +283,7 @@ public class ProjectsApp {
 		
 		if(Objects.nonNull(projectId)) {
 			projectService.deleteProject(projectId);
+			System.out.println("\nThe project was deleted.");
 		}
 		
 		
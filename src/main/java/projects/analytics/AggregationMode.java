@@ -0,0 +1,18 @@
+package projects.analytics;
+
+/**********************************************************************
+* AggregationMode selects where ProjectService computes cost and effort
+* totals.
+*
+* SQL       - pushed down to the database as SUM/GROUP BY queries.
+* IN_MEMORY - computed by CostAggregator over the ProjectCatalog snapshot,
+*             loading one first if none is held or it is out of date.
+* AUTO      - IN_MEMORY for large data sets, where a catalog scan beats
+*             SQL sums by orders of magnitude, otherwise SQL.
+************************************************************************/
+
+public enum AggregationMode {
+	SQL,
+	IN_MEMORY,
+	AUTO
+}
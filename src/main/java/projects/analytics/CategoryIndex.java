@@ -0,0 +1,133 @@
+package projects.analytics;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**********************************************************************
+* CategoryIndex is an in-memory inverted index from category ID to the
+* IDs of the projects linked to it, one IntBitmap per category.
+* Multi-category filters are answered with bitmap AND/OR, without
+* touching the database.
+*
+* The index is built from the project_category links (see
+* ProjectDao.loadCategoryIndex()) and kept current by calling addLink(),
+* removeLink() and removeProject() as links change. Reads and writes are
+* guarded by a read-write lock, so many filters can run at once.
+************************************************************************/
+
+public class CategoryIndex {
+
+	private final Map<Integer, IntBitmap> projectsByCategory = new HashMap<>();
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	/************************************************************************/
+	public void addLink(int projectId, int categoryId) {
+		lock.writeLock().lock();
+		try {
+			projectsByCategory.computeIfAbsent(categoryId, id -> new IntBitmap()).add(projectId);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/************************************************************************/
+	public void removeLink(int projectId, int categoryId) {
+		lock.writeLock().lock();
+		try {
+			IntBitmap projects = projectsByCategory.get(categoryId);
+
+			if(Objects.nonNull(projects)) {
+				projects.remove(projectId);
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/*     Called when a project is deleted; its links cascade away in the database.     */
+	public void removeProject(int projectId) {
+		lock.writeLock().lock();
+		try {
+			for(IntBitmap projects : projectsByCategory.values()) {
+				projects.remove(projectId);
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/************************************************************************/
+	public IntBitmap projectsIn(int categoryId) {
+		lock.readLock().lock();
+		try {
+			IntBitmap projects = projectsByCategory.get(categoryId);
+			return Objects.isNull(projects) ? new IntBitmap() : projects.copy();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**********************************************************************
+	* matchAll() returns the projects linked to every given category. The
+	* smallest bitmap is taken first so the intersection shrinks as early
+	* as possible. An empty category list matches nothing.
+	************************************************************************/
+
+	public IntBitmap matchAll(Collection<Integer> categoryIds) {
+		lock.readLock().lock();
+		try {
+			IntBitmap result = null;
+
+			for(IntBitmap projects : categoryIds.stream().distinct()
+					.map(id -> projectsByCategory.getOrDefault(id, new IntBitmap()))
+					.sorted((left, right) -> Integer.compare(left.cardinality(), right.cardinality()))
+					.toList()) {
+				result = Objects.isNull(result) ? projects.copy() : result.and(projects);
+
+				if(result.isEmpty()) {
+					break;
+				}
+			}
+
+			return Objects.isNull(result) ? new IntBitmap() : result;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/************************************************************************/
+	public IntBitmap matchAny(Collection<Integer> categoryIds) {
+		lock.readLock().lock();
+		try {
+			IntBitmap result = new IntBitmap();
+
+			for(Integer categoryId : categoryIds) {
+				IntBitmap projects = projectsByCategory.get(categoryId);
+
+				if(Objects.nonNull(projects)) {
+					result = result.or(projects);
+				}
+			}
+
+			return result;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/************************************************************************/
+	public int getCategoryCount() {
+		lock.readLock().lock();
+		try {
+			return projectsByCategory.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/************************************************************************/
+}
@@ -0,0 +1,176 @@
+package projects.analytics;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import projects.entity.Category;
+import projects.entity.CategoryCost;
+import projects.entity.CostReport;
+import projects.entity.Material;
+import projects.entity.Project;
+
+/**********************************************************************
+* CostAggregator computes a CostReport in memory, either over a columnar
+* ProjectCatalog or over loaded Project graphs. The report is the same as
+* the one ProjectDao.aggregateCosts() computes in SQL.
+*
+* Inputs with at least PARALLEL_THRESHOLD projects are split across the
+* common fork-join pool with a parallel stream. Each worker sums into its
+* own Partial using scaled longs and the partials are merged at the end,
+* so no BigDecimal is created until the report is built. Smaller inputs
+* are summed on the calling thread, where the fork-join overhead would
+* outweigh the work.
+************************************************************************/
+
+public class CostAggregator {
+
+	/*     Below this many projects the scan runs sequentially.     */
+	public static final int PARALLEL_THRESHOLD = 20_000;
+
+	/************************************************************************/
+	private CostAggregator() {
+	}
+
+	/************************************************************************/
+	public static CostReport aggregate(ProjectCatalog catalog) {
+		IntStream indexes = IntStream.range(0, catalog.getProjectCount());
+
+		if(catalog.getProjectCount() >= PARALLEL_THRESHOLD) {
+			indexes = indexes.parallel();
+		}
+
+		Partial result = indexes.collect(Partial::new, (partial, index) -> {
+			long estimated = catalog.getEstimatedHoursScaled(index);
+			long actual = catalog.getActualHoursScaled(index);
+			long cost = catalog.materialCostScaled(index);
+
+			partial.total.add(estimated, actual, cost);
+
+			for(int link = catalog.getCategoryStart(index); link < catalog.getCategoryEnd(index); link++) {
+				partial.category(catalog.getCategoryId(link)).add(estimated, actual, cost);
+			}
+		}, Partial::merge);
+
+		for(Integer categoryId : result.byCategory.keySet()) {
+			result.categoryNames.put(categoryId, catalog.getCategoryName(categoryId));
+		}
+
+		return result.toReport();
+	}
+
+	/************************************************************************/
+	public static CostReport aggregate(Collection<Project> projects) {
+		Stream<Project> stream = projects.stream();
+
+		if(projects.size() >= PARALLEL_THRESHOLD) {
+			stream = stream.parallel();
+		}
+
+		Partial result = stream.collect(Partial::new, (partial, project) -> {
+			long estimated = toScaled(project.getEstimatedHours());
+			long actual = toScaled(project.getActualHours());
+			long cost = 0;
+
+			for(Material material : project.getMaterials()) {
+				if(Objects.nonNull(material.getNumRequired()) && Objects.nonNull(material.getCost())) {
+					cost += material.getNumRequired() * toScaled(material.getCost());
+				}
+			}
+
+			partial.total.add(estimated, actual, cost);
+
+			for(Category category : project.getCategories()) {
+				partial.category(category.getCategoryId()).add(estimated, actual, cost);
+				partial.categoryNames.putIfAbsent(category.getCategoryId(), category.getCategoryName());
+			}
+		}, Partial::merge);
+
+		return result.toReport();
+	}
+
+	/************************************************************************/
+	private static long toScaled(BigDecimal value) {
+		if(Objects.isNull(value)) {
+			return ProjectCatalog.NULL_LONG;
+		}
+		return value.setScale(ProjectCatalog.SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+	}
+
+	/**********************************************************************
+	* Totals sums one group of projects in scaled longs. Hours that are
+	* NULL are left out of the hour sums, and a project only contributes to
+	* the variance when it has both hour values.
+	************************************************************************/
+
+	private static class Totals {
+		private long projectCount;
+		private long materialCost;
+		private long estimatedHours;
+		private long actualHours;
+		private long hoursVariance;
+
+		private void add(long estimated, long actual, long cost) {
+			projectCount++;
+			materialCost += cost;
+
+			if(estimated != ProjectCatalog.NULL_LONG) {
+				estimatedHours += estimated;
+			}
+			if(actual != ProjectCatalog.NULL_LONG) {
+				actualHours += actual;
+			}
+			if(estimated != ProjectCatalog.NULL_LONG && actual != ProjectCatalog.NULL_LONG) {
+				hoursVariance += actual - estimated;
+			}
+		}
+
+		private void merge(Totals other) {
+			projectCount += other.projectCount;
+			materialCost += other.materialCost;
+			estimatedHours += other.estimatedHours;
+			actualHours += other.actualHours;
+			hoursVariance += other.hoursVariance;
+		}
+	}
+
+	/************************************************************************/
+	private static class Partial {
+		private final Totals total = new Totals();
+		private final Map<Integer, Totals> byCategory = new HashMap<>();
+		private final Map<Integer, String> categoryNames = new HashMap<>();
+
+		private Totals category(Integer categoryId) {
+			return byCategory.computeIfAbsent(categoryId, id -> new Totals());
+		}
+
+		private void merge(Partial other) {
+			total.merge(other.total);
+			other.byCategory.forEach((categoryId, totals) -> category(categoryId).merge(totals));
+			other.categoryNames.forEach(categoryNames::putIfAbsent);
+		}
+
+		private CostReport toReport() {
+			List<CategoryCost> categories = new ArrayList<>(byCategory.size());
+
+			new TreeMap<>(byCategory).forEach((categoryId, totals) -> categories.add(new CategoryCost(categoryId,
+					categoryNames.get(categoryId), totals.projectCount, ProjectCatalog.toDecimal(totals.materialCost),
+					ProjectCatalog.toDecimal(totals.estimatedHours), ProjectCatalog.toDecimal(totals.actualHours),
+					ProjectCatalog.toDecimal(totals.hoursVariance))));
+
+			return new CostReport(total.projectCount, ProjectCatalog.toDecimal(total.materialCost),
+					ProjectCatalog.toDecimal(total.estimatedHours), ProjectCatalog.toDecimal(total.actualHours),
+					ProjectCatalog.toDecimal(total.hoursVariance), categories);
+		}
+	}
+
+	/************************************************************************/
+}
@@ -0,0 +1,517 @@
+package projects.analytics;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**********************************************************************
+* IntBitmap is a compressed set of non-negative ints in the style of
+* RoaringBitmap. Values are grouped by their high 16 bits into chunks of
+* 65536. A chunk with at most ARRAY_LIMIT values is stored as a sorted
+* char[] (2 bytes per value); a denser chunk becomes a 1024-word bitset
+* (8 KB, whatever its cardinality). Sparse and dense sets therefore both
+* stay small, and and()/or() work chunk by chunk with merges, lookups or
+* word-wise AND/OR depending on the two containers.
+*
+* An IntBitmap is not thread-safe; and() and or() return new bitmaps and
+* leave their inputs unchanged.
+************************************************************************/
+
+public class IntBitmap {
+
+	/*     Chunks with more values than this are stored as bitsets.     */
+	private static final int ARRAY_LIMIT = 4096;
+	private static final int BITSET_WORDS = 1024;
+
+	private char[] keys = new char[4];
+	private Container[] containers = new Container[4];
+	private int size;
+
+	/************************************************************************/
+	public static IntBitmap of(int... values) {
+		IntBitmap bitmap = new IntBitmap();
+
+		for(int value : values) {
+			bitmap.add(value);
+		}
+
+		return bitmap;
+	}
+
+	/************************************************************************/
+	public void add(int value) {
+		checkValue(value);
+		char key = (char)(value >>> 16);
+		int index = indexOfKey(key);
+
+		if(index < 0) {
+			index = -index - 1;
+			insertContainer(index, key, new ArrayContainer());
+		}
+
+		containers[index] = containers[index].add((char)value);
+	}
+
+	/************************************************************************/
+	public void remove(int value) {
+		checkValue(value);
+		int index = indexOfKey((char)(value >>> 16));
+
+		if(index >= 0) {
+			Container container = containers[index].remove((char)value);
+
+			if(container.cardinality() == 0) {
+				removeContainer(index);
+			}
+			else {
+				containers[index] = container;
+			}
+		}
+	}
+
+	/************************************************************************/
+	public boolean contains(int value) {
+		if(value < 0) {
+			return false;
+		}
+
+		int index = indexOfKey((char)(value >>> 16));
+		return index >= 0 && containers[index].contains((char)value);
+	}
+
+	/************************************************************************/
+	public int cardinality() {
+		int cardinality = 0;
+
+		for(int index = 0; index < size; index++) {
+			cardinality += containers[index].cardinality();
+		}
+
+		return cardinality;
+	}
+
+	/************************************************************************/
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**********************************************************************
+	* and() returns the values present in both bitmaps. Only chunks whose
+	* key appears in both are visited.
+	************************************************************************/
+
+	public IntBitmap and(IntBitmap other) {
+		IntBitmap result = new IntBitmap();
+		int left = 0;
+		int right = 0;
+
+		while(left < size && right < other.size) {
+			if(keys[left] < other.keys[right]) {
+				left++;
+			}
+			else if(keys[left] > other.keys[right]) {
+				right++;
+			}
+			else {
+				Container container = containers[left].and(other.containers[right]);
+
+				if(container.cardinality() > 0) {
+					result.appendContainer(keys[left], container);
+				}
+				left++;
+				right++;
+			}
+		}
+
+		return result;
+	}
+
+	/************************************************************************/
+	public IntBitmap or(IntBitmap other) {
+		IntBitmap result = new IntBitmap();
+		int left = 0;
+		int right = 0;
+
+		while(left < size || right < other.size) {
+			if(right == other.size || (left < size && keys[left] < other.keys[right])) {
+				result.appendContainer(keys[left], containers[left].copy());
+				left++;
+			}
+			else if(left == size || keys[left] > other.keys[right]) {
+				result.appendContainer(other.keys[right], other.containers[right].copy());
+				right++;
+			}
+			else {
+				result.appendContainer(keys[left], containers[left].or(other.containers[right]));
+				left++;
+				right++;
+			}
+		}
+
+		return result;
+	}
+
+	/************************************************************************/
+	public IntBitmap copy() {
+		IntBitmap result = new IntBitmap();
+
+		for(int index = 0; index < size; index++) {
+			result.appendContainer(keys[index], containers[index].copy());
+		}
+
+		return result;
+	}
+
+	/************************************************************************/
+	public void forEach(IntConsumer action) {
+		for(int index = 0; index < size; index++) {
+			containers[index].forEach(keys[index] << 16, action);
+		}
+	}
+
+	/************************************************************************/
+	public int[] toArray() {
+		int[] values = new int[cardinality()];
+		int[] position = new int[1];
+
+		forEach(value -> values[position[0]++] = value);
+		return values;
+	}
+
+	/************************************************************************/
+	@Override
+	public String toString() {
+		return "IntBitmap[cardinality=" + cardinality() + ", chunks=" + size + "]";
+	}
+
+	/************************************************************************/
+	private static void checkValue(int value) {
+		if(value < 0) {
+			throw new IllegalArgumentException("IntBitmap only holds non-negative values: " + value);
+		}
+	}
+
+	/************************************************************************/
+	private int indexOfKey(char key) {
+		/*     Values are usually added in ascending order, so check the last chunk first.     */
+		if(size > 0 && keys[size - 1] == key) {
+			return size - 1;
+		}
+		return Arrays.binarySearch(keys, 0, size, key);
+	}
+
+	/************************************************************************/
+	private void insertContainer(int index, char key, Container container) {
+		if(size == keys.length) {
+			keys = Arrays.copyOf(keys, size * 2);
+			containers = Arrays.copyOf(containers, size * 2);
+		}
+
+		System.arraycopy(keys, index, keys, index + 1, size - index);
+		System.arraycopy(containers, index, containers, index + 1, size - index);
+		keys[index] = key;
+		containers[index] = container;
+		size++;
+	}
+
+	/************************************************************************/
+	private void appendContainer(char key, Container container) {
+		insertContainer(size, key, container);
+	}
+
+	/************************************************************************/
+	private void removeContainer(int index) {
+		System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+		System.arraycopy(containers, index + 1, containers, index, size - index - 1);
+		containers[--size] = null;
+	}
+
+	/**********************************************************************
+	* A Container holds the low 16 bits of the values in one chunk. add()
+	* and remove() return the container to keep, which is a converted one
+	* when the cardinality crosses ARRAY_LIMIT.
+	************************************************************************/
+
+	private abstract static class Container {
+		abstract Container add(char value);
+
+		abstract Container remove(char value);
+
+		abstract boolean contains(char value);
+
+		abstract int cardinality();
+
+		abstract Container and(Container other);
+
+		abstract Container or(Container other);
+
+		abstract Container copy();
+
+		abstract void forEach(int high, IntConsumer action);
+	}
+
+	/************************************************************************/
+	private static class ArrayContainer extends Container {
+		private char[] values;
+		private int cardinality;
+
+		private ArrayContainer() {
+			this(new char[4], 0);
+		}
+
+		private ArrayContainer(char[] values, int cardinality) {
+			this.values = values;
+			this.cardinality = cardinality;
+		}
+
+		@Override
+		Container add(char value) {
+			/*     Appending in ascending order skips the search.     */
+			int index = cardinality == 0 || values[cardinality - 1] < value
+					? -cardinality - 1 : Arrays.binarySearch(values, 0, cardinality, value);
+
+			if(index >= 0) {
+				return this;
+			}
+
+			if(cardinality == ARRAY_LIMIT) {
+				return toBitset().add(value);
+			}
+
+			index = -index - 1;
+
+			if(cardinality == values.length) {
+				values = Arrays.copyOf(values, Math.min(ARRAY_LIMIT, cardinality * 2));
+			}
+
+			System.arraycopy(values, index, values, index + 1, cardinality - index);
+			values[index] = value;
+			cardinality++;
+			return this;
+		}
+
+		@Override
+		Container remove(char value) {
+			int index = Arrays.binarySearch(values, 0, cardinality, value);
+
+			if(index >= 0) {
+				System.arraycopy(values, index + 1, values, index, cardinality - index - 1);
+				cardinality--;
+			}
+			return this;
+		}
+
+		@Override
+		boolean contains(char value) {
+			return Arrays.binarySearch(values, 0, cardinality, value) >= 0;
+		}
+
+		@Override
+		int cardinality() {
+			return cardinality;
+		}
+
+		@Override
+		Container and(Container other) {
+			char[] result = new char[Math.min(cardinality, other.cardinality())];
+			int count = 0;
+
+			if(other instanceof ArrayContainer) {
+				ArrayContainer array = (ArrayContainer)other;
+				int left = 0;
+				int right = 0;
+
+				while(left < cardinality && right < array.cardinality) {
+					if(values[left] < array.values[right]) {
+						left++;
+					}
+					else if(values[left] > array.values[right]) {
+						right++;
+					}
+					else {
+						result[count++] = values[left];
+						left++;
+						right++;
+					}
+				}
+			}
+			else {
+				for(int index = 0; index < cardinality; index++) {
+					if(other.contains(values[index])) {
+						result[count++] = values[index];
+					}
+				}
+			}
+
+			return new ArrayContainer(result, count);
+		}
+
+		@Override
+		Container or(Container other) {
+			if(other instanceof BitsetContainer) {
+				return other.or(this);
+			}
+
+			ArrayContainer array = (ArrayContainer)other;
+			char[] result = new char[cardinality + array.cardinality];
+			int count = 0;
+			int left = 0;
+			int right = 0;
+
+			while(left < cardinality || right < array.cardinality) {
+				if(right == array.cardinality || (left < cardinality && values[left] < array.values[right])) {
+					result[count++] = values[left++];
+				}
+				else if(left == cardinality || values[left] > array.values[right]) {
+					result[count++] = array.values[right++];
+				}
+				else {
+					result[count++] = values[left];
+					left++;
+					right++;
+				}
+			}
+
+			ArrayContainer merged = new ArrayContainer(result, count);
+			return count > ARRAY_LIMIT ? merged.toBitset() : merged;
+		}
+
+		@Override
+		Container copy() {
+			return new ArrayContainer(Arrays.copyOf(values, Math.max(1, cardinality)), cardinality);
+		}
+
+		@Override
+		void forEach(int high, IntConsumer action) {
+			for(int index = 0; index < cardinality; index++) {
+				action.accept(high | values[index]);
+			}
+		}
+
+		private BitsetContainer toBitset() {
+			BitsetContainer bitset = new BitsetContainer();
+
+			for(int index = 0; index < cardinality; index++) {
+				bitset.add(values[index]);
+			}
+			return bitset;
+		}
+	}
+
+	/************************************************************************/
+	private static class BitsetContainer extends Container {
+		private final long[] words;
+		private int cardinality;
+
+		private BitsetContainer() {
+			this(new long[BITSET_WORDS], 0);
+		}
+
+		private BitsetContainer(long[] words, int cardinality) {
+			this.words = words;
+			this.cardinality = cardinality;
+		}
+
+		@Override
+		Container add(char value) {
+			long before = words[value >>> 6];
+			words[value >>> 6] = before | (1L << value);
+
+			if(before != words[value >>> 6]) {
+				cardinality++;
+			}
+			return this;
+		}
+
+		@Override
+		Container remove(char value) {
+			long before = words[value >>> 6];
+			words[value >>> 6] = before & ~(1L << value);
+
+			if(before != words[value >>> 6]) {
+				cardinality--;
+			}
+			return cardinality <= ARRAY_LIMIT ? toArray() : this;
+		}
+
+		@Override
+		boolean contains(char value) {
+			return (words[value >>> 6] & (1L << value)) != 0;
+		}
+
+		@Override
+		int cardinality() {
+			return cardinality;
+		}
+
+		@Override
+		Container and(Container other) {
+			if(other instanceof ArrayContainer) {
+				return other.and(this);
+			}
+
+			long[] otherWords = ((BitsetContainer)other).words;
+			long[] result = new long[BITSET_WORDS];
+			int count = 0;
+
+			for(int index = 0; index < BITSET_WORDS; index++) {
+				result[index] = words[index] & otherWords[index];
+				count += Long.bitCount(result[index]);
+			}
+
+			BitsetContainer bitset = new BitsetContainer(result, count);
+			return count <= ARRAY_LIMIT ? bitset.toArray() : bitset;
+		}
+
+		@Override
+		Container or(Container other) {
+			BitsetContainer result = (BitsetContainer)copy();
+
+			if(other instanceof ArrayContainer) {
+				ArrayContainer array = (ArrayContainer)other;
+
+				for(int index = 0; index < array.cardinality; index++) {
+					result.add(array.values[index]);
+				}
+				return result;
+			}
+
+			long[] otherWords = ((BitsetContainer)other).words;
+			int count = 0;
+
+			for(int index = 0; index < BITSET_WORDS; index++) {
+				result.words[index] |= otherWords[index];
+				count += Long.bitCount(result.words[index]);
+			}
+
+			result.cardinality = count;
+			return result;
+		}
+
+		@Override
+		Container copy() {
+			return new BitsetContainer(words.clone(), cardinality);
+		}
+
+		@Override
+		void forEach(int high, IntConsumer action) {
+			for(int index = 0; index < BITSET_WORDS; index++) {
+				long word = words[index];
+
+				while(word != 0) {
+					action.accept(high | (index << 6) | Long.numberOfTrailingZeros(word));
+					word &= word - 1;
+				}
+			}
+		}
+
+		private ArrayContainer toArray() {
+			char[] values = new char[cardinality];
+			int[] count = new int[1];
+
+			forEach(0, value -> values[count[0]++] = (char)value);
+			return new ArrayContainer(values, cardinality);
+		}
+	}
+
+	/************************************************************************/
+}
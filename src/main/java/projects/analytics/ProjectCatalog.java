@@ -0,0 +1,453 @@
+package projects.analytics;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**********************************************************************
+* ProjectCatalog holds the numeric and name columns of every project,
+* material and project-category link in primitive arrays, one array per
+* column, for scans over the whole catalog:
+*
+* - ids, difficulty and step counts are int[],
+* - estimated_hours, actual_hours and cost are long[] scaled by 10^SCALE
+*   (DECIMAL(7,2) values stored as hundredths), so sums never allocate,
+* - project and material names are dictionary encoded int[] codes.
+*
+* Projects are sorted by project_id and addressed by their index. Each
+* project's materials and category links sit in one contiguous range
+* (CSR layout), found through getMaterialStart/End and
+* getCategoryStart/End. SQL NULLs are stored as NULL_INT / NULL_LONG.
+* Notes and step text are not kept; the catalog is for analytics, not for
+* rebuilding Project graphs.
+*
+* A built catalog is immutable and safe to share between threads.
+************************************************************************/
+
+public class ProjectCatalog {
+
+	/*     Decimal places kept in the scaled long columns.     */
+	public static final int SCALE = 2;
+
+	public static final int NULL_INT = Integer.MIN_VALUE;
+	public static final long NULL_LONG = Long.MIN_VALUE;
+
+	private final int projectCount;
+	private final int[] projectIds;
+	private final int[] projectNameCodes;
+	private final long[] estimatedHours;
+	private final long[] actualHours;
+	private final int[] difficulties;
+	private final int[] stepCounts;
+
+	private final int[] materialStarts;
+	private final int[] materialNameCodes;
+	private final int[] numRequired;
+	private final long[] costs;
+
+	private final int[] categoryStarts;
+	private final int[] categoryIds;
+
+	private final StringDictionary projectNames;
+	private final StringDictionary materialNames;
+	private final Map<Integer, String> categoryNames;
+
+	/************************************************************************/
+	private ProjectCatalog(Builder builder, int[] materialStarts, int[] materialNameCodes, int[] numRequired,
+			long[] costs, int[] categoryStarts, int[] categoryIds) {
+		this.projectCount = builder.projectCount;
+		this.projectIds = Arrays.copyOf(builder.projectIds, projectCount);
+		this.projectNameCodes = Arrays.copyOf(builder.projectNameCodes, projectCount);
+		this.estimatedHours = Arrays.copyOf(builder.estimatedHours, projectCount);
+		this.actualHours = Arrays.copyOf(builder.actualHours, projectCount);
+		this.difficulties = Arrays.copyOf(builder.difficulties, projectCount);
+		this.stepCounts = Arrays.copyOf(builder.stepCounts, projectCount);
+		this.materialStarts = materialStarts;
+		this.materialNameCodes = materialNameCodes;
+		this.numRequired = numRequired;
+		this.costs = costs;
+		this.categoryStarts = categoryStarts;
+		this.categoryIds = categoryIds;
+		this.projectNames = builder.projectNames;
+		this.materialNames = builder.materialNames;
+		this.categoryNames = Collections.unmodifiableMap(new HashMap<>(builder.categoryNames));
+	}
+
+	/************************************************************************/
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/*************************   Sizes and lookup   *************************/
+
+	public int getProjectCount() {
+		return projectCount;
+	}
+
+	public int getMaterialCount() {
+		return materialStarts[projectCount];
+	}
+
+	public int getCategoryLinkCount() {
+		return categoryStarts[projectCount];
+	}
+
+	/*     Returns the index of the project, or -1 if it is not in the catalog.     */
+	public int indexOf(int projectId) {
+		int index = Arrays.binarySearch(projectIds, 0, projectCount, projectId);
+		return index >= 0 ? index : -1;
+	}
+
+	/*************************   Project columns   *************************/
+
+	public int getProjectId(int index) {
+		return projectIds[index];
+	}
+
+	public String getProjectName(int index) {
+		return projectNames.decode(projectNameCodes[index]);
+	}
+
+	public long getEstimatedHoursScaled(int index) {
+		return estimatedHours[index];
+	}
+
+	public long getActualHoursScaled(int index) {
+		return actualHours[index];
+	}
+
+	public int getDifficulty(int index) {
+		return difficulties[index];
+	}
+
+	public int getStepCount(int index) {
+		return stepCounts[index];
+	}
+
+	/*************************   Material columns   *************************/
+
+	public int getMaterialStart(int index) {
+		return materialStarts[index];
+	}
+
+	public int getMaterialEnd(int index) {
+		return materialStarts[index + 1];
+	}
+
+	public String getMaterialName(int material) {
+		return materialNames.decode(materialNameCodes[material]);
+	}
+
+	public int getNumRequired(int material) {
+		return numRequired[material];
+	}
+
+	public long getCostScaled(int material) {
+		return costs[material];
+	}
+
+	/*************************   Category columns   *************************/
+
+	public int getCategoryStart(int index) {
+		return categoryStarts[index];
+	}
+
+	public int getCategoryEnd(int index) {
+		return categoryStarts[index + 1];
+	}
+
+	public int getCategoryId(int link) {
+		return categoryIds[link];
+	}
+
+	public String getCategoryName(int categoryId) {
+		return categoryNames.get(categoryId);
+	}
+
+	/**********************************************************************
+	* materialCostScaled() returns the total of num_required * cost over one
+	* project's materials, scaled like cost. Materials with a NULL quantity
+	* or cost are left out, as SUM() would leave out the NULL product.
+	************************************************************************/
+
+	public long materialCostScaled(int index) {
+		long total = 0;
+
+		for(int material = materialStarts[index]; material < materialStarts[index + 1]; material++) {
+			if(numRequired[material] != NULL_INT && costs[material] != NULL_LONG) {
+				total += numRequired[material] * costs[material];
+			}
+		}
+
+		return total;
+	}
+
+	/************************************************************************/
+	public BigDecimal totalMaterialCost() {
+		long total = 0;
+
+		for(int index = 0; index < projectCount; index++) {
+			total += materialCostScaled(index);
+		}
+
+		return toDecimal(total);
+	}
+
+	/************************************************************************/
+	public BigDecimal totalEstimatedHours() {
+		return toDecimal(sum(estimatedHours));
+	}
+
+	/************************************************************************/
+	public BigDecimal totalActualHours() {
+		return toDecimal(sum(actualHours));
+	}
+
+	/**********************************************************************
+	* countOverEstimate() counts the projects whose actual hours exceed the
+	* estimate. Projects missing either value are not counted.
+	************************************************************************/
+
+	public int countOverEstimate() {
+		int count = 0;
+
+		for(int index = 0; index < projectCount; index++) {
+			if(estimatedHours[index] != NULL_LONG && actualHours[index] != NULL_LONG
+					&& actualHours[index] > estimatedHours[index]) {
+				count++;
+			}
+		}
+
+		return count;
+	}
+
+	/**********************************************************************
+	* countByDifficulty() returns the number of projects per difficulty.
+	* Projects without a difficulty are not counted.
+	************************************************************************/
+
+	public Map<Integer, Integer> countByDifficulty() {
+		Map<Integer, Integer> counts = new HashMap<>();
+
+		for(int index = 0; index < projectCount; index++) {
+			if(difficulties[index] != NULL_INT) {
+				counts.merge(difficulties[index], 1, Integer::sum);
+			}
+		}
+
+		return counts;
+	}
+
+	/************************************************************************/
+	private long sum(long[] column) {
+		long total = 0;
+
+		for(int index = 0; index < projectCount; index++) {
+			if(column[index] != NULL_LONG) {
+				total += column[index];
+			}
+		}
+
+		return total;
+	}
+
+	/************************************************************************/
+	public static BigDecimal toDecimal(long scaled) {
+		return scaled == NULL_LONG ? null : BigDecimal.valueOf(scaled, SCALE);
+	}
+
+	/************************************************************************/
+	@Override
+	public String toString() {
+		return "ProjectCatalog[projects=" + projectCount + ", materials=" + getMaterialCount()
+				+ ", categoryLinks=" + getCategoryLinkCount() + ", distinctMaterialNames=" + materialNames.size() + "]";
+	}
+
+	/**********************************************************************
+	* Builder collects rows as they are read from a ResultSet. Projects must
+	* be added first and in ascending project_id order; materials, category
+	* links and step counts may then arrive in any order and are grouped by
+	* project in build(). Rows for project IDs that were not added are
+	* ignored.
+	************************************************************************/
+
+	public static class Builder {
+		private int projectCount;
+		private int[] projectIds = new int[1024];
+		private int[] projectNameCodes = new int[1024];
+		private long[] estimatedHours = new long[1024];
+		private long[] actualHours = new long[1024];
+		private int[] difficulties = new int[1024];
+		private int[] stepCounts = new int[1024];
+
+		private int materialCount;
+		private int[] materialProjects = new int[1024];
+		private int[] materialNameCodes = new int[1024];
+		private int[] numRequired = new int[1024];
+		private long[] costs = new long[1024];
+
+		private int linkCount;
+		private int[] linkProjects = new int[1024];
+		private int[] linkCategoryIds = new int[1024];
+
+		private final StringDictionary projectNames = new StringDictionary();
+		private final StringDictionary materialNames = new StringDictionary();
+		private final Map<Integer, String> categoryNames = new HashMap<>();
+
+		private Builder() {
+		}
+
+		/************************************************************************/
+		public Builder addProject(int projectId, String projectName, long estimatedHoursScaled,
+				long actualHoursScaled, int difficulty) {
+
+			if(projectCount > 0 && projectId <= projectIds[projectCount - 1]) {
+				throw new IllegalStateException("Projects must be added in ascending project_id order: " + projectId);
+			}
+
+			if(projectCount == projectIds.length) {
+				int capacity = projectCount * 2;
+				projectIds = Arrays.copyOf(projectIds, capacity);
+				projectNameCodes = Arrays.copyOf(projectNameCodes, capacity);
+				estimatedHours = Arrays.copyOf(estimatedHours, capacity);
+				actualHours = Arrays.copyOf(actualHours, capacity);
+				difficulties = Arrays.copyOf(difficulties, capacity);
+				stepCounts = Arrays.copyOf(stepCounts, capacity);
+			}
+
+			projectIds[projectCount] = projectId;
+			projectNameCodes[projectCount] = projectNames.encode(projectName);
+			estimatedHours[projectCount] = estimatedHoursScaled;
+			actualHours[projectCount] = actualHoursScaled;
+			difficulties[projectCount] = difficulty;
+			projectCount++;
+			return this;
+		}
+
+		/************************************************************************/
+		public Builder addMaterial(int projectId, String materialName, int numRequired, long costScaled) {
+			int project = indexOf(projectId);
+
+			if(project < 0) {
+				return this;
+			}
+
+			if(materialCount == materialProjects.length) {
+				int capacity = materialCount * 2;
+				materialProjects = Arrays.copyOf(materialProjects, capacity);
+				materialNameCodes = Arrays.copyOf(materialNameCodes, capacity);
+				this.numRequired = Arrays.copyOf(this.numRequired, capacity);
+				costs = Arrays.copyOf(costs, capacity);
+			}
+
+			materialProjects[materialCount] = project;
+			materialNameCodes[materialCount] = materialNames.encode(materialName);
+			this.numRequired[materialCount] = numRequired;
+			costs[materialCount] = costScaled;
+			materialCount++;
+			return this;
+		}
+
+		/************************************************************************/
+		public Builder addCategoryLink(int projectId, int categoryId, String categoryName) {
+			int project = indexOf(projectId);
+
+			if(project < 0) {
+				return this;
+			}
+
+			if(linkCount == linkProjects.length) {
+				int capacity = linkCount * 2;
+				linkProjects = Arrays.copyOf(linkProjects, capacity);
+				linkCategoryIds = Arrays.copyOf(linkCategoryIds, capacity);
+			}
+
+			linkProjects[linkCount] = project;
+			linkCategoryIds[linkCount] = categoryId;
+			linkCount++;
+			categoryNames.putIfAbsent(categoryId, categoryName);
+			return this;
+		}
+
+		/************************************************************************/
+		public Builder setStepCount(int projectId, int stepCount) {
+			int project = indexOf(projectId);
+
+			if(project >= 0) {
+				stepCounts[project] = stepCount;
+			}
+			return this;
+		}
+
+		/************************************************************************/
+		private int indexOf(int projectId) {
+			return Math.max(-1, Arrays.binarySearch(projectIds, 0, projectCount, projectId));
+		}
+
+		/**********************************************************************
+		* build() groups materials and category links by project with a
+		* counting sort, which keeps rows of the same project in the order they
+		* were added, and trims every array to its final size.
+		************************************************************************/
+
+		public ProjectCatalog build() {
+			int[] materialStarts = offsets(materialProjects, materialCount);
+			int[] materialOrder = placement(materialProjects, materialCount, materialStarts);
+
+			int[] sortedNameCodes = new int[materialCount];
+			int[] sortedNumRequired = new int[materialCount];
+			long[] sortedCosts = new long[materialCount];
+
+			for(int row = 0; row < materialCount; row++) {
+				int target = materialOrder[row];
+				sortedNameCodes[target] = materialNameCodes[row];
+				sortedNumRequired[target] = numRequired[row];
+				sortedCosts[target] = costs[row];
+			}
+
+			int[] categoryStarts = offsets(linkProjects, linkCount);
+			int[] linkOrder = placement(linkProjects, linkCount, categoryStarts);
+			int[] sortedCategoryIds = new int[linkCount];
+
+			for(int row = 0; row < linkCount; row++) {
+				sortedCategoryIds[linkOrder[row]] = linkCategoryIds[row];
+			}
+
+			projectNames.trim();
+			materialNames.trim();
+
+			return new ProjectCatalog(this, materialStarts, sortedNameCodes, sortedNumRequired, sortedCosts,
+					categoryStarts, sortedCategoryIds);
+		}
+
+		/*     offsets[p] is the first row of project p; offsets[projectCount] is the row count.     */
+		private int[] offsets(int[] rowProjects, int rowCount) {
+			int[] offsets = new int[projectCount + 1];
+
+			for(int row = 0; row < rowCount; row++) {
+				offsets[rowProjects[row] + 1]++;
+			}
+			for(int project = 0; project < projectCount; project++) {
+				offsets[project + 1] += offsets[project];
+			}
+
+			return offsets;
+		}
+
+		/*     Returns the sorted position of every row.     */
+		private int[] placement(int[] rowProjects, int rowCount, int[] offsets) {
+			int[] next = Arrays.copyOf(offsets, projectCount);
+			int[] order = new int[rowCount];
+
+			for(int row = 0; row < rowCount; row++) {
+				order[row] = next[rowProjects[row]]++;
+			}
+
+			return order;
+		}
+	}
+
+	/************************************************************************/
+}
@@ -0,0 +1,70 @@
+package projects.analytics;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**********************************************************************
+* StringDictionary assigns each distinct string a dense int code, so a
+* column of repeated values (material names, for instance) is stored as an
+* int[] plus one copy of each distinct string. Code -1 stands for null.
+*
+* Strings are added while the dictionary is built and it is read-only
+* afterwards; it is not thread-safe while being built.
+************************************************************************/
+
+public class StringDictionary {
+
+	public static final int NULL_CODE = -1;
+
+	private Map<String, Integer> codes = new HashMap<>();
+	private String[] values = new String[16];
+	private int size;
+
+	/************************************************************************/
+	public int encode(String value) {
+		if(Objects.isNull(codes)) {
+			throw new IllegalStateException("The dictionary has been trimmed and is read-only.");
+		}
+		if(Objects.isNull(value)) {
+			return NULL_CODE;
+		}
+
+		Integer code = codes.get(value);
+
+		if(Objects.nonNull(code)) {
+			return code;
+		}
+
+		if(size == values.length) {
+			values = Arrays.copyOf(values, size * 2);
+		}
+
+		values[size] = value;
+		codes.put(value, size);
+		return size++;
+	}
+
+	/************************************************************************/
+	public String decode(int code) {
+		return code == NULL_CODE ? null : values[code];
+	}
+
+	/************************************************************************/
+	public int size() {
+		return size;
+	}
+
+	/**********************************************************************
+	* trim() drops the lookup map and spare array capacity once no more
+	* strings will be added. encode() must not be called afterwards.
+	************************************************************************/
+
+	void trim() {
+		values = Arrays.copyOf(values, size);
+		codes = null;
+	}
+
+	/************************************************************************/
+}
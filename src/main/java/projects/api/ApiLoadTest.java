@@ -0,0 +1,108 @@
+package projects.api;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**********************************************************************
+* ApiLoadTest is a small load generator for a locally running
+* ProjectApiServer. Each client is a virtual thread that repeatedly reads
+* a random project (or, one time in ten, the first page of the listing)
+* until the duration is up. It prints throughput, error count and latency
+* percentiles.
+*
+*    java projects.api.ApiLoadTest [baseUrl] [clients] [seconds] [maxProjectId]
+*    java projects.api.ApiLoadTest http://localhost:8080 200 30 3
+************************************************************************/
+
+public class ApiLoadTest {
+
+	/*     Latencies beyond this many samples per client are not recorded.     */
+	private static final int MAX_SAMPLES_PER_CLIENT = 10_000;
+
+	/************************************************************************/
+	public static void main(String[] args) throws InterruptedException {
+		String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080";
+		int clients = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+		int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+		int maxProjectId = args.length > 3 ? Integer.parseInt(args[3]) : 3;
+
+		HttpClient httpClient = HttpClient.newBuilder()
+				.connectTimeout(Duration.ofSeconds(5))
+				.executor(Executors.newVirtualThreadPerTaskExecutor())
+				.build();
+
+		long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+		long[][] samples = new long[clients][MAX_SAMPLES_PER_CLIENT];
+		int[] sampleCounts = new int[clients];
+		LongAdder requests = new LongAdder();
+		LongAdder errors = new LongAdder();
+		long started = System.nanoTime();
+
+		try(ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			for(int client = 0; client < clients; client++) {
+				int clientIndex = client;
+
+				executor.submit(() -> {
+					ThreadLocalRandom random = ThreadLocalRandom.current();
+
+					while(System.nanoTime() < deadline) {
+						String path = random.nextInt(10) == 0
+								? "/projects?pageSize=50"
+								: "/projects/" + (1 + random.nextInt(maxProjectId));
+
+						HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build();
+						long start = System.nanoTime();
+
+						try {
+							HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+							if(response.statusCode() >= 500) {
+								errors.increment();
+							}
+						} catch (Exception e) {
+							errors.increment();
+						}
+
+						long elapsed = System.nanoTime() - start;
+						requests.increment();
+
+						if(sampleCounts[clientIndex] < MAX_SAMPLES_PER_CLIENT) {
+							samples[clientIndex][sampleCounts[clientIndex]++] = elapsed;
+						}
+					}
+				});
+			}
+		}
+
+		double elapsedSeconds = (System.nanoTime() - started) / 1_000_000_000.0;
+		long[] latencies = Arrays.stream(samples)
+				.flatMapToLong(clientSamples -> Arrays.stream(clientSamples))
+				.filter(sample -> sample > 0)
+				.sorted()
+				.toArray();
+
+		System.out.printf("clients=%d, duration=%.1fs, requests=%d, errors=%d, throughput=%.1f req/s%n",
+				clients, elapsedSeconds, requests.sum(), errors.sum(), requests.sum() / elapsedSeconds);
+
+		if(latencies.length > 0) {
+			System.out.printf("latency ms: p50=%.2f, p90=%.2f, p99=%.2f, max=%.2f%n",
+					percentile(latencies, 0.50), percentile(latencies, 0.90),
+					percentile(latencies, 0.99), latencies[latencies.length - 1] / 1_000_000.0);
+		}
+	}
+
+	/************************************************************************/
+	private static double percentile(long[] sortedNanos, double fraction) {
+		int index = (int)Math.min(sortedNanos.length - 1, Math.ceil(fraction * sortedNanos.length) - 1);
+		return sortedNanos[Math.max(0, index)] / 1_000_000.0;
+	}
+
+	/************************************************************************/
+}
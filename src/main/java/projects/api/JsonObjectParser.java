@@ -0,0 +1,198 @@
+package projects.api;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+
+/**********************************************************************
+* JsonObjectParser parses the flat JSON objects the API accepts as request
+* bodies, e.g. {"projectName": "Deck", "difficulty": 3}. Values may be
+* strings, numbers (returned as BigDecimal), true/false or null. Nested
+* objects and arrays are rejected with an IllegalArgumentException.
+************************************************************************/
+
+public class JsonObjectParser {
+
+	private final String json;
+	private int pos;
+
+	/************************************************************************/
+	private JsonObjectParser(String json) {
+		this.json = json;
+	}
+
+	/************************************************************************/
+	public static Map<String, Object> parse(String json) {
+		return new JsonObjectParser(json).parseObject();
+	}
+
+	/************************************************************************/
+	private Map<String, Object> parseObject() {
+		Map<String, Object> values = new HashMap<>();
+
+		skipWhitespace();
+		expect('{');
+		skipWhitespace();
+
+		if(peek() == '}') {
+			pos++;
+		}
+		else {
+			parseMembers(values);
+		}
+
+		skipWhitespace();
+		if(pos != json.length()) {
+			throw error("Unexpected content after the object");
+		}
+
+		return values;
+	}
+
+	/************************************************************************/
+	private void parseMembers(Map<String, Object> values) {
+		while(true) {
+			skipWhitespace();
+			String name = parseString();
+			skipWhitespace();
+			expect(':');
+			skipWhitespace();
+			values.put(name, parseValue());
+			skipWhitespace();
+
+			char ch = next();
+			if(ch == '}') {
+				break;
+			}
+			if(ch != ',') {
+				throw error("Expected ',' or '}'");
+			}
+		}
+	}
+
+	/************************************************************************/
+	private Object parseValue() {
+		char ch = peek();
+
+		if(ch == '"') {
+			return parseString();
+		}
+		if(json.startsWith("null", pos)) {
+			pos += 4;
+			return null;
+		}
+		if(json.startsWith("true", pos)) {
+			pos += 4;
+			return Boolean.TRUE;
+		}
+		if(json.startsWith("false", pos)) {
+			pos += 5;
+			return Boolean.FALSE;
+		}
+		if(ch == '-' || Character.isDigit(ch)) {
+			int start = pos;
+			while(pos < json.length() && "+-.eE0123456789".indexOf(json.charAt(pos)) >= 0) {
+				pos++;
+			}
+			try {
+				return new BigDecimal(json.substring(start, pos));
+			} catch (NumberFormatException e) {
+				throw error("Invalid number");
+			}
+		}
+
+		throw error("Unsupported value");
+	}
+
+	/************************************************************************/
+	private String parseString() {
+		expect('"');
+		StringBuilder builder = new StringBuilder();
+
+		while(true) {
+			char ch = next();
+
+			if(ch == '"') {
+				return builder.toString();
+			}
+
+			if(ch != '\\') {
+				builder.append(ch);
+				continue;
+			}
+
+			char escaped = next();
+			switch(escaped) {
+			case '"':
+			case '\\':
+			case '/':
+				builder.append(escaped);
+				break;
+			case 'b':
+				builder.append('\b');
+				break;
+			case 'f':
+				builder.append('\f');
+				break;
+			case 'n':
+				builder.append('\n');
+				break;
+			case 'r':
+				builder.append('\r');
+				break;
+			case 't':
+				builder.append('\t');
+				break;
+			case 'u':
+				if(pos + 4 > json.length()) {
+					throw error("Invalid unicode escape");
+				}
+				try {
+					builder.append((char)Integer.parseInt(json.substring(pos, pos + 4), 16));
+				} catch (NumberFormatException e) {
+					throw error("Invalid unicode escape");
+				}
+				pos += 4;
+				break;
+			default:
+				throw error("Invalid escape");
+			}
+		}
+	}
+
+	/************************************************************************/
+	private void skipWhitespace() {
+		while(pos < json.length() && Character.isWhitespace(json.charAt(pos))) {
+			pos++;
+		}
+	}
+
+	/************************************************************************/
+	private void expect(char expected) {
+		if(next() != expected) {
+			throw error("Expected '" + expected + "'");
+		}
+	}
+
+	/************************************************************************/
+	private char peek() {
+		if(pos >= json.length()) {
+			throw error("Unexpected end of input");
+		}
+		return json.charAt(pos);
+	}
+
+	/************************************************************************/
+	private char next() {
+		char ch = peek();
+		pos++;
+		return ch;
+	}
+
+	/************************************************************************/
+	private IllegalArgumentException error(String message) {
+		return new IllegalArgumentException(message + " at position " + pos + " of the request body.");
+	}
+
+	/************************************************************************/
+}
@@ -0,0 +1,225 @@
+package projects.api;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Objects;
+
+import projects.entity.Category;
+import projects.entity.Material;
+import projects.entity.Project;
+import projects.entity.ProjectPage;
+import projects.entity.Step;
+
+/**********************************************************************
+* JsonWriter writes JSON straight to a Writer, one token at a time, so a
+* Project graph is serialized without building intermediate Strings.
+* The caller is responsible for calling separators in the right places;
+* the entity helpers at the bottom do this for the project types.
+************************************************************************/
+
+public class JsonWriter {
+
+	private final Writer out;
+	private boolean needsComma;
+
+	/************************************************************************/
+	public JsonWriter(Writer out) {
+		this.out = out;
+	}
+
+	/************************************************************************/
+	public JsonWriter beginObject() throws IOException {
+		separate();
+		out.write('{');
+		needsComma = false;
+		return this;
+	}
+
+	/************************************************************************/
+	public JsonWriter endObject() throws IOException {
+		out.write('}');
+		needsComma = true;
+		return this;
+	}
+
+	/************************************************************************/
+	public JsonWriter beginArray() throws IOException {
+		separate();
+		out.write('[');
+		needsComma = false;
+		return this;
+	}
+
+	/************************************************************************/
+	public JsonWriter endArray() throws IOException {
+		out.write(']');
+		needsComma = true;
+		return this;
+	}
+
+	/************************************************************************/
+	public JsonWriter name(String name) throws IOException {
+		separate();
+		writeString(name);
+		out.write(':');
+		needsComma = false;
+		return this;
+	}
+
+	/************************************************************************/
+	public JsonWriter value(String value) throws IOException {
+		separate();
+		if(Objects.isNull(value)) {
+			out.write("null");
+		}
+		else {
+			writeString(value);
+		}
+		needsComma = true;
+		return this;
+	}
+
+	/************************************************************************/
+	public JsonWriter value(Integer value) throws IOException {
+		separate();
+		out.write(Objects.isNull(value) ? "null" : value.toString());
+		needsComma = true;
+		return this;
+	}
+
+	/************************************************************************/
+	public JsonWriter value(BigDecimal value) throws IOException {
+		separate();
+		out.write(Objects.isNull(value) ? "null" : value.toPlainString());
+		needsComma = true;
+		return this;
+	}
+
+	/************************************************************************/
+	public void flush() throws IOException {
+		out.flush();
+	}
+
+	/************************************************************************/
+	private void separate() throws IOException {
+		if(needsComma) {
+			out.write(',');
+			needsComma = false;
+		}
+	}
+
+	/**********************************************************************
+	* writeString() writes a quoted string, escaping quotes, backslashes and
+	* control characters. Runs of characters that need no escaping are
+	* written in one call.
+	************************************************************************/
+
+	private void writeString(String value) throws IOException {
+		out.write('"');
+		int start = 0;
+
+		for(int index = 0; index < value.length(); index++) {
+			char ch = value.charAt(index);
+			String escape = null;
+
+			switch(ch) {
+			case '"':
+				escape = "\\\"";
+				break;
+			case '\\':
+				escape = "\\\\";
+				break;
+			case '\n':
+				escape = "\\n";
+				break;
+			case '\r':
+				escape = "\\r";
+				break;
+			case '\t':
+				escape = "\\t";
+				break;
+			default:
+				if(ch < 0x20) {
+					escape = String.format("\\u%04x", (int)ch);
+				}
+				break;
+			}
+
+			if(escape != null) {
+				out.write(value, start, index - start);
+				out.write(escape);
+				start = index + 1;
+			}
+		}
+
+		out.write(value, start, value.length() - start);
+		out.write('"');
+	}
+
+	/*************************   Entity helpers   *************************/
+
+	public JsonWriter project(Project project) throws IOException {
+		beginObject();
+		name("projectId").value(project.getProjectId());
+		name("projectName").value(project.getProjectName());
+		name("estimatedHours").value(project.getEstimatedHours());
+		name("actualHours").value(project.getActualHours());
+		name("difficulty").value(project.getDifficulty());
+		name("notes").value(project.getNotes());
+		name("version").value(project.getVersion());
+
+		name("materials").beginArray();
+		for(Material material : project.getMaterials()) {
+			beginObject();
+			name("materialId").value(material.getMaterialId());
+			name("materialName").value(material.getMaterialName());
+			name("numRequired").value(material.getNumRequired());
+			name("cost").value(material.getCost());
+			endObject();
+		}
+		endArray();
+
+		name("steps").beginArray();
+		for(Step step : project.getSteps()) {
+			beginObject();
+			name("stepId").value(step.getStepId());
+			name("stepText").value(step.getStepText());
+			name("stepOrder").value(step.getStepOrder());
+			endObject();
+		}
+		endArray();
+
+		name("categories").beginArray();
+		for(Category category : project.getCategories()) {
+			beginObject();
+			name("categoryId").value(category.getCategoryId());
+			name("categoryName").value(category.getCategoryName());
+			endObject();
+		}
+		endArray();
+
+		return endObject();
+	}
+
+	/************************************************************************/
+	public JsonWriter projectPage(ProjectPage page) throws IOException {
+		beginObject();
+		name("projects").beginArray();
+
+		List<Project> projects = page.getProjects();
+		for(Project project : projects) {
+			beginObject();
+			name("projectId").value(project.getProjectId());
+			name("projectName").value(project.getProjectName());
+			endObject();
+		}
+
+		endArray();
+		name("nextPageToken").value(page.getNextPageToken());
+		return endObject();
+	}
+
+	/************************************************************************/
+}
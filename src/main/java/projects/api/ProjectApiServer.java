@@ -0,0 +1,305 @@
+package projects.api;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import projects.dao.ProjectDao;
+import projects.dao.ProjectSort;
+import projects.entity.Project;
+import projects.entity.ProjectPage;
+import projects.exception.StaleProjectException;
+import projects.service.ProjectService;
+
+/**********************************************************************
+* ProjectApiServer exposes the ProjectService CRUD operations as a JSON
+* API on the JDK's built-in HTTP server. Every request runs on its own
+* virtual thread.
+*
+*    GET    /projects?sort=&pageSize=&pageToken=   one page of IDs and names
+*    GET    /projects/{id}                         full project graph
+*    POST   /projects                              create a project
+*    PUT    /projects/{id}                         update project details
+*                                                  (409 if the version is stale)
+*    DELETE /projects/{id}                         delete a project
+*
+* Request bodies are flat objects with projectName, estimatedHours,
+* actualHours, difficulty and notes. A PUT body may also carry the
+* version the client last read; the update is then rejected if the
+* project has changed since.
+************************************************************************/
+
+public class ProjectApiServer {
+
+	private static final int DEFAULT_PORT = 8080;
+	private static final int DEFAULT_PAGE_SIZE = 50;
+	private static final String BASE_PATH = "/projects";
+	private static final String JSON_CONTENT_TYPE = "application/json; charset=utf-8";
+
+	private final ProjectService projectService;
+	private final HttpServer server;
+	private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+	/************************************************************************/
+	public static void main(String[] args) throws IOException {
+		int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+
+		ProjectService projectService = new ProjectService();
+		projectService.initializeSchema();
+
+		ProjectApiServer apiServer = new ProjectApiServer(projectService, port);
+		Runtime.getRuntime().addShutdownHook(new Thread(apiServer::stop));
+		apiServer.start();
+
+		System.out.println("Project API listening on port " + port);
+	}
+
+	/************************************************************************/
+	public ProjectApiServer(ProjectService projectService, int port) throws IOException {
+		this.projectService = projectService;
+		this.server = HttpServer.create(new InetSocketAddress(port), 0);
+		this.server.createContext(BASE_PATH, this::handle);
+		this.server.setExecutor(executor);
+	}
+
+	/************************************************************************/
+	public void start() {
+		server.start();
+	}
+
+	/************************************************************************/
+	public void stop() {
+		server.stop(1);
+		executor.close();
+	}
+
+	/**********************************************************************
+	* handle() routes a request by method and path and turns exceptions into
+	* status codes: 400 for bad input, 404 for unknown projects and 500 for
+	* everything else.
+	************************************************************************/
+
+	private void handle(HttpExchange exchange) throws IOException {
+		try(exchange) {
+			String path = exchange.getRequestURI().getPath();
+			String method = exchange.getRequestMethod();
+
+			try {
+				Integer projectId = parseProjectId(path);
+
+				if(Objects.isNull(projectId)) {
+					switch(method) {
+					case "GET":
+						listProjects(exchange);
+						break;
+					case "POST":
+						createProject(exchange);
+						break;
+					default:
+						sendError(exchange, 405, "Method not allowed");
+					}
+				}
+				else {
+					switch(method) {
+					case "GET":
+						sendProject(exchange, 200, projectService.fetchProjectById(projectId));
+						break;
+					case "PUT":
+						updateProject(exchange, projectId);
+						break;
+					case "DELETE":
+						/*     Throws NoSuchElementException, hence 404, if nothing was deleted.     */
+						projectService.deleteProject(projectId);
+						exchange.sendResponseHeaders(204, -1);
+						break;
+					default:
+						sendError(exchange, 405, "Method not allowed");
+					}
+				}
+			} catch (NoSuchElementException e) {
+				sendError(exchange, 404, e.getMessage());
+			} catch (StaleProjectException e) {
+				sendError(exchange, 409, e.getMessage());
+			} catch (IllegalArgumentException | ArithmeticException e) {
+				sendError(exchange, 400, e.getMessage());
+			} catch (RuntimeException e) {
+				/*     The details stay in the server log; the client only learns that the request failed.     */
+				System.err.println(method + " " + path + " failed: " + e);
+				sendError(exchange, 500, "Internal server error");
+			}
+		}
+	}
+
+	/************************************************************************/
+	private Integer parseProjectId(String path) {
+		if(path.equals(BASE_PATH) || path.equals(BASE_PATH + "/")) {
+			return null;
+		}
+
+		String id = path.substring(BASE_PATH.length() + 1);
+
+		try {
+			return Integer.valueOf(id);
+		} catch (NumberFormatException e) {
+			throw new NoSuchElementException("Unknown path " + path);
+		}
+	}
+
+	/************************************************************************/
+	private void listProjects(HttpExchange exchange) throws IOException {
+		Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+
+		ProjectSort sort = query.containsKey("sort")
+				? ProjectSort.valueOf(query.get("sort").toUpperCase()) : ProjectSort.PROJECT_ID;
+		int pageSize = query.containsKey("pageSize") ? Integer.parseInt(query.get("pageSize")) : DEFAULT_PAGE_SIZE;
+
+		if(pageSize < 1 || pageSize > ProjectDao.MAX_PAGE_SIZE) {
+			throw new IllegalArgumentException("pageSize must be between 1 and " + ProjectDao.MAX_PAGE_SIZE + ".");
+		}
+
+		ProjectPage page = projectService.listProjects(sort, pageSize, query.get("pageToken"));
+
+		exchange.getResponseHeaders().set("Content-Type", JSON_CONTENT_TYPE);
+		exchange.sendResponseHeaders(200, 0);
+
+		JsonWriter json = newJsonWriter(exchange.getResponseBody());
+		json.projectPage(page);
+		json.flush();
+	}
+
+	/************************************************************************/
+	private void createProject(HttpExchange exchange) throws IOException {
+		Project project = new Project();
+		applyFields(project, readBody(exchange));
+
+		if(Objects.isNull(project.getProjectName())) {
+			throw new IllegalArgumentException("projectName is required.");
+		}
+
+		sendProject(exchange, 201, projectService.addProject(project));
+	}
+
+	/************************************************************************/
+	private void updateProject(HttpExchange exchange, Integer projectId) throws IOException {
+		Project project = projectService.fetchProjectById(projectId);
+		Map<String, Object> fields = readBody(exchange);
+		applyFields(project, fields);
+
+		if(fields.containsKey("version")) {
+			BigDecimal version = asDecimal(fields.get("version"), "version");
+			project.setVersion(Objects.isNull(version) ? null : version.intValueExact());
+		}
+
+		/*     Only the fields in the body are written, and the project now holds the new version.     */
+		projectService.updateProjectDetails(project);
+		sendProject(exchange, 200, project);
+	}
+
+	/**********************************************************************
+	* applyFields() copies the fields present in the request body onto the
+	* project. Fields that are missing keep their current value.
+	************************************************************************/
+
+	private void applyFields(Project project, Map<String, Object> fields) {
+		if(fields.containsKey("projectName")) {
+			project.setProjectName(asString(fields.get("projectName"), "projectName"));
+		}
+		if(fields.containsKey("estimatedHours")) {
+			project.setEstimatedHours(asDecimal(fields.get("estimatedHours"), "estimatedHours"));
+		}
+		if(fields.containsKey("actualHours")) {
+			project.setActualHours(asDecimal(fields.get("actualHours"), "actualHours"));
+		}
+		if(fields.containsKey("difficulty")) {
+			BigDecimal difficulty = asDecimal(fields.get("difficulty"), "difficulty");
+			project.setDifficulty(Objects.isNull(difficulty) ? null : difficulty.intValueExact());
+		}
+		if(fields.containsKey("notes")) {
+			project.setNotes(asString(fields.get("notes"), "notes"));
+		}
+	}
+
+	/************************************************************************/
+	private String asString(Object value, String name) {
+		if(Objects.nonNull(value) && !(value instanceof String)) {
+			throw new IllegalArgumentException(name + " must be a string.");
+		}
+		return (String)value;
+	}
+
+	/************************************************************************/
+	private BigDecimal asDecimal(Object value, String name) {
+		if(Objects.nonNull(value) && !(value instanceof BigDecimal)) {
+			throw new IllegalArgumentException(name + " must be a number.");
+		}
+		return (BigDecimal)value;
+	}
+
+	/************************************************************************/
+	private Map<String, Object> readBody(HttpExchange exchange) throws IOException {
+		try(InputStream body = exchange.getRequestBody()) {
+			return JsonObjectParser.parse(new String(body.readAllBytes(), StandardCharsets.UTF_8));
+		}
+	}
+
+	/************************************************************************/
+	private Map<String, String> parseQuery(String rawQuery) {
+		Map<String, String> query = new HashMap<>();
+
+		if(Objects.isNull(rawQuery)) {
+			return query;
+		}
+
+		for(String pair : rawQuery.split("&")) {
+			int equals = pair.indexOf('=');
+			if(equals > 0) {
+				query.put(URLDecoder.decode(pair.substring(0, equals), StandardCharsets.UTF_8),
+						URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8));
+			}
+		}
+
+		return query;
+	}
+
+	/************************************************************************/
+	private void sendProject(HttpExchange exchange, int status, Project project) throws IOException {
+		exchange.getResponseHeaders().set("Content-Type", JSON_CONTENT_TYPE);
+		exchange.sendResponseHeaders(status, 0);
+
+		JsonWriter json = newJsonWriter(exchange.getResponseBody());
+		json.project(project);
+		json.flush();
+	}
+
+	/************************************************************************/
+	private void sendError(HttpExchange exchange, int status, String message) throws IOException {
+		exchange.getResponseHeaders().set("Content-Type", JSON_CONTENT_TYPE);
+		exchange.sendResponseHeaders(status, 0);
+
+		JsonWriter json = newJsonWriter(exchange.getResponseBody());
+		json.beginObject().name("error").value(message).endObject();
+		json.flush();
+	}
+
+	/************************************************************************/
+	private JsonWriter newJsonWriter(OutputStream out) {
+		return new JsonWriter(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)));
+	}
+
+	/************************************************************************/
+}
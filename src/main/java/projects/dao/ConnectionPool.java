@@ -0,0 +1,776 @@
+package projects.dao;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import projects.exception.DbException;
+
+/**********************************************************************
+* ConnectionPool keeps a bounded set of physical connections open and
+* hands out logical connections that return to the pool when closed.
+* Callers keep using try-with-resources exactly as they did with
+* DriverManager connections. The pool opens minSize connections in the
+* background when it is created and tops back up to minSize whenever it
+* falls below; idle connections beyond that are evicted after the idle
+* timeout. Connections are validated on borrow and connections held
+* longer than the leak threshold are reported with the borrowing thread's
+* name. Where the connection was acquired is only reported when
+* captureBorrowStackTraces is on, since capturing a stack trace on every
+* borrow is too costly to leave on by default.
+*
+* Each physical connection also keeps an LRU cache of up to
+* statementCacheSize prepared statements. prepareStatement(sql) and
+* prepareStatement(sql, autoGeneratedKeys) return the cached statement for
+* the same SQL when there is one, and closing it hands it back to the cache
+* with its parameters cleared, so a DAO method that prepares the same SQL
+* on every call only pays for parsing and planning it once per connection.
+* Check-in also closes a result set left open and puts back any fetch
+* size, row limit or timeout the borrower changed, so the next borrower
+* gets the statement as freshly prepared. A statementCacheSize of 0 turns
+* the cache off.
+************************************************************************/
+
+public class ConnectionPool {
+
+	/*     Creates a new physical connection. Lets the pool run against any JDBC source.     */
+	@FunctionalInterface
+	public interface ConnectionFactory {
+		Connection create() throws SQLException;
+	}
+
+	private final ConnectionFactory factory;
+	private final int minSize;
+	private final int maxSize;
+	private final long acquireTimeoutMillis;
+	private final long idleTimeoutMillis;
+	private final long leakThresholdMillis;
+	private final int validationTimeoutSeconds;
+	private final int statementCacheSize;
+	private final boolean captureBorrowStackTraces;
+
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition available = lock.newCondition();
+	private final Deque<PooledConnection> idle = new ArrayDeque<>();
+	private final Set<PooledConnection> borrowed = new HashSet<>();
+	private int totalConnections;
+	private int waiters;
+	private boolean shutdown;
+
+	private final AtomicLong acquireCount = new AtomicLong();
+	private final AtomicLong acquireNanosTotal = new AtomicLong();
+	private final AtomicLong acquireNanosMax = new AtomicLong();
+	private final AtomicLong leaksDetected = new AtomicLong();
+	private final AtomicLong statementCacheHits = new AtomicLong();
+	private final AtomicLong statementCacheMisses = new AtomicLong();
+
+	private final ScheduledExecutorService housekeeper;
+
+	/************************************************************************/
+	public ConnectionPool(ConnectionFactory factory, int minSize, int maxSize, long acquireTimeoutMillis,
+			long idleTimeoutMillis, long leakThresholdMillis, int validationTimeoutSeconds, int statementCacheSize,
+			boolean captureBorrowStackTraces) {
+
+		if(minSize < 0 || maxSize < 1 || minSize > maxSize) {
+			throw new IllegalArgumentException("Invalid pool size: min=" + minSize + ", max=" + maxSize);
+		}
+		if(statementCacheSize < 0) {
+			throw new IllegalArgumentException("Invalid statement cache size: " + statementCacheSize);
+		}
+
+		this.factory = factory;
+		this.minSize = minSize;
+		this.maxSize = maxSize;
+		this.acquireTimeoutMillis = acquireTimeoutMillis;
+		this.idleTimeoutMillis = idleTimeoutMillis;
+		this.leakThresholdMillis = leakThresholdMillis;
+		this.validationTimeoutSeconds = validationTimeoutSeconds;
+		this.statementCacheSize = statementCacheSize;
+		this.captureBorrowStackTraces = captureBorrowStackTraces;
+
+		this.housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "connection-pool-housekeeper");
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		long period = Math.max(1000, Math.min(idleTimeoutMillis, leakThresholdMillis) / 2);
+		housekeeper.scheduleWithFixedDelay(this::housekeep, period, period, TimeUnit.MILLISECONDS);
+		housekeeper.execute(this::fillToMinSize);
+	}
+
+	/**********************************************************************
+	* acquire() borrows a connection. An idle connection is reused if it is
+	* still valid, otherwise a new one is opened while the pool is below its
+	* maximum size. When the pool is exhausted the caller waits up to the
+	* acquire timeout and then gets a DbException.
+	************************************************************************/
+
+	public Connection acquire() {
+		long start = System.nanoTime();
+		long remainingNanos = TimeUnit.MILLISECONDS.toNanos(acquireTimeoutMillis);
+
+		while(true) {
+			PooledConnection candidate = null;
+			boolean create = false;
+
+			lock.lock();
+			try {
+				while(!shutdown && idle.isEmpty() && totalConnections >= maxSize) {
+					if(remainingNanos <= 0) {
+						throw new DbException("Timed out after " + acquireTimeoutMillis
+								+ " ms waiting for a connection. Active=" + borrowed.size() + ", max=" + maxSize);
+					}
+					waiters++;
+					try {
+						remainingNanos = available.awaitNanos(remainingNanos);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						throw new DbException("Interrupted while waiting for a connection", e);
+					} finally {
+						waiters--;
+					}
+				}
+
+				if(shutdown) {
+					throw new DbException("Connection pool has been shut down");
+				}
+
+				if(!idle.isEmpty()) {
+					candidate = idle.pollFirst();
+				}
+				else {
+					totalConnections++;
+					create = true;
+				}
+			} finally {
+				lock.unlock();
+			}
+
+			if(create) {
+				try {
+					candidate = new PooledConnection(factory.create());
+				} catch (SQLException e) {
+					discard(null);
+					throw new DbException("Unable to open a new pooled connection", e);
+				}
+			}
+			else if(!isValid(candidate)) {
+				discard(candidate);
+				continue;
+			}
+
+			lock.lock();
+			try {
+				candidate.borrowedAt = System.currentTimeMillis();
+				candidate.borrowerName = Thread.currentThread().getName();
+				candidate.borrowedBy = captureBorrowStackTraces ? new Throwable("Connection acquired here") : null;
+				borrowed.add(candidate);
+			} finally {
+				lock.unlock();
+			}
+
+			recordAcquire(System.nanoTime() - start);
+			return candidate.newLogicalConnection();
+		}
+	}
+
+	/************************************************************************/
+	private boolean isValid(PooledConnection pooled) {
+		try {
+			return pooled.physical.isValid(validationTimeoutSeconds);
+		} catch (SQLException e) {
+			return false;
+		}
+	}
+
+	/************************************************************************/
+	private void recordAcquire(long nanos) {
+		acquireCount.incrementAndGet();
+		acquireNanosTotal.addAndGet(nanos);
+		acquireNanosMax.accumulateAndGet(nanos, Math::max);
+	}
+
+	/**********************************************************************
+	* release() is called when a logical connection is closed. Any open
+	* transaction is rolled back and auto-commit is restored so the next
+	* borrower starts from a clean connection.
+	************************************************************************/
+
+	private void release(PooledConnection pooled) {
+		boolean reusable;
+
+		/*     Statements the borrower never closed go back to the cache too.     */
+		for(CachedStatement cached : pooled.statements.values()) {
+			if(cached.inUse) {
+				cached.checkIn();
+			}
+		}
+
+		/*     Evicted ones are no longer in the map; checking them in closes them.     */
+		for(CachedStatement cached : pooled.statements.evictedInUse) {
+			if(cached.inUse) {
+				cached.checkIn();
+			}
+		}
+		pooled.statements.evictedInUse.clear();
+
+		try {
+			if(!pooled.physical.getAutoCommit()) {
+				pooled.physical.rollback();
+				pooled.physical.setAutoCommit(true);
+			}
+			reusable = !pooled.physical.isClosed();
+		} catch (SQLException e) {
+			reusable = false;
+		}
+
+		lock.lock();
+		try {
+			borrowed.remove(pooled);
+
+			if(reusable && !shutdown) {
+				pooled.lastUsedAt = System.currentTimeMillis();
+				idle.addFirst(pooled);
+				available.signal();
+				return;
+			}
+		} finally {
+			lock.unlock();
+		}
+
+		discard(pooled);
+	}
+
+	/************************************************************************/
+	private void discard(PooledConnection pooled) {
+		lock.lock();
+		try {
+			totalConnections--;
+			available.signal();
+		} finally {
+			lock.unlock();
+		}
+
+		if(pooled != null) {
+			closeQuietly(pooled.physical);
+		}
+	}
+
+	/**********************************************************************
+	* fillToMinSize() opens connections until the pool holds minSize of
+	* them. It runs on the housekeeper thread, so borrowers never wait for
+	* it. If the database cannot be reached it gives up until the next run.
+	************************************************************************/
+
+	private void fillToMinSize() {
+		while(true) {
+			lock.lock();
+			try {
+				if(shutdown || totalConnections >= minSize) {
+					return;
+				}
+				totalConnections++;
+			} finally {
+				lock.unlock();
+			}
+
+			PooledConnection pooled;
+
+			try {
+				pooled = new PooledConnection(factory.create());
+			} catch (SQLException e) {
+				discard(null);
+				return;
+			}
+
+			lock.lock();
+			try {
+				if(!shutdown) {
+					idle.addLast(pooled);
+					available.signal();
+					continue;
+				}
+			} finally {
+				lock.unlock();
+			}
+
+			discard(pooled);
+			return;
+		}
+	}
+
+	/**********************************************************************
+	* housekeep() runs periodically. It closes connections that have been
+	* idle longer than the idle timeout (never going below the minimum size),
+	* reports connections that have been borrowed for longer than the leak
+	* threshold and reopens connections if the pool fell below minSize.
+	************************************************************************/
+
+	private void housekeep() {
+		long now = System.currentTimeMillis();
+		Deque<PooledConnection> evicted = new ArrayDeque<>();
+
+		lock.lock();
+		try {
+			Iterator<PooledConnection> it = idle.descendingIterator();
+			while(it.hasNext() && totalConnections > minSize) {
+				PooledConnection pooled = it.next();
+				if(now - pooled.lastUsedAt > idleTimeoutMillis) {
+					it.remove();
+					totalConnections--;
+					evicted.add(pooled);
+				}
+			}
+
+			if(leakThresholdMillis > 0) {
+				for(PooledConnection pooled : borrowed) {
+					if(!pooled.leakReported && now - pooled.borrowedAt > leakThresholdMillis) {
+						pooled.leakReported = true;
+						leaksDetected.incrementAndGet();
+						System.err.println("Possible connection leak: connection held for "
+								+ (now - pooled.borrowedAt) + " ms by thread " + pooled.borrowerName);
+						if(pooled.borrowedBy != null) {
+							pooled.borrowedBy.printStackTrace();
+						}
+					}
+				}
+			}
+		} finally {
+			lock.unlock();
+		}
+
+		evicted.forEach(pooled -> closeQuietly(pooled.physical));
+		fillToMinSize();
+	}
+
+	/**********************************************************************
+	* shutdown() closes all idle connections and refuses new borrows.
+	* Borrowed connections are closed when they are returned.
+	************************************************************************/
+
+	public void shutdown() {
+		Deque<PooledConnection> toClose;
+
+		lock.lock();
+		try {
+			shutdown = true;
+			toClose = new ArrayDeque<>(idle);
+			totalConnections -= idle.size();
+			idle.clear();
+			available.signalAll();
+		} finally {
+			lock.unlock();
+		}
+
+		housekeeper.shutdownNow();
+		toClose.forEach(pooled -> closeQuietly(pooled.physical));
+	}
+
+	/************************************************************************/
+	private static void closeQuietly(Connection conn) {
+		try {
+			conn.close();
+		} catch (SQLException e) {
+			/*     Nothing useful can be done with a failure to close a discarded connection.     */
+		}
+	}
+
+	/*************************   Pool metrics   *************************/
+
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	public int getActiveCount() {
+		lock.lock();
+		try {
+			return borrowed.size();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public int getIdleCount() {
+		lock.lock();
+		try {
+			return idle.size();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public int getWaiterCount() {
+		lock.lock();
+		try {
+			return waiters;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public long getAcquireCount() {
+		return acquireCount.get();
+	}
+
+	public double getAverageAcquireMillis() {
+		long count = acquireCount.get();
+		return count == 0 ? 0.0 : acquireNanosTotal.get() / (count * 1_000_000.0);
+	}
+
+	public double getMaxAcquireMillis() {
+		return acquireNanosMax.get() / 1_000_000.0;
+	}
+
+	public long getLeaksDetected() {
+		return leaksDetected.get();
+	}
+
+	public long getStatementCacheHits() {
+		return statementCacheHits.get();
+	}
+
+	public long getStatementCacheMisses() {
+		return statementCacheMisses.get();
+	}
+
+	@Override
+	public String toString() {
+		return String.format("active=%d, idle=%d, waiters=%d, acquires=%d, avgAcquireMs=%.3f, maxAcquireMs=%.3f, leaks=%d, "
+				+ "stmtCacheHits=%d, stmtCacheMisses=%d",
+				getActiveCount(), getIdleCount(), getWaiterCount(), getAcquireCount(),
+				getAverageAcquireMillis(), getMaxAcquireMillis(), getLeaksDetected(),
+				getStatementCacheHits(), getStatementCacheMisses());
+	}
+
+	/**********************************************************************
+	* PooledConnection wraps one physical connection. Each borrow gets a new
+	* logical proxy so a connection closed twice, or used after close, cannot
+	* affect the next borrower.
+	************************************************************************/
+
+	private class PooledConnection {
+		private final Connection physical;
+		private final StatementCache statements = new StatementCache();
+		private long lastUsedAt = System.currentTimeMillis();
+		private long borrowedAt;
+		private String borrowerName;
+		private Throwable borrowedBy;
+		private boolean leakReported;
+
+		private PooledConnection(Connection physical) {
+			this.physical = physical;
+		}
+
+		private Connection newLogicalConnection() {
+			leakReported = false;
+			return (Connection)Proxy.newProxyInstance(Connection.class.getClassLoader(),
+					new Class<?>[] { Connection.class }, new LogicalHandler(this));
+		}
+	}
+
+	/************************************************************************/
+	private class LogicalHandler implements InvocationHandler {
+		private final PooledConnection pooled;
+		private boolean closed;
+
+		private LogicalHandler(PooledConnection pooled) {
+			this.pooled = pooled;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			switch(method.getName()) {
+			case "close":
+				if(!closed) {
+					closed = true;
+					release(pooled);
+				}
+				return null;
+
+			case "isClosed":
+				return closed;
+
+			case "equals":
+				return proxy == args[0];
+
+			case "hashCode":
+				return System.identityHashCode(proxy);
+
+			case "toString":
+				return "Pooled" + pooled.physical;
+
+			case "prepareStatement":
+				if(!closed && statementCacheSize > 0 && isCacheable(args)) {
+					int autoGeneratedKeys = args.length == 2 ? (Integer)args[1] : Statement.NO_GENERATED_KEYS;
+					return prepareCached((Connection)proxy, new StatementKey((String)args[0], autoGeneratedKeys));
+				}
+				return invokePhysical(method, args);
+
+			default:
+				return invokePhysical(method, args);
+			}
+		}
+
+		private Object invokePhysical(Method method, Object[] args) throws Throwable {
+			if(closed) {
+				throw new SQLException("Connection has already been returned to the pool");
+			}
+			try {
+				return method.invoke(pooled.physical, args);
+			} catch (InvocationTargetException e) {
+				throw e.getCause();
+			}
+		}
+
+		/*     Only prepareStatement(sql) and prepareStatement(sql, autoGeneratedKeys) are cached.     */
+		private boolean isCacheable(Object[] args) {
+			return args.length == 1 || (args.length == 2 && args[1] instanceof Integer);
+		}
+
+		/**********************************************************************
+		* prepareCached() hands out the cached statement for the key, preparing
+		* and caching it on a miss. If the cached statement is still open
+		* elsewhere in the same borrow (two statements with the same SQL open at
+		* once), a plain uncached statement is returned instead.
+		************************************************************************/
+
+		private PreparedStatement prepareCached(Connection logical, StatementKey key) throws SQLException {
+			CachedStatement cached = pooled.statements.get(key);
+
+			/*     A statement that could not be reset was closed at check-in; prepare a new one.     */
+			if(cached != null && cached.evicted && !cached.inUse) {
+				pooled.statements.remove(key);
+				cached = null;
+			}
+
+			if(cached != null && !cached.inUse) {
+				statementCacheHits.incrementAndGet();
+			}
+			else {
+				statementCacheMisses.incrementAndGet();
+				PreparedStatement stmt = pooled.physical.prepareStatement(key.sql(), key.autoGeneratedKeys());
+
+				if(cached != null) {
+					return stmt;
+				}
+
+				try {
+					cached = new CachedStatement(stmt);
+				} catch (SQLException e) {
+					stmt.close();
+					throw e;
+				}
+				pooled.statements.put(key, cached);
+			}
+
+			cached.inUse = true;
+			return (PreparedStatement)Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+					new Class<?>[] { PreparedStatement.class }, new CachedStatementHandler(cached, this, logical));
+		}
+	}
+
+	/************************************************************************/
+	private record StatementKey(String sql, int autoGeneratedKeys) {
+	}
+
+	/**********************************************************************
+	* CachedStatement is one cached physical statement and the settings it
+	* was prepared with. Setters that change those settings mark it dirty so
+	* check-in restores them; setters whose effect cannot be undone mark it
+	* for closing instead.
+	************************************************************************/
+
+	private static class CachedStatement {
+		private static final Set<String> RESTORABLE_SETTERS = Set.of("setFetchSize", "setFetchDirection",
+				"setMaxRows", "setLargeMaxRows", "setMaxFieldSize", "setQueryTimeout", "setEscapeProcessing");
+		private static final Set<String> IRREVERSIBLE_SETTERS = Set.of("setCursorName", "setPoolable",
+				"closeOnCompletion");
+
+		private final PreparedStatement physical;
+		private final int fetchSize;
+		private final int fetchDirection;
+		private final long maxRows;
+		private final int maxFieldSize;
+		private final int queryTimeout;
+		private boolean inUse;
+		private boolean evicted;
+		private boolean settingsChanged;
+		private boolean irreversible;
+
+		private CachedStatement(PreparedStatement physical) throws SQLException {
+			this.physical = physical;
+			this.fetchSize = physical.getFetchSize();
+			this.fetchDirection = physical.getFetchDirection();
+			this.maxRows = physical.getLargeMaxRows();
+			this.maxFieldSize = physical.getMaxFieldSize();
+			this.queryTimeout = physical.getQueryTimeout();
+		}
+
+		/*     Called by the borrower's handler before each call on the physical statement.     */
+		private void beforeCall(String methodName) {
+			if(RESTORABLE_SETTERS.contains(methodName)) {
+				settingsChanged = true;
+			}
+			else if(IRREVERSIBLE_SETTERS.contains(methodName)) {
+				irreversible = true;
+			}
+		}
+
+		/*     Called when the borrower closes the statement.     */
+		private void checkIn() {
+			inUse = false;
+
+			if(!evicted && !irreversible) {
+				try {
+					ResultSet rs = physical.getResultSet();
+
+					if(rs != null) {
+						rs.close();
+					}
+
+					physical.clearParameters();
+					physical.clearBatch();
+
+					if(settingsChanged) {
+						/*     Row limit first: some drivers reject a fetch size above the current limit.     */
+						physical.setLargeMaxRows(maxRows);
+						physical.setFetchSize(fetchSize);
+						physical.setFetchDirection(fetchDirection);
+						physical.setMaxFieldSize(maxFieldSize);
+						physical.setQueryTimeout(queryTimeout);
+						physical.setEscapeProcessing(true);
+						settingsChanged = false;
+					}
+					return;
+				} catch (SQLException e) {
+					/*     Fall through and drop it.     */
+				}
+			}
+
+			evicted = true;
+
+			try {
+				physical.close();
+			} catch (SQLException e) {
+				/*     The statement is being dropped from the cache either way.     */
+			}
+		}
+	}
+
+	/**********************************************************************
+	* StatementCache is a per-connection LRU map. A connection is only used
+	* by one borrower at a time, so it needs no locking. Statements evicted
+	* while open are closed when their borrower closes them; until then they
+	* are kept on evictedInUse so release() can close them if the borrower
+	* never does.
+	************************************************************************/
+
+	@SuppressWarnings("serial")
+	private class StatementCache extends LinkedHashMap<StatementKey, CachedStatement> {
+		private final List<CachedStatement> evictedInUse = new ArrayList<>();
+
+		private StatementCache() {
+			super(16, 0.75f, true);
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<StatementKey, CachedStatement> eldest) {
+			if(size() <= statementCacheSize) {
+				return false;
+			}
+
+			CachedStatement cached = eldest.getValue();
+			cached.evicted = true;
+
+			if(cached.inUse) {
+				evictedInUse.add(cached);
+			}
+			else {
+				cached.checkIn();
+			}
+			return true;
+		}
+	}
+
+	/**********************************************************************
+	* CachedStatementHandler is the borrower's view of a cached statement.
+	* close() returns the statement to the cache rather than closing it, and
+	* the statement cannot be used once it, or its logical connection, has
+	* been closed.
+	************************************************************************/
+
+	private static class CachedStatementHandler implements InvocationHandler {
+		private final CachedStatement cached;
+		private final LogicalHandler owner;
+		private final Connection logical;
+		private boolean closed;
+
+		private CachedStatementHandler(CachedStatement cached, LogicalHandler owner, Connection logical) {
+			this.cached = cached;
+			this.owner = owner;
+			this.logical = logical;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			switch(method.getName()) {
+			case "close":
+				if(!closed) {
+					closed = true;
+					/*     After the connection went back to the pool the statement may belong to the next borrower.     */
+					if(!owner.closed) {
+						cached.checkIn();
+					}
+				}
+				return null;
+
+			case "isClosed":
+				return closed || owner.closed;
+
+			case "getConnection":
+				return logical;
+
+			case "equals":
+				return proxy == args[0];
+
+			case "hashCode":
+				return System.identityHashCode(proxy);
+
+			default:
+				if(closed || owner.closed) {
+					throw new SQLException("Statement has already been closed");
+				}
+				cached.beforeCall(method.getName());
+				try {
+					return method.invoke(cached.physical, args);
+				} catch (InvocationTargetException e) {
+					throw e.getCause();
+				}
+			}
+		}
+	}
+
+	/************************************************************************/
+}
@@ -4,34 +4,95 @@ import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
 
-import projects.exception.DbException;
-
 
 
 	public class DbConnection {
-	
+
 		private static final String SCHEMA = "projects";
 		private static final String USER = "projects";
 		private static final String PASSWORD = "projects";
 		private static final String HOST = "localhost";
 		private static final int PORT = 3306;
-		
+
+		/*     Setting this system property replaces the MySQL URL below, e.g. to run against an embedded database.     */
+		public static final String URL_PROPERTY = "projects.jdbc.url";
+
+		/*     Pool settings     */
+		private static final int POOL_MIN_SIZE = 2;
+		private static final int POOL_MAX_SIZE = 10;
+		private static final long POOL_ACQUIRE_TIMEOUT_MILLIS = 5_000;
+		private static final long POOL_IDLE_TIMEOUT_MILLIS = 300_000;
+		private static final long POOL_LEAK_THRESHOLD_MILLIS = 60_000;
+		private static final int POOL_VALIDATION_TIMEOUT_SECONDS = 2;
+
+		/*     Prepared statements kept open per pooled connection. Set the property to 0 to turn the cache off.     */
+		public static final String STATEMENT_CACHE_SIZE_PROPERTY = "projects.pool.statementCacheSize";
+		private static final int DEFAULT_STATEMENT_CACHE_SIZE = 64;
+
+		/*     Set to true to report where a leaked connection was acquired; captures a stack trace on every borrow.     */
+		public static final String LEAK_STACK_TRACES_PROPERTY = "projects.pool.leakStackTraces";
+
+		/*     Lazily created on first use so the class can load without a running database.     */
+		private static class PoolHolder {
+			private static final ConnectionPool POOL = new ConnectionPool(DbConnection::openPhysicalConnection,
+					POOL_MIN_SIZE, POOL_MAX_SIZE, POOL_ACQUIRE_TIMEOUT_MILLIS, POOL_IDLE_TIMEOUT_MILLIS,
+					POOL_LEAK_THRESHOLD_MILLIS, POOL_VALIDATION_TIMEOUT_SECONDS,
+					Integer.getInteger(STATEMENT_CACHE_SIZE_PROPERTY, DEFAULT_STATEMENT_CACHE_SIZE),
+					Boolean.getBoolean(LEAK_STACK_TRACES_PROPERTY));
+		}
+
+		/**********************************************************************
+		* getConnection() borrows a connection from the pool. Closing the
+		* returned connection hands it back to the pool instead of closing the
+		* underlying socket. While QueryMetrics is enabled the connection is
+		* instrumented and the time spent waiting for it is recorded.
+		************************************************************************/
+
 		public static Connection getConnection() {
-			String url = String.format("jdbc:mysql://%s:%d/%s?user=%s&password=%s&useSSL=false", 
-					HOST, PORT, SCHEMA, USER, PASSWORD);
-			
+			QueryMetrics metrics = QueryMetrics.getInstance();
+
+			if(!metrics.isEnabled()) {
+				return PoolHolder.POOL.acquire();
+			}
+
+			long start = System.nanoTime();
+			Connection conn = PoolHolder.POOL.acquire();
+			metrics.recordConnectionAcquire(System.nanoTime() - start);
+
+			return InstrumentedConnection.wrap(conn, metrics);
+		}
+
+		/************************************************************************/
+		public static ConnectionPool getPool() {
+			return PoolHolder.POOL;
+		}
+
+		/************************************************************************/
+		/**********************************************************************
+		* The MySQL URL uses server-side prepared statements, so a statement
+		* kept in the pool's statement cache is parsed and planned by the server
+		* once and afterwards only its parameters travel over the wire.
+		* cachePrepStmts lets the driver also reuse server handles for
+		* statements the pool does not cache (e.g. IN lists of varying length).
+		************************************************************************/
+
+		private static Connection openPhysicalConnection() throws SQLException {
+			String url = System.getProperty(URL_PROPERTY, String.format("jdbc:mysql://%s:%d/%s?user=%s&password=%s&useSSL=false&useCursorFetch=true&rewriteBatchedStatements=true"
+					+ "&useServerPrepStmts=true&cachePrepStmts=true&prepStmtCacheSize=256&prepStmtCacheSqlLimit=2048",
+					HOST, PORT, SCHEMA, USER, PASSWORD));
+
 			//System.out.println("Connecting with url: " + url); // MySQL workbench has user = projects, password = projects
-			
+
 			try {
 				Connection conn = DriverManager.getConnection(url);
 				System.out.println("Connection to schema '" + SCHEMA + "' is successfull.");
 				return conn;
 			} catch (SQLException e) {
 				System.out.println("Unable to get connection at " + url);
-				throw new DbException("Unable to get connection at \" + url");
-				
+				throw e;
+
 			}
-			
+
 		}
-	
+
 }
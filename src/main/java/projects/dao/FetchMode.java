@@ -0,0 +1,15 @@
+package projects.dao;
+
+/**********************************************************************
+* FetchMode selects how ProjectDao loads a project together with its
+* materials, steps and categories.
+*
+* PER_TABLE         - one query per table (four round trips).
+* SINGLE_ROUND_TRIP - one UNION ALL query returning the project and all
+*                     its children as tagged rows of one result set.
+************************************************************************/
+
+public enum FetchMode {
+	PER_TABLE,
+	SINGLE_ROUND_TRIP
+}
@@ -0,0 +1,222 @@
+package projects.dao;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import projects.dao.QueryMetrics.StatementStats;
+
+/**********************************************************************
+* InstrumentedConnection wraps a Connection, and the statements and result
+* sets created from it, in proxies that report to QueryMetrics:
+*
+* - every execute*() call is timed against its SQL string,
+* - rows read through next() are counted when the result set is closed,
+* - setAutoCommit(false) starts a transaction timer that commit(),
+*   rollback() or close() stops. After a commit or rollback the next
+*   execute*() call starts the timer again, so a connection that runs
+*   several transactions records each one once and the idle time
+*   between the last commit and close() is not counted.
+*
+* DbConnection only wraps connections while QueryMetrics is enabled.
+************************************************************************/
+
+class InstrumentedConnection {
+
+	/************************************************************************/
+	private InstrumentedConnection() {
+	}
+
+	/************************************************************************/
+	static Connection wrap(Connection conn, QueryMetrics metrics) {
+		return proxy(Connection.class, new ConnectionHandler(conn, metrics));
+	}
+
+	/************************************************************************/
+	@SuppressWarnings("unchecked")
+	private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+		return (T)Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, handler);
+	}
+
+	/************************************************************************/
+	private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+		try {
+			return method.invoke(target, args);
+		} catch (InvocationTargetException e) {
+			throw e.getCause();
+		}
+	}
+
+	/************************************************************************/
+	private static class ConnectionHandler implements InvocationHandler {
+		private final Connection conn;
+		private final QueryMetrics metrics;
+		private boolean manualCommit;
+		private long transactionStart;
+
+		private ConnectionHandler(Connection conn, QueryMetrics metrics) {
+			this.conn = conn;
+			this.metrics = metrics;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			String name = method.getName();
+
+			switch(name) {
+			case "setAutoCommit":
+				manualCommit = !(Boolean)args[0];
+
+				if(manualCommit && transactionStart == 0) {
+					transactionStart = System.nanoTime();
+				}
+				break;
+
+			case "commit":
+			case "rollback":
+				if(transactionStart != 0 && (args == null || args.length == 0)) {
+					try {
+						return InstrumentedConnection.invoke(conn, method, args);
+					} finally {
+						metrics.recordTransaction(System.nanoTime() - transactionStart);
+						transactionStart = 0;
+					}
+				}
+				break;
+
+			case "close":
+				/*     A transaction left open is rolled back when the connection returns to the pool.     */
+				if(transactionStart != 0) {
+					metrics.recordTransaction(System.nanoTime() - transactionStart);
+					transactionStart = 0;
+				}
+				break;
+
+			default:
+				break;
+			}
+
+			Object result = InstrumentedConnection.invoke(conn, method, args);
+
+			if(result instanceof CallableStatement) {
+				return proxy(CallableStatement.class, new StatementHandler((Statement)result, sqlOf(args), this));
+			}
+			if(result instanceof PreparedStatement) {
+				return proxy(PreparedStatement.class, new StatementHandler((Statement)result, sqlOf(args), this));
+			}
+			if(result instanceof Statement) {
+				return proxy(Statement.class, new StatementHandler((Statement)result, null, this));
+			}
+
+			return result;
+		}
+
+		/*     The first statement after a commit or rollback opens the next transaction.     */
+		private void beforeExecute() {
+			if(manualCommit && transactionStart == 0) {
+				transactionStart = System.nanoTime();
+			}
+		}
+
+		private static String sqlOf(Object[] args) {
+			return args != null && args.length > 0 && args[0] instanceof String ? (String)args[0] : null;
+		}
+	}
+
+	/************************************************************************/
+	private static class StatementHandler implements InvocationHandler {
+		private final Statement stmt;
+		private final String preparedSql;
+		private final ConnectionHandler connection;
+
+		private StatementHandler(Statement stmt, String preparedSql, ConnectionHandler connection) {
+			this.stmt = stmt;
+			this.preparedSql = preparedSql;
+			this.connection = connection;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			String name = method.getName();
+
+			if(name.equals("getResultSet") || name.equals("getGeneratedKeys")) {
+				return wrapResultSet(InstrumentedConnection.invoke(stmt, method, args), statsFor(args));
+			}
+
+			if(!name.startsWith("execute")) {
+				return InstrumentedConnection.invoke(stmt, method, args);
+			}
+
+			connection.beforeExecute();
+
+			StatementStats stats = statsFor(args);
+			long start = System.nanoTime();
+
+			try {
+				return wrapResultSet(InstrumentedConnection.invoke(stmt, method, args), stats);
+			} catch (Throwable e) {
+				stats.errors.increment();
+				throw e;
+			} finally {
+				stats.latency.recordNanos(System.nanoTime() - start);
+			}
+		}
+
+		/*     Plain statements pass their SQL to execute(); prepared ones were given it up front.     */
+		private StatementStats statsFor(Object[] args) {
+			String sql = preparedSql;
+
+			if(sql == null) {
+				sql = args != null && args.length > 0 && args[0] instanceof String ? (String)args[0] : "<batch>";
+			}
+
+			return connection.metrics.statement(sql);
+		}
+
+		private Object wrapResultSet(Object result, StatementStats stats) {
+			if(result instanceof ResultSet) {
+				return proxy(ResultSet.class, new ResultSetHandler((ResultSet)result, stats));
+			}
+			return result;
+		}
+	}
+
+	/************************************************************************/
+	private static class ResultSetHandler implements InvocationHandler {
+		private final ResultSet rs;
+		private final StatementStats stats;
+		private long rows;
+		private boolean reported;
+
+		private ResultSetHandler(ResultSet rs, StatementStats stats) {
+			this.rs = rs;
+			this.stats = stats;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			String name = method.getName();
+			Object result = InstrumentedConnection.invoke(rs, method, args);
+
+			if(name.equals("next")) {
+				if((Boolean)result) {
+					rows++;
+				}
+			}
+			else if(name.equals("close") && !reported) {
+				reported = true;
+				stats.rows.add(rows);
+			}
+
+			return result;
+		}
+	}
+
+	/************************************************************************/
+}
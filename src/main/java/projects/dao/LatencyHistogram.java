@@ -0,0 +1,139 @@
+package projects.dao;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**********************************************************************
+* LatencyHistogram records durations into log-linear buckets, in the
+* style of HdrHistogram: each power of two is split into SUB_BUCKETS
+* equal buckets, so any recorded value is reported within about 1/16 of
+* its true value while the histogram stays a fixed, small array.
+*
+* Recording is lock-free (one atomic increment per bucket plus LongAdder
+* totals), so many threads can record at once without contention on a
+* lock. Reading a percentile while recording is in progress gives an
+* approximate, not a snapshot-consistent, answer.
+************************************************************************/
+
+public class LatencyHistogram {
+
+	/*     Sub-buckets per power of two. Must be a power of two.     */
+	private static final int SUB_BUCKET_BITS = 4;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+	/*     Values are recorded in microseconds, up to 2^40 us (about 12 days).     */
+	private static final int MAX_EXPONENT = 40;
+	private static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+	private final LongAdder count = new LongAdder();
+	private final LongAdder totalMicros = new LongAdder();
+	private final AtomicLong maxMicros = new AtomicLong();
+
+	/************************************************************************/
+	public void recordNanos(long nanos) {
+		long micros = Math.max(0, nanos / 1_000);
+
+		buckets.incrementAndGet(bucketIndex(micros));
+		count.increment();
+		totalMicros.add(micros);
+
+		if(micros > maxMicros.get()) {
+			maxMicros.accumulateAndGet(micros, Math::max);
+		}
+	}
+
+	/************************************************************************/
+	public long getCount() {
+		return count.sum();
+	}
+
+	/************************************************************************/
+	public double getMeanMicros() {
+		long samples = count.sum();
+		return samples == 0 ? 0.0 : (double)totalMicros.sum() / samples;
+	}
+
+	/************************************************************************/
+	public long getMaxMicros() {
+		return maxMicros.get();
+	}
+
+	/**********************************************************************
+	* getPercentileMicros() returns the upper bound of the bucket that
+	* holds the given percentile (0 - 100), or 0 if nothing was recorded.
+	************************************************************************/
+
+	public long getPercentileMicros(double percentile) {
+		long total = 0;
+		long[] snapshot = new long[BUCKET_COUNT];
+
+		for(int index = 0; index < BUCKET_COUNT; index++) {
+			snapshot[index] = buckets.get(index);
+			total += snapshot[index];
+		}
+
+		if(total == 0) {
+			return 0;
+		}
+
+		long target = Math.max(1, (long)Math.ceil(total * percentile / 100.0));
+		long seen = 0;
+
+		for(int index = 0; index < BUCKET_COUNT; index++) {
+			seen += snapshot[index];
+			if(seen >= target) {
+				return Math.min(bucketUpperBound(index), maxMicros.get());
+			}
+		}
+
+		return maxMicros.get();
+	}
+
+	/************************************************************************/
+	public void reset() {
+		for(int index = 0; index < BUCKET_COUNT; index++) {
+			buckets.set(index, 0);
+		}
+		count.reset();
+		totalMicros.reset();
+		maxMicros.set(0);
+	}
+
+	/**********************************************************************
+	* Values below SUB_BUCKETS get one bucket each. Larger values are placed
+	* by their highest set bit (the power of two) and the next
+	* SUB_BUCKET_BITS bits (the position within that power of two).
+	************************************************************************/
+
+	private static int bucketIndex(long micros) {
+		if(micros < SUB_BUCKETS) {
+			return (int)micros;
+		}
+
+		int exponent = 63 - Long.numberOfLeadingZeros(micros);
+
+		if(exponent > MAX_EXPONENT) {
+			return BUCKET_COUNT - 1;
+		}
+
+		int subBucket = (int)(micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+		return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+	}
+
+	/************************************************************************/
+	private static long bucketUpperBound(int index) {
+		if(index < SUB_BUCKETS) {
+			return index;
+		}
+
+		int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+		long subBucket = index % SUB_BUCKETS;
+		long width = 1L << (exponent - SUB_BUCKET_BITS);
+
+		return (1L << exponent) + (subBucket + 1) * width - 1;
+	}
+
+	/************************************************************************/
+}
@@ -1,24 +1,51 @@
 package projects.dao;
 
 import java.math.BigDecimal;
-import java.sql.CallableStatement;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
 import java.util.Collection;
-import java.util.LinkedList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
+import projects.analytics.CategoryIndex;
+import projects.analytics.ProjectCatalog;
 import projects.entity.Category;
+import projects.entity.CategoryCost;
+import projects.entity.CostReport;
 import projects.entity.Material;
 import projects.entity.Project;
+import projects.entity.ProjectChanges;
+import projects.entity.ProjectField;
+import projects.entity.ProjectPage;
 import projects.entity.Step;
 import projects.exception.DbException;
+import projects.exception.StaleProjectException;
+import projects.search.SearchIndex;
 import provided.util.DaoBase;
 import projects.dao.DbConnection;
 
@@ -28,8 +55,181 @@ public class ProjectDao extends DaoBase {
 	private static final String PROJECT_TABLE = "project";
 	private static final String PROJECT_CATEGORY_TABLE = "project_category";
 	private static final String STEP_TABLE = "step";
+	private static final String SCHEMA_VERSION_TABLE = "schema_version";
 	
+	/*     SQLState reported by MySQL when a table does not exist.     */
+	private static final String TABLE_NOT_FOUND_SQL_STATE = "42S02";
+	
+	/*     Maximum number of IDs bound into a single IN (...) list; a power of two, so full chunks need no padding.     */
+	private static final int ID_CHUNK_SIZE = 1024;
+	
+	/*     Default number of rows fetched per server cursor round trip when streaming.     */
+	public static final int DEFAULT_STREAM_FETCH_SIZE = 1000;
+	
+	/*     Largest page a caller may request from listProjects().     */
+	public static final int MAX_PAGE_SIZE = 500;
+	
+	/*     Default number of projects inserted per transaction by insertProjects().     */
+	public static final int DEFAULT_IMPORT_CHUNK_SIZE = 1000;
+	
+	/*     Default number of projects deleted per transaction by deleteProjects().     */
+	public static final int DEFAULT_DELETE_CHUNK_SIZE = 512;
+	
+	/*     Largest delete chunk; bigger requests are cut down to it so the padded IN list stays small.     */
+	public static final int MAX_DELETE_CHUNK_SIZE = ID_CHUNK_SIZE;
+	
+		
+	/**********************************************************************
+	* fetchSchemaVersion() reads the installed schema version with a single
+	* primary-key lookup. It returns an empty Optional if the schema has
+	* never been created (the schema_version table does not exist) or no
+	* version has been recorded yet.
+	************************************************************************/
+	
+	public Optional<Integer> fetchSchemaVersion() {
+		
+		String sql = "SELECT MAX(version) FROM " + SCHEMA_VERSION_TABLE;
+		
+		try(Connection conn = DbConnection.getConnection()){
+			try(Statement stmt = conn.createStatement()){
+				try(ResultSet rs = stmt.executeQuery(sql)){
+					if(rs.next()) {
+						int version = rs.getInt(1);
+						return rs.wasNull() ? Optional.empty() : Optional.of(version);
+					}
+					return Optional.empty();
+				}
+			}
+			catch(SQLException e) {
+				if(TABLE_NOT_FOUND_SQL_STATE.equals(e.getSQLState())) {
+					return Optional.empty();
+				}
+				throw e;
+			}
+		}// outer most try()
+		catch(SQLException e) {
+		throw new DbException(e);
+		}
+	}
+	
+	/************************************************************************/
+	
+	public void recordSchemaVersion(int version) {
+		
+		/*     Databases created before versioning have no schema_version table yet.     */
+		String createSql = "CREATE TABLE IF NOT EXISTS " + SCHEMA_VERSION_TABLE + " ("
+				+ "version INT NOT NULL, "
+				+ "applied_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP, "
+				+ "PRIMARY KEY (version))";
+		String sql = "INSERT INTO " + SCHEMA_VERSION_TABLE + " (version) VALUES (?)";
+		
+		try(Connection conn = DbConnection.getConnection()){
+			try(Statement stmt = conn.createStatement()){
+				stmt.execute(createSql);
+			}
+			
+			startTransaction(conn);
+			
+			try(PreparedStatement stmt = conn.prepareStatement(sql)){
+				setParameter(stmt, 1, version, Integer.class);
+				stmt.executeUpdate();
+				commitTransaction(conn);
+			}
+			catch(Exception e) {
+				rollbackTransaction(conn);
+				throw new DbException(e);
+			}
+		}// outer most try()
+		catch(SQLException e) {
+		throw new DbException(e);
+		}
+	}
+	
+	/**********************************************************************
+	* migrateSchema() upgrades the schema from version - 1 to version. The
+	* steps alter tables in place, so existing rows are kept. Each step
+	* looks at the catalog first and only makes the changes that are still
+	* missing, so a step interrupted before its version was recorded can be
+	* run again. Index and key changes are separate statements so the steps
+	* also run on the embedded H2 database used by the benchmarks.
+	************************************************************************/
+	
+	public void migrateSchema(int version) {
+		
+		try(Connection conn = DbConnection.getConnection()){
+			DatabaseMetaData metaData = conn.getMetaData();
+			String catalog = conn.getCatalog();
+			List<String> statements = new ArrayList<>();
+			
+			switch(version) {
+			case 1:
+				/*     The project name index used by listProjects() sorted by name.     */
+				if(!indexExists(metaData, catalog, PROJECT_TABLE, "idx_project_name")) {
+					statements.add("CREATE INDEX idx_project_name ON " + PROJECT_TABLE + " (project_name)");
+				}
+				break;
+			case 2:
+				/*     The link table is keyed by (project_id, category_id) and gets the reverse index.     */
+				if(!primaryKeyExists(metaData, catalog, PROJECT_CATEGORY_TABLE)) {
+					statements.add("ALTER TABLE " + PROJECT_CATEGORY_TABLE + " ADD PRIMARY KEY (project_id, category_id)");
+				}
+				if(!indexExists(metaData, catalog, PROJECT_CATEGORY_TABLE, "idx_project_category_category")) {
+					statements.add("CREATE INDEX idx_project_category_category ON " + PROJECT_CATEGORY_TABLE
+							+ " (category_id, project_id)");
+				}
+				break;
+			case 3:
+				/*     The optimistic locking version; existing projects start at 1.     */
+				if(!columnExists(metaData, catalog, PROJECT_TABLE, "version")) {
+					statements.add("ALTER TABLE " + PROJECT_TABLE + " ADD COLUMN version INT NOT NULL DEFAULT 1");
+				}
+				break;
+			default:
+				throw new DbException("There is no migration to schema version " + version + ".");
+			}
+			
+			try(Statement stmt = conn.createStatement()){
+				for(String sql : statements) {
+					stmt.execute(sql);
+				}
+			}
+		}// outer most try()
+		catch(SQLException e) {
+		throw new DbException(e);
+		}
+	}
+	
+	/************************************************************************/
+	private boolean primaryKeyExists(DatabaseMetaData metaData, String catalog, String table) throws SQLException {
+		
+		try(ResultSet rs = metaData.getPrimaryKeys(catalog, null, table)){
+			return rs.next();
+		}
+	}
+	
+	/************************************************************************/
+	private boolean columnExists(DatabaseMetaData metaData, String catalog, String table, String column)
+			throws SQLException {
+		
+		try(ResultSet rs = metaData.getColumns(catalog, null, table, column)){
+			return rs.next();
+		}
+	}
+	
+	/************************************************************************/
+	private boolean indexExists(DatabaseMetaData metaData, String catalog, String table, String indexName)
+			throws SQLException {
 		
+		try(ResultSet rs = metaData.getIndexInfo(catalog, null, table, false, false)){
+			while(rs.next()) {
+				if(indexName.equalsIgnoreCase(rs.getString("INDEX_NAME"))) {
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+	
 	/************************************************************************/
 	
 	public boolean checkToSeeIfProjectTableExist() {
@@ -91,7 +291,7 @@ public class ProjectDao extends DaoBase {
 		try(Connection conn = DbConnection.getConnection()){
 			startTransaction(conn);
 			
-			try(PreparedStatement stmt = conn.prepareStatement(sql)) {
+			try(PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
 				
 				setParameter(stmt, 1, project.getProjectName(), String.class);
 				setParameter(stmt, 2, project.getEstimatedHours(), BigDecimal.class);
@@ -101,10 +301,12 @@ public class ProjectDao extends DaoBase {
 				
 				stmt.executeUpdate();
 				
-				Integer projectID = getLastInsertId(conn, PROJECT_TABLE);
+				Integer projectID = getGeneratedId(conn, stmt, PROJECT_TABLE);
 				commitTransaction(conn);
 				
 				project.setProjectId(projectID);
+				project.setVersion(1);
+				project.clearDirtyFields();
 				return project;
 		
 		} catch(Exception e){
@@ -120,10 +322,172 @@ public class ProjectDao extends DaoBase {
 		
 	}
 		 
+	/**********************************************************************
+	* insertProjects() bulk imports project graphs. Projects are written in
+	* chunks of chunkSize, one transaction per chunk. Within a chunk each
+	* table gets a single JDBC batch, which the driver rewrites into
+	* multi-row INSERT statements (rewriteBatchedStatements on the
+	* connection URL). Generated project, material and step IDs are read
+	* back with getGeneratedKeys() and set on the entities, and every child
+	* gets the new project ID. Categories are linked by their existing
+	* categoryId. A failure rolls back the current chunk only; earlier
+	* chunks stay committed.
+	************************************************************************/
+	
+	public int insertProjects(Collection<Project> projects, int chunkSize) {
+		
+		if(chunkSize < 1) {
+			throw new DbException("Chunk size must be positive: " + chunkSize);
+		}
+		
+		List<Project> all = new ArrayList<>(projects);
+		int inserted = 0;
+		
+		try(Connection conn = DbConnection.getConnection()){
+			startTransaction(conn);
+			
+			for(int from = 0; from < all.size(); from += chunkSize) {
+				List<Project> chunk = all.subList(from, Math.min(from + chunkSize, all.size()));
+				
+				try {
+					insertProjectChunk(conn, chunk);
+					commitTransaction(conn);
+					inserted += chunk.size();
+				}
+				catch(Exception e) {
+					rollbackTransaction(conn);
+					throw new DbException("Import failed after " + inserted + " projects", e);
+				}
+			}
+		}// outer most try()
+		catch(SQLException e) {
+		throw new DbException(e);
+		}
+		
+		return inserted;
+	}
+	
+	/**********************************************************************/
+	private void insertProjectChunk(Connection conn, List<Project> chunk) throws SQLException {
+		
+		String projectSql = "INSERT INTO " + PROJECT_TABLE + " "
+				+ "(project_name, estimated_hours, actual_hours, difficulty, notes) VALUES (?, ?, ?, ?, ?)";
+		String materialSql = "INSERT INTO " + MATERIAL_TABLE + " "
+				+ "(project_id, material_name, num_required, cost) VALUES (?, ?, ?, ?)";
+		String stepSql = "INSERT INTO " + STEP_TABLE + " "
+				+ "(project_id, step_text, step_order) VALUES (?, ?, ?)";
+		String categorySql = "INSERT INTO " + PROJECT_CATEGORY_TABLE + " "
+				+ "(project_id, category_id) VALUES (?, ?)";
+		
+		try(PreparedStatement stmt = conn.prepareStatement(projectSql, Statement.RETURN_GENERATED_KEYS)){
+			for(Project project : chunk) {
+				setParameter(stmt, 1, project.getProjectName(), String.class);
+				setParameter(stmt, 2, project.getEstimatedHours(), BigDecimal.class);
+				setParameter(stmt, 3, project.getActualHours(), BigDecimal.class);
+				setParameter(stmt, 4, project.getDifficulty(), Integer.class);
+				setParameter(stmt, 5, project.getNotes(), String.class);
+				stmt.addBatch();
+			}
+			
+			stmt.executeBatch();
+			
+			try(ResultSet keys = stmt.getGeneratedKeys()){
+				for(Project project : chunk) {
+					project.setProjectId(nextGeneratedKey(keys));
+					project.setVersion(1);
+					project.clearDirtyFields();
+				}
+			}
+		}
+		
+		List<Material> materials = new ArrayList<>();
+		List<Step> steps = new ArrayList<>();
+		boolean hasCategories = false;
+		
+		try(PreparedStatement stmt = conn.prepareStatement(categorySql)){
+			for(Project project : chunk) {
+				for(Material material : project.getMaterials()) {
+					material.setProjectId(project.getProjectId());
+					materials.add(material);
+				}
+				
+				int stepOrder = 1;
+				for(Step step : project.getSteps()) {
+					step.setProjectId(project.getProjectId());
+					if(Objects.isNull(step.getStepOrder())) {
+						step.setStepOrder(stepOrder);
+					}
+					stepOrder++;
+					steps.add(step);
+				}
+				
+				for(Category category : project.getCategories()) {
+					setParameter(stmt, 1, project.getProjectId(), Integer.class);
+					setParameter(stmt, 2, category.getCategoryId(), Integer.class);
+					stmt.addBatch();
+					hasCategories = true;
+				}
+			}
+			
+			if(hasCategories) {
+				stmt.executeBatch();
+			}
+		}
+		
+		if(!materials.isEmpty()) {
+			try(PreparedStatement stmt = conn.prepareStatement(materialSql, Statement.RETURN_GENERATED_KEYS)){
+				for(Material material : materials) {
+					setParameter(stmt, 1, material.getProjectId(), Integer.class);
+					setParameter(stmt, 2, material.getMaterialName(), String.class);
+					setParameter(stmt, 3, material.getNumRequired(), Integer.class);
+					setParameter(stmt, 4, material.getCost(), BigDecimal.class);
+					stmt.addBatch();
+				}
+				
+				stmt.executeBatch();
+				
+				try(ResultSet keys = stmt.getGeneratedKeys()){
+					for(Material material : materials) {
+						material.setMaterialId(nextGeneratedKey(keys));
+					}
+				}
+			}
+		}
+		
+		if(!steps.isEmpty()) {
+			try(PreparedStatement stmt = conn.prepareStatement(stepSql, Statement.RETURN_GENERATED_KEYS)){
+				for(Step step : steps) {
+					setParameter(stmt, 1, step.getProjectId(), Integer.class);
+					setParameter(stmt, 2, step.getStepText(), String.class);
+					setParameter(stmt, 3, step.getStepOrder(), Integer.class);
+					stmt.addBatch();
+				}
+				
+				stmt.executeBatch();
+				
+				try(ResultSet keys = stmt.getGeneratedKeys()){
+					for(Step step : steps) {
+						step.setStepId(nextGeneratedKey(keys));
+					}
+				}
+			}
+		}
+	}
+	
+	/**********************************************************************/
+	private Integer nextGeneratedKey(ResultSet keys) throws SQLException {
+		
+		if(!keys.next()) {
+			throw new SQLException("Unable to retrieve the primary key value. Too few generated keys!");
+		}
+		
+		return keys.getInt(1);
+	}
+	
 	/************************************************************************/
 	
 	public List<Project> fetchAllProjects() {
-		List<Project> projects = new LinkedList<Project>();
+		List<Project> projects = new ArrayList<>();
 		
 		//String sql = "SELECT * FROM " + PROJECT_TABLE + " ORDER BY project_name";
 		String sql = "SELECT * FROM " + PROJECT_TABLE;
@@ -135,9 +499,11 @@ public class ProjectDao extends DaoBase {
 				
 				try(ResultSet rs = stmt.executeQuery()){
 					
+					RowExtractor<Project> rows = extractor(rs, Project.class);
+					
 					while(rs.next()) {
 						
-						projects.add(extract(rs, Project.class));
+						projects.add(rows.extract());
 						
 					}// while ()
 					
@@ -159,40 +525,70 @@ public class ProjectDao extends DaoBase {
 		
 	}
 	
-	/************************************************************************/
+	/**********************************************************************
+	* listProjects() returns one page of project IDs and names using keyset
+	* (seek) pagination. Instead of OFFSET, the page continues after the last
+	* row of the previous page, which is carried in the opaque pageToken, so
+	* every page costs the same index range scan regardless of how deep into
+	* the listing it is. Pass a null pageToken for the first page.
+	************************************************************************/
 	
-	public Optional<Project> fetchProjectById(Integer projectId) {
+	public ProjectPage listProjects(ProjectSort sort, int pageSize, String pageToken) {
 		
-		String sql = "SELECT * FROM " + PROJECT_TABLE + " WHERE project_id = ?";
+		if(pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+			throw new DbException("Page size must be between 1 and " + MAX_PAGE_SIZE + ": " + pageSize);
+		}
+		
+		Project after = decodePageToken(sort, pageToken);
+		String sql = "SELECT project_id, project_name FROM " + PROJECT_TABLE;
+		
+		if(sort == ProjectSort.PROJECT_NAME) {
+			if(Objects.nonNull(after)) {
+				sql += " WHERE project_name > ? OR (project_name = ? AND project_id > ?)";
+			}
+			sql += " ORDER BY project_name, project_id LIMIT ?";
+		}
+		else {
+			if(Objects.nonNull(after)) {
+				sql += " WHERE project_id > ?";
+			}
+			sql += " ORDER BY project_id LIMIT ?";
+		}
 		
 		try(Connection conn = DbConnection.getConnection()){
-			startTransaction(conn);
-			try {	
-				Project project = null;
+			try(PreparedStatement stmt = conn.prepareStatement(sql)){
+				int index = 1;
 				
-				try(PreparedStatement stmt = conn.prepareStatement(sql)){
-					setParameter(stmt, 1, projectId, Integer.class);
-					
-					try(ResultSet rs = stmt.executeQuery()){
-						if(rs.next()) {
-							project = extract(rs, Project.class);
-						}
-					} //stmt.executeQuery()
-				} //conn.prepareStatement(sql)
+				if(Objects.nonNull(after)) {
+					if(sort == ProjectSort.PROJECT_NAME) {
+						setParameter(stmt, index++, after.getProjectName(), String.class);
+						setParameter(stmt, index++, after.getProjectName(), String.class);
+					}
+					setParameter(stmt, index++, after.getProjectId(), Integer.class);
+				}
 				
-				if(Objects.nonNull(project)) {
-					project.getMaterials().addAll(fetchMaterialsForProject(conn, projectId));
-					project.getSteps().addAll(fetchStepsForProject(conn, projectId));
-					project.getCategories().addAll(fetchCategoriesForProject(conn, projectId));
+				/*     One extra row tells us whether there is another page.     */
+				setParameter(stmt, index, pageSize + 1, Integer.class);
+				
+				List<Project> projects = new ArrayList<>(pageSize + 1);
+				
+				try(ResultSet rs = stmt.executeQuery()){
+					while(rs.next()) {
+						Project project = new Project();
+						project.setProjectId(rs.getInt(1));
+						project.setProjectName(rs.getString(2));
+						projects.add(project);
+					}
 				}
 				
-				commitTransaction(conn);
-				return Optional.ofNullable(project);
-			}//project = null;
-			
-			catch(Exception e) {
-				rollbackTransaction(conn);
-				throw new DbException(e);
+				String nextPageToken = null;
+				
+				if(projects.size() > pageSize) {
+					projects.remove(pageSize);
+					nextPageToken = encodePageToken(sort, projects.get(pageSize - 1));
+				}
+				
+				return new ProjectPage(projects, nextPageToken);
 			}
 		}// outer most try()
 		catch(SQLException e) {
@@ -200,63 +596,946 @@ public class ProjectDao extends DaoBase {
 		}
 	}
 	
-
-	/**********************************************************************/
-	private List<Category> fetchCategoriesForProject(Connection conn, Integer projectId) throws SQLException {
+	/**********************************************************************
+	* listProjectsByCategory() returns one page of the projects linked to a
+	* category, ordered by project ID. The page is read from the
+	* (category_id, project_id) index starting at the position in the page
+	* token, and only those rows are joined to project by primary key, so
+	* each page costs the same however many projects the category has.
+	* Ordering by both index columns, rather than project_id alone, lets
+	* optimizers that do not infer the order from the equality on
+	* category_id still drive the join from the index in order, instead of
+	* scanning project and sorting.
+	************************************************************************/
+	
+	public ProjectPage listProjectsByCategory(Integer categoryId, int pageSize, String pageToken) {
 		
-		String sql = "SELECT c.* FROM " + CATEGORY_TABLE + " c JOIN " 
-		+ PROJECT_CATEGORY_TABLE + " pc ON c.category_id = pc.category_id "
-		+ "WHERE pc.project_id = ?";
+		if(pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+			throw new DbException("Page size must be between 1 and " + MAX_PAGE_SIZE + ": " + pageSize);
+		}
 		
-
-		try(PreparedStatement stmt = conn.prepareStatement(sql)){
-			setParameter(stmt, 1, projectId, Integer.class);
-			
-			try(ResultSet rs = stmt.executeQuery()){
-				List<Category> categories = new LinkedList<Category>();
-					
-				while(rs.next()) {
-					categories.add(extract(rs, Category.class));
-				}// while ()
-					
-				return categories;
+		Project after = decodePageToken(ProjectSort.PROJECT_ID, pageToken);
+		
+		// @formatter:off
+		String sql = ""
+				+ "SELECT p.project_id, p.project_name FROM " + PROJECT_CATEGORY_TABLE + " pc "
+				+ "JOIN " + PROJECT_TABLE + " p ON p.project_id = pc.project_id "
+				+ "WHERE pc.category_id = ? AND pc.project_id > ? "
+				+ "ORDER BY pc.category_id, pc.project_id LIMIT ?";
+		// @formatter:on
+		
+		try(Connection conn = DbConnection.getConnection()){
+			try(PreparedStatement stmt = conn.prepareStatement(sql)){
+				setParameter(stmt, 1, categoryId, Integer.class);
+				setParameter(stmt, 2, Objects.isNull(after) ? 0 : after.getProjectId(), Integer.class);
+				setParameter(stmt, 3, pageSize + 1, Integer.class);
+				
+				List<Project> projects = new ArrayList<>(pageSize + 1);
+				
+				try(ResultSet rs = stmt.executeQuery()){
+					while(rs.next()) {
+						Project project = new Project();
+						project.setProjectId(rs.getInt(1));
+						project.setProjectName(rs.getString(2));
+						projects.add(project);
+					}
+				}
+				
+				String nextPageToken = null;
+				
+				if(projects.size() > pageSize) {
+					projects.remove(pageSize);
+					nextPageToken = encodePageToken(ProjectSort.PROJECT_ID, projects.get(pageSize - 1));
+				}
+				
+				return new ProjectPage(projects, nextPageToken);
 			}
+		}// outer most try()
+		catch(SQLException e) {
+		throw new DbException(e);
 		}
 	}
-
-	/**********************************************************************/
-	private List<Step> fetchStepsForProject(Connection conn, Integer projectId) throws SQLException {
+	
+	/**********************************************************************
+	* fetchProjectIdsByCategories() returns, in ascending order, the IDs of
+	* the projects linked to all (matchAll) or any of the given categories.
+	* Both forms are answered from the (category_id, project_id) index
+	* alone: ANY as a DISTINCT over the IN list, ALL by counting the matched
+	* categories per project, which the primary key keeps free of duplicates.
+	************************************************************************/
+	
+	public int[] fetchProjectIdsByCategories(Collection<Integer> categoryIds, boolean matchAll) {
 		
-		String sql = "SELECT * FROM " + STEP_TABLE + " WHERE project_id = ?";
+		List<Integer> ids = new ArrayList<>(new LinkedHashSet<>(categoryIds));
 		
-		try(PreparedStatement stmt = conn.prepareStatement(sql)){
-			setParameter(stmt, 1, projectId, Integer.class);
-			
-			try(ResultSet rs = stmt.executeQuery()){
-				List<Step> steps = new LinkedList<Step>();
-					
-				while(rs.next()) {
-					steps.add(extract(rs, Step.class));
-				}// while ()
-					
-				return steps;
-			}
+		if(ids.isEmpty()) {
+			return new int[0];
 		}
-	}
-
-	/**********************************************************************/
-	private List< Material> fetchMaterialsForProject(Connection conn, Integer projectId) throws SQLException {
 		
-		String sql = "SELECT * FROM " + MATERIAL_TABLE + " WHERE project_id = ?";
+		String inList = "(" + inListPlaceholders(ids.size()) + ")";
+		String sql = matchAll
+				? "SELECT project_id FROM " + PROJECT_CATEGORY_TABLE + " WHERE category_id IN " + inList
+						+ " GROUP BY project_id HAVING COUNT(*) = ? ORDER BY project_id"
+				: "SELECT DISTINCT project_id FROM " + PROJECT_CATEGORY_TABLE + " WHERE category_id IN " + inList
+						+ " ORDER BY project_id";
 		
-		try(PreparedStatement stmt = conn.prepareStatement(sql)){
-			setParameter(stmt, 1, projectId, Integer.class);
-			
-			try(ResultSet rs = stmt.executeQuery()){
-				List<Material> materials = new LinkedList<Material>();
-					
+		try(Connection conn = DbConnection.getConnection()){
+			try(PreparedStatement stmt = prepareWithIds(conn, sql, ids)){
+				if(matchAll) {
+					setParameter(stmt, paddedInListSize(ids.size()) + 1, ids.size(), Integer.class);
+				}
+				
+				int[] projectIds = new int[256];
+				int count = 0;
+				
+				try(ResultSet rs = stmt.executeQuery()){
+					while(rs.next()) {
+						if(count == projectIds.length) {
+							projectIds = Arrays.copyOf(projectIds, count * 2);
+						}
+						projectIds[count++] = rs.getInt(1);
+					}
+				}
+				
+				return Arrays.copyOf(projectIds, count);
+			}
+		}// outer most try()
+		catch(SQLException e) {
+		throw new DbException(e);
+		}
+	}
+	
+	/**********************************************************************
+	* loadCategoryIndex() builds an in-memory CategoryIndex from every
+	* project-category link. Links are streamed in index order, so each
+	* category's bitmap is filled by appending.
+	************************************************************************/
+	
+	public CategoryIndex loadCategoryIndex() {
+		
+		String sql = "SELECT category_id, project_id FROM " + PROJECT_CATEGORY_TABLE + " ORDER BY category_id, project_id";
+		CategoryIndex index = new CategoryIndex();
+		
+		try(Connection conn = DbConnection.getConnection()){
+			try(PreparedStatement stmt = prepareForStreaming(conn, sql); ResultSet rs = stmt.executeQuery()){
+				while(rs.next()) {
+					index.addLink(rs.getInt(2), rs.getInt(1));
+				}
+			}
+		}// outer most try()
+		catch(SQLException e) {
+		throw new DbException(e);
+		}
+		
+		return index;
+	}
+	
+	/**********************************************************************
+	* loadSearchIndex() builds an in-memory full-text SearchIndex from every
+	* project's name and notes, material names and step text. The three
+	* queries run in one transaction and stream through server cursors;
+	* each row is tokenized straight into the index's posting lists.
+	************************************************************************/
+	
+	public SearchIndex loadSearchIndex() {
+		
+		// @formatter:off
+		String projectSql = "SELECT project_id, project_name, notes FROM " + PROJECT_TABLE + " ORDER BY project_id";
+		String materialSql = "SELECT project_id, material_name FROM " + MATERIAL_TABLE;
+		String stepSql = "SELECT project_id, step_text FROM " + STEP_TABLE;
+		// @formatter:on
+		
+		SearchIndex.Loader loader = SearchIndex.loader();
+		
+		try(Connection conn = DbConnection.getConnection()){
+			startTransaction(conn);
+			
+			try {
+				try(PreparedStatement stmt = prepareForStreaming(conn, projectSql); ResultSet rs = stmt.executeQuery()){
+					while(rs.next()) {
+						loader.addProject(rs.getInt(1), rs.getString(2), rs.getString(3));
+					}
+				}
+				
+				try(PreparedStatement stmt = prepareForStreaming(conn, materialSql); ResultSet rs = stmt.executeQuery()){
+					while(rs.next()) {
+						loader.addMaterial(rs.getInt(1), rs.getString(2));
+					}
+				}
+				
+				try(PreparedStatement stmt = prepareForStreaming(conn, stepSql); ResultSet rs = stmt.executeQuery()){
+					while(rs.next()) {
+						loader.addStep(rs.getInt(1), rs.getString(2));
+					}
+				}
+				
+				commitTransaction(conn);
+			}
+			catch(Exception e) {
+				rollbackTransaction(conn);
+				throw new DbException(e);
+			}
+		}// outer most try()
+		catch(SQLException e) {
+		throw new DbException(e);
+		}
+		
+		return loader.build();
+	}
+	
+	/**********************************************************************/
+	private String encodePageToken(ProjectSort sort, Project last) {
+		String token = sort.name() + ":" + last.getProjectId();
+		
+		if(sort == ProjectSort.PROJECT_NAME) {
+			token += ":" + last.getProjectName();
+		}
+		
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(token.getBytes(StandardCharsets.UTF_8));
+	}
+	
+	/**********************************************************************/
+	private Project decodePageToken(ProjectSort sort, String pageToken) {
+		
+		if(Objects.isNull(pageToken)) {
+			return null;
+		}
+		
+		try {
+			String token = new String(Base64.getUrlDecoder().decode(pageToken), StandardCharsets.UTF_8);
+			String[] parts = token.split(":", 3);
+			
+			if(!parts[0].equals(sort.name()) || parts.length != (sort == ProjectSort.PROJECT_NAME ? 3 : 2)) {
+				throw new IllegalArgumentException("Page token does not match sort order " + sort + ".");
+			}
+			
+			Project after = new Project();
+			after.setProjectId(Integer.valueOf(parts[1]));
+			
+			if(sort == ProjectSort.PROJECT_NAME) {
+				after.setProjectName(parts[2]);
+			}
+			
+			return after;
+		}
+		catch(IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+			/*     A bad token is bad caller input, not a database failure.     */
+			throw new IllegalArgumentException("Invalid page token.", e);
+		}
+	}
+	
+	/**********************************************************************
+	* streamAllProjects() returns the project table as a lazily read Stream.
+	* Rows are pulled from a MySQL server-side cursor fetchSize rows at a
+	* time (the connection URL enables useCursorFetch), so memory stays flat
+	* no matter how large the table is and the first project is available
+	* as soon as the first batch arrives.
+	*
+	* The stream owns a pooled connection until it is closed, so callers
+	* must close it, normally with try-with-resources:
+	*
+	*    try(Stream<Project> projects = projectDao.streamAllProjects(500)) {
+	*       projects.forEach(...);
+	*    }
+	************************************************************************/
+	
+	public Stream<Project> streamAllProjects(int fetchSize) {
+		String sql = "SELECT * FROM " + PROJECT_TABLE + " ORDER BY project_id";
+		
+		Connection conn = DbConnection.getConnection();
+		PreparedStatement stmt = null;
+		
+		try {
+			stmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+			stmt.setFetchSize(fetchSize > 0 ? fetchSize : DEFAULT_STREAM_FETCH_SIZE);
+			
+			ResultSet rs = stmt.executeQuery();
+			PreparedStatement openStmt = stmt;
+			RowExtractor<Project> projects = extractor(rs, Project.class);
+			
+			Spliterator<Project> rows = new Spliterators.AbstractSpliterator<Project>(Long.MAX_VALUE,
+					Spliterator.ORDERED | Spliterator.NONNULL) {
+				
+				@Override
+				public boolean tryAdvance(Consumer<? super Project> action) {
+					try {
+						if(!rs.next()) {
+							return false;
+						}
+						action.accept(projects.extract());
+						return true;
+					}
+					catch(SQLException e) {
+						throw new DbException(e);
+					}
+				}
+			};
+			
+			return StreamSupport.stream(rows, false).onClose(() -> closeAll(rs, openStmt, conn));
+		}
+		catch(SQLException e) {
+			closeAll(null, stmt, conn);
+			throw new DbException(e);
+		}
+		catch(RuntimeException e) {
+			closeAll(null, stmt, conn);
+			throw e;
+		}
+	}
+	
+	/**********************************************************************/
+	private void closeAll(AutoCloseable... resources) {
+		DbException failure = null;
+		
+		for(AutoCloseable resource : resources) {
+			if(Objects.nonNull(resource)) {
+				try {
+					resource.close();
+				}
+				catch(Exception e) {
+					if(Objects.isNull(failure)) {
+						failure = new DbException(e);
+					}
+				}
+			}
+		}
+		
+		if(Objects.nonNull(failure)) {
+			throw failure;
+		}
+	}
+	
+	/**********************************************************************
+	* loadProjectCatalog() reads the whole project, material, category link
+	* and step count data into a columnar ProjectCatalog. All four queries
+	* run in one transaction on one connection and stream through server
+	* cursors. Rows go straight into the primitive columns; DECIMAL columns
+	* are scaled in SQL and read with getLong(), so no BigDecimal or entity
+	* objects are created per row.
+	************************************************************************/
+	
+	public ProjectCatalog loadProjectCatalog() {
+		
+		String scale = " * " + BigDecimal.ONE.scaleByPowerOfTen(ProjectCatalog.SCALE).toPlainString();
+		
+		// @formatter:off
+		String projectSql = "SELECT project_id, project_name, estimated_hours" + scale + ", actual_hours" + scale 
+				+ ", difficulty FROM " + PROJECT_TABLE + " ORDER BY project_id";
+		String materialSql = "SELECT project_id, material_name, num_required, cost" + scale 
+				+ " FROM " + MATERIAL_TABLE;
+		String categorySql = "SELECT pc.project_id, c.category_id, c.category_name FROM " + PROJECT_CATEGORY_TABLE 
+				+ " pc JOIN " + CATEGORY_TABLE + " c ON c.category_id = pc.category_id";
+		String stepSql = "SELECT project_id, COUNT(*) FROM " + STEP_TABLE + " GROUP BY project_id";
+		// @formatter:on
+		
+		ProjectCatalog.Builder builder = ProjectCatalog.builder();
+		
+		try(Connection conn = DbConnection.getConnection()){
+			startTransaction(conn);
+			
+			try {
+				try(PreparedStatement stmt = prepareForStreaming(conn, projectSql); ResultSet rs = stmt.executeQuery()){
+					while(rs.next()) {
+						builder.addProject(rs.getInt(1), rs.getString(2), getScaled(rs, 3), getScaled(rs, 4), getNullableInt(rs, 5));
+					}
+				}
+				
+				try(PreparedStatement stmt = prepareForStreaming(conn, materialSql); ResultSet rs = stmt.executeQuery()){
+					while(rs.next()) {
+						builder.addMaterial(rs.getInt(1), rs.getString(2), getNullableInt(rs, 3), getScaled(rs, 4));
+					}
+				}
+				
+				try(PreparedStatement stmt = prepareForStreaming(conn, categorySql); ResultSet rs = stmt.executeQuery()){
+					while(rs.next()) {
+						builder.addCategoryLink(rs.getInt(1), rs.getInt(2), rs.getString(3));
+					}
+				}
+				
+				try(PreparedStatement stmt = prepareForStreaming(conn, stepSql); ResultSet rs = stmt.executeQuery()){
+					while(rs.next()) {
+						builder.setStepCount(rs.getInt(1), rs.getInt(2));
+					}
+				}
+				
+				commitTransaction(conn);
+			}
+			catch(Exception e) {
+				rollbackTransaction(conn);
+				throw new DbException(e);
+			}
+		}// outer most try()
+		catch(SQLException e) {
+		throw new DbException(e);
+		}
+		
+		return builder.build();
+	}
+	
+	/**********************************************************************
+	* countMaterialRows() returns the size of the material table, the
+	* largest input to cost aggregation, for choosing between aggregating
+	* in SQL and in memory.
+	************************************************************************/
+	
+	public long countMaterialRows() {
+		
+		String sql = "SELECT COUNT(*) FROM " + MATERIAL_TABLE;
+		
+		try(Connection conn = DbConnection.getConnection()){
+			try(PreparedStatement stmt = conn.prepareStatement(sql); ResultSet rs = stmt.executeQuery()){
+				return rs.next() ? rs.getLong(1) : 0;
+			}
+		}// outer most try()
+		catch(SQLException e) {
+		throw new DbException(e);
+		}
+	}
+	
+	/**********************************************************************
+	* aggregateCosts() computes the cost and effort report with SUM/GROUP BY
+	* queries so only the totals leave the database. Per category, hours and
+	* material cost are grouped by separate queries and merged by category
+	* ID; joining material into the hours query would count each project's
+	* hours once per material row.
+	************************************************************************/
+	
+	public CostReport aggregateCosts() {
+		
+		// @formatter:off
+		String projectSql = ""
+				+ "SELECT COUNT(*), SUM(estimated_hours), SUM(actual_hours), SUM(actual_hours - estimated_hours) "
+				+ "FROM " + PROJECT_TABLE;
+		String materialSql = "SELECT SUM(num_required * cost) FROM " + MATERIAL_TABLE;
+		String categorySql = ""
+				+ "SELECT c.category_id, c.category_name, COUNT(*), "
+				+ "SUM(p.estimated_hours), SUM(p.actual_hours), SUM(p.actual_hours - p.estimated_hours) "
+				+ "FROM " + PROJECT_CATEGORY_TABLE + " pc "
+				+ "JOIN " + CATEGORY_TABLE + " c ON c.category_id = pc.category_id "
+				+ "JOIN " + PROJECT_TABLE + " p ON p.project_id = pc.project_id "
+				+ "GROUP BY c.category_id, c.category_name "
+				+ "ORDER BY c.category_id";
+		String categoryMaterialSql = ""
+				+ "SELECT pc.category_id, SUM(m.num_required * m.cost) "
+				+ "FROM " + PROJECT_CATEGORY_TABLE + " pc "
+				+ "JOIN " + MATERIAL_TABLE + " m ON m.project_id = pc.project_id "
+				+ "GROUP BY pc.category_id";
+		// @formatter:on
+		
+		try(Connection conn = DbConnection.getConnection()){
+			startTransaction(conn);
+			
+			try {
+				long projectCount;
+				BigDecimal estimatedHours;
+				BigDecimal actualHours;
+				BigDecimal hoursVariance;
+				BigDecimal materialCost;
+				List<CategoryCost> categories = new ArrayList<>();
+				
+				try(PreparedStatement stmt = conn.prepareStatement(projectSql); ResultSet rs = stmt.executeQuery()){
+					rs.next();
+					projectCount = rs.getLong(1);
+					estimatedHours = getDecimalOrZero(rs, 2);
+					actualHours = getDecimalOrZero(rs, 3);
+					hoursVariance = getDecimalOrZero(rs, 4);
+				}
+				
+				try(PreparedStatement stmt = conn.prepareStatement(materialSql); ResultSet rs = stmt.executeQuery()){
+					rs.next();
+					materialCost = getDecimalOrZero(rs, 1);
+				}
+				
+				Map<Integer, BigDecimal> categoryMaterialCosts = new HashMap<>();
+				
+				try(PreparedStatement stmt = conn.prepareStatement(categoryMaterialSql); ResultSet rs = stmt.executeQuery()){
+					while(rs.next()) {
+						categoryMaterialCosts.put(rs.getInt(1), getDecimalOrZero(rs, 2));
+					}
+				}
+				
+				try(PreparedStatement stmt = conn.prepareStatement(categorySql); ResultSet rs = stmt.executeQuery()){
+					while(rs.next()) {
+						BigDecimal categoryMaterialCost = categoryMaterialCosts.getOrDefault(rs.getInt(1), 
+								BigDecimal.ZERO.setScale(ProjectCatalog.SCALE));
+						
+						categories.add(new CategoryCost(rs.getInt(1), rs.getString(2), rs.getLong(3), categoryMaterialCost,
+								getDecimalOrZero(rs, 4), getDecimalOrZero(rs, 5), getDecimalOrZero(rs, 6)));
+					}
+				}
+				
+				commitTransaction(conn);
+				return new CostReport(projectCount, materialCost, estimatedHours, actualHours, hoursVariance, categories);
+			}
+			catch(Exception e) {
+				rollbackTransaction(conn);
+				throw new DbException(e);
+			}
+		}// outer most try()
+		catch(SQLException e) {
+		throw new DbException(e);
+		}
+	}
+	
+	/*     SUM() over no rows is NULL; report it as zero, at the catalog's scale.     */
+	private BigDecimal getDecimalOrZero(ResultSet rs, int column) throws SQLException {
+		BigDecimal value = rs.getBigDecimal(column);
+		return (Objects.isNull(value) ? BigDecimal.ZERO : value).setScale(ProjectCatalog.SCALE, RoundingMode.HALF_UP);
+	}
+	
+	/**********************************************************************/
+	private PreparedStatement prepareForStreaming(Connection conn, String sql) throws SQLException {
+		PreparedStatement stmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+		stmt.setFetchSize(DEFAULT_STREAM_FETCH_SIZE);
+		return stmt;
+	}
+	
+	/**********************************************************************/
+	private long getScaled(ResultSet rs, int column) throws SQLException {
+		long value = rs.getLong(column);
+		return rs.wasNull() ? ProjectCatalog.NULL_LONG : value;
+	}
+	
+	/**********************************************************************/
+	private int getNullableInt(ResultSet rs, int column) throws SQLException {
+		int value = rs.getInt(column);
+		return rs.wasNull() ? ProjectCatalog.NULL_INT : value;
+	}
+	
+	/************************************************************************/
+	
+	public Optional<Project> fetchProjectById(Integer projectId) {
+		return fetchProjectById(projectId, FetchMode.PER_TABLE);
+	}
+	
+	/************************************************************************/
+	
+	public Optional<Project> fetchProjectById(Integer projectId, FetchMode fetchMode) {
+		
+		if(fetchMode == FetchMode.SINGLE_ROUND_TRIP) {
+			return fetchProjectByIdInOneRoundTrip(projectId);
+		}
+		
+		String sql = "SELECT * FROM " + PROJECT_TABLE + " WHERE project_id = ?";
+		
+		try(Connection conn = DbConnection.getConnection()){
+			startTransaction(conn);
+			try {	
+				Project project = null;
+				
+				try(PreparedStatement stmt = conn.prepareStatement(sql)){
+					setParameter(stmt, 1, projectId, Integer.class);
+					
+					try(ResultSet rs = stmt.executeQuery()){
+						if(rs.next()) {
+							project = extract(rs, Project.class);
+						}
+					} //stmt.executeQuery()
+				} //conn.prepareStatement(sql)
+				
+				if(Objects.nonNull(project)) {
+					project.getMaterials().addAll(fetchMaterialsForProject(conn, projectId));
+					project.getSteps().addAll(fetchStepsForProject(conn, projectId));
+					project.getCategories().addAll(fetchCategoriesForProject(conn, projectId));
+				}
+				
+				commitTransaction(conn);
+				return Optional.ofNullable(project);
+			}//project = null;
+			
+			catch(Exception e) {
+				rollbackTransaction(conn);
+				throw new DbException(e);
+			}
+		}// outer most try()
+		catch(SQLException e) {
+		throw new DbException(e);
+		}
+	}
+	
+
+	/**********************************************************************
+	* fetchProjectsByIds() loads fully populated projects for many IDs on a
+	* single connection. The IDs are split into chunks of ID_CHUNK_SIZE and
+	* each chunk costs four IN (...) queries, one per table. Children are
+	* attached to their parents through a hash map keyed by project_id, so
+	* the number of queries grows with the number of chunks, not projects.
+	* Child rows come back ordered by project_id and each project's run of
+	* children is added in one addAll(), so its lists are sized exactly.
+	* Projects are returned in the order of the given IDs; IDs that do not
+	* exist are skipped.
+	************************************************************************/
+	
+	public List<Project> fetchProjectsByIds(Collection<Integer> projectIds) {
+		
+		List<Integer> ids = new ArrayList<>(new LinkedHashSet<>(projectIds));
+		Map<Integer, Project> projectsById = new HashMap<>(ids.size() * 2);
+		
+		if(ids.isEmpty()) {
+			return new ArrayList<>();
+		}
+		
+		try(Connection conn = DbConnection.getConnection()){
+			startTransaction(conn);
+			
+			try {
+				for(int from = 0; from < ids.size(); from += ID_CHUNK_SIZE) {
+					List<Integer> chunk = ids.subList(from, Math.min(from + ID_CHUNK_SIZE, ids.size()));
+					fetchProjectChunk(conn, chunk, projectsById);
+				}
+				
+				commitTransaction(conn);
+			}
+			catch(Exception e) {
+				rollbackTransaction(conn);
+				throw new DbException(e);
+			}
+		}// outer most try()
+		catch(SQLException e) {
+		throw new DbException(e);
+		}
+		
+		List<Project> projects = new ArrayList<>(projectsById.size());
+		
+		for(Integer projectId : ids) {
+			Project project = projectsById.get(projectId);
+			
+			if(Objects.nonNull(project)) {
+				projects.add(project);
+			}
+		}
+		
+		return projects;
+	}
+	
+	/**********************************************************************/
+	private void fetchProjectChunk(Connection conn, List<Integer> chunk, Map<Integer, Project> projectsById)
+			throws SQLException {
+		
+		String inList = " IN (" + inListPlaceholders(chunk.size()) + ")";
+		
+		String projectSql = "SELECT * FROM " + PROJECT_TABLE + " WHERE project_id" + inList;
+		String materialSql = "SELECT * FROM " + MATERIAL_TABLE + " WHERE project_id" + inList + " ORDER BY project_id, material_id";
+		String stepSql = "SELECT * FROM " + STEP_TABLE + " WHERE project_id" + inList + " ORDER BY project_id, step_order";
+		String categorySql = "SELECT pc.project_id, c.* FROM " + CATEGORY_TABLE + " c JOIN " 
+				+ PROJECT_CATEGORY_TABLE + " pc ON c.category_id = pc.category_id "
+				+ "WHERE pc.project_id" + inList + " ORDER BY pc.project_id, c.category_id";
+		
+		try(PreparedStatement stmt = prepareWithIds(conn, projectSql, chunk)){
+			try(ResultSet rs = stmt.executeQuery()){
+				RowExtractor<Project> projects = extractor(rs, Project.class);
+				
+				while(rs.next()) {
+					Project project = projects.extract();
+					projectsById.put(project.getProjectId(), project);
+				}
+			}
+		}
+		
+		try(PreparedStatement stmt = prepareWithIds(conn, materialSql, chunk)){
+			try(ResultSet rs = stmt.executeQuery()){
+				attachChildren(rs, Material.class, projectsById, Project::getMaterials);
+			}
+		}
+		
+		try(PreparedStatement stmt = prepareWithIds(conn, stepSql, chunk)){
+			try(ResultSet rs = stmt.executeQuery()){
+				attachChildren(rs, Step.class, projectsById, Project::getSteps);
+			}
+		}
+		
+		try(PreparedStatement stmt = prepareWithIds(conn, categorySql, chunk)){
+			try(ResultSet rs = stmt.executeQuery()){
+				attachChildren(rs, Category.class, projectsById, Project::getCategories);
+			}
+		}
+	}
+	
+	/**********************************************************************
+	* attachChildren() reads child rows ordered by project_id and adds each
+	* project's run of rows to the list returned by children. The rows are
+	* gathered in a reused buffer first so every project list grows once.
+	************************************************************************/
+	
+	private <T> void attachChildren(ResultSet rs, Class<T> classType, Map<Integer, Project> projectsById,
+			Function<Project, List<T>> children) throws SQLException {
+		
+		List<T> run = new ArrayList<>();
+		int runProjectId = 0;
+		RowExtractor<T> rows = extractor(rs, classType);
+		
+		while(rs.next()) {
+			int projectId = rs.getInt("project_id");
+			
+			if(projectId != runProjectId) {
+				addRun(projectsById.get(runProjectId), run, children);
+				runProjectId = projectId;
+			}
+			
+			run.add(rows.extract());
+		}
+		
+		addRun(projectsById.get(runProjectId), run, children);
+	}
+	
+	/**********************************************************************/
+	private <T> void addRun(Project project, List<T> run, Function<Project, List<T>> children) {
+		if(Objects.nonNull(project) && !run.isEmpty()) {
+			children.apply(project).addAll(run);
+		}
+		run.clear();
+	}
+	
+	/**********************************************************************/
+	private PreparedStatement prepareWithIds(Connection conn, String sql, List<Integer> ids) throws SQLException {
+		PreparedStatement stmt = conn.prepareStatement(sql);
+		
+		try {
+			int index = 1;
+			
+			for(Integer id : ids) {
+				setParameter(stmt, index++, id, Integer.class);
+			}
+			
+			/*     Fill the padding with the last ID; a repeated value does not change an IN predicate.     */
+			for(int padded = paddedInListSize(ids.size()); index <= padded; index++) {
+				setParameter(stmt, index, ids.get(ids.size() - 1), Integer.class);
+			}
+			
+			return stmt;
+		}
+		catch(SQLException e) {
+			stmt.close();
+			throw e;
+		}
+	}
+	
+	/**********************************************************************
+	* IN lists are padded to the next power of two, so each IN query has a
+	* handful of SQL texts instead of one per list length. That keeps them
+	* from flooding the pool's per-connection statement cache and the
+	* server's prepared statement cache, and from crowding out the hot
+	* single-row statements.
+	************************************************************************/
+	
+	private static int paddedInListSize(int count) {
+		return count <= 1 ? 1 : Integer.highestOneBit(count - 1) << 1;
+	}
+	
+	/**********************************************************************/
+	private static String inListPlaceholders(int count) {
+		return String.join(", ", Collections.nCopies(paddedInListSize(count), "?"));
+	}
+	
+	/**********************************************************************
+	* fetchProjectByIdInOneRoundTrip() loads the project, its materials,
+	* steps and categories with one query: a UNION ALL of four SELECTs that
+	* share one column layout, each row tagged with the table it came from.
+	* Unlike a join there is no materials x steps x categories row
+	* explosion, and unlike a multi-statement request it needs no
+	* allowMultiQueries, so it also runs on H2. Rows come back ordered by
+	* kind and then by the same order the per-table queries use, and are
+	* assembled into the same Project graph.
+	************************************************************************/
+	
+	private Optional<Project> fetchProjectByIdInOneRoundTrip(Integer projectId) {
+		
+		// @formatter:off
+		String sql = ""
+				+ "SELECT 0 AS row_kind, project_id AS row_id, 0 AS sort_key, project_name AS row_name, notes AS row_text, "
+				+ "estimated_hours AS decimal_1, actual_hours AS decimal_2, difficulty AS int_1, version AS int_2 "
+				+ "FROM " + PROJECT_TABLE + " WHERE project_id = ? "
+				+ "UNION ALL "
+				+ "SELECT 1, material_id, material_id, material_name, NULL, cost, NULL, num_required, NULL "
+				+ "FROM " + MATERIAL_TABLE + " WHERE project_id = ? "
+				+ "UNION ALL "
+				+ "SELECT 2, step_id, step_order, NULL, step_text, NULL, NULL, step_order, NULL "
+				+ "FROM " + STEP_TABLE + " WHERE project_id = ? "
+				+ "UNION ALL "
+				+ "SELECT 3, c.category_id, c.category_id, c.category_name, NULL, NULL, NULL, NULL, NULL "
+				+ "FROM " + CATEGORY_TABLE + " c JOIN " + PROJECT_CATEGORY_TABLE + " pc ON c.category_id = pc.category_id "
+				+ "WHERE pc.project_id = ? "
+				+ "ORDER BY row_kind, sort_key";
+		// @formatter:on
+		
+		try(Connection conn = DbConnection.getConnection()){
+			try(PreparedStatement stmt = conn.prepareStatement(sql)){
+				for(int index = 1; index <= 4; index++) {
+					setParameter(stmt, index, projectId, Integer.class);
+				}
+				
+				try(ResultSet rs = stmt.executeQuery()){
+					/*     The project row sorts first; without it there is no project.     */
+					if(!rs.next() || rs.getInt("row_kind") != 0) {
+						return Optional.empty();
+					}
+					
+					Project project = new Project();
+					project.setProjectId(rs.getInt("row_id"));
+					project.setProjectName(rs.getString("row_name"));
+					project.setNotes(rs.getString("row_text"));
+					project.setEstimatedHours(rs.getBigDecimal("decimal_1"));
+					project.setActualHours(rs.getBigDecimal("decimal_2"));
+					project.setDifficulty(rs.getObject("int_1", Integer.class));
+					project.setVersion(rs.getInt("int_2"));
+					project.clearDirtyFields();
+					
+					while(rs.next()) {
+						addChildRow(rs, project);
+					}
+					
+					return Optional.of(project);
+				}
+			}
+		}// outer most try()
+		catch(SQLException e) {
+		throw new DbException(e);
+		}
+	}
+	
+	/**********************************************************************/
+	private void addChildRow(ResultSet rs, Project project) throws SQLException {
+		
+		switch(rs.getInt("row_kind")) {
+		case 1:
+			Material material = new Material();
+			material.setMaterialId(rs.getInt("row_id"));
+			material.setProjectId(project.getProjectId());
+			material.setMaterialName(rs.getString("row_name"));
+			material.setNumRequired(rs.getObject("int_1", Integer.class));
+			material.setCost(rs.getBigDecimal("decimal_1"));
+			project.getMaterials().add(material);
+			break;
+		case 2:
+			Step step = new Step();
+			step.setStepId(rs.getInt("row_id"));
+			step.setProjectId(project.getProjectId());
+			step.setStepText(rs.getString("row_text"));
+			step.setStepOrder(rs.getInt("int_1"));
+			project.getSteps().add(step);
+			break;
+		default:
+			Category category = new Category();
+			category.setCategoryId(rs.getInt("row_id"));
+			category.setCategoryName(rs.getString("row_name"));
+			project.getCategories().add(category);
+			break;
+		}
+	}
+	
+	/**********************************************************************
+	* The next four methods each load one part of a project graph on their
+	* own pooled connection. They let callers such as AsyncProjectService
+	* run the four queries concurrently instead of one after another.
+	************************************************************************/
+	
+	public Optional<Project> fetchProjectRowById(Integer projectId) {
+		
+		String sql = "SELECT * FROM " + PROJECT_TABLE + " WHERE project_id = ?";
+		
+		try(Connection conn = DbConnection.getConnection()){
+			try(PreparedStatement stmt = conn.prepareStatement(sql)){
+				setParameter(stmt, 1, projectId, Integer.class);
+				
+				try(ResultSet rs = stmt.executeQuery()){
+					return rs.next() ? Optional.of(extract(rs, Project.class)) : Optional.empty();
+				}
+			}
+		}// outer most try()
+		catch(SQLException e) {
+		throw new DbException(e);
+		}
+	}
+	
+	/**********************************************************************/
+	public List<Material> fetchMaterialsByProjectId(Integer projectId) {
+		try(Connection conn = DbConnection.getConnection()){
+			return fetchMaterialsForProject(conn, projectId);
+		}
+		catch(SQLException e) {
+		throw new DbException(e);
+		}
+	}
+	
+	/**********************************************************************/
+	public List<Step> fetchStepsByProjectId(Integer projectId) {
+		try(Connection conn = DbConnection.getConnection()){
+			return fetchStepsForProject(conn, projectId);
+		}
+		catch(SQLException e) {
+		throw new DbException(e);
+		}
+	}
+	
+	/**********************************************************************/
+	public List<Category> fetchCategoriesByProjectId(Integer projectId) {
+		try(Connection conn = DbConnection.getConnection()){
+			return fetchCategoriesForProject(conn, projectId);
+		}
+		catch(SQLException e) {
+		throw new DbException(e);
+		}
+	}
+	
+	/**********************************************************************/
+	private List<Category> fetchCategoriesForProject(Connection conn, Integer projectId) throws SQLException {
+		
+		String sql = "SELECT c.* FROM " + CATEGORY_TABLE + " c JOIN " 
+		+ PROJECT_CATEGORY_TABLE + " pc ON c.category_id = pc.category_id "
+		+ "WHERE pc.project_id = ? ORDER BY c.category_id";
+		
+
+		try(PreparedStatement stmt = conn.prepareStatement(sql)){
+			setParameter(stmt, 1, projectId, Integer.class);
+			
+			try(ResultSet rs = stmt.executeQuery()){
+				List<Category> categories = new ArrayList<>();
+				RowExtractor<Category> rows = extractor(rs, Category.class);
+					
+				while(rs.next()) {
+					categories.add(rows.extract());
+				}// while ()
+					
+				return categories;
+			}
+		}
+	}
+
+	/**********************************************************************/
+	private List<Step> fetchStepsForProject(Connection conn, Integer projectId) throws SQLException {
+		
+		String sql = "SELECT * FROM " + STEP_TABLE + " WHERE project_id = ? ORDER BY step_order";
+		
+		try(PreparedStatement stmt = conn.prepareStatement(sql)){
+			setParameter(stmt, 1, projectId, Integer.class);
+			
+			try(ResultSet rs = stmt.executeQuery()){
+				List<Step> steps = new ArrayList<>();
+				RowExtractor<Step> rows = extractor(rs, Step.class);
+					
+				while(rs.next()) {
+					steps.add(rows.extract());
+				}// while ()
+					
+				return steps;
+			}
+		}
+	}
+
+	/**********************************************************************/
+	private List< Material> fetchMaterialsForProject(Connection conn, Integer projectId) throws SQLException {
+		
+		String sql = "SELECT * FROM " + MATERIAL_TABLE + " WHERE project_id = ? ORDER BY material_id";
+		
+		try(PreparedStatement stmt = conn.prepareStatement(sql)){
+			setParameter(stmt, 1, projectId, Integer.class);
+			
+			try(ResultSet rs = stmt.executeQuery()){
+				List<Material> materials = new ArrayList<>();
+				RowExtractor<Material> rows = extractor(rs, Material.class);
+					
 				while(rs.next()) {
-					materials.add(extract(rs, Material.class));
+					materials.add(rows.extract());
 				}// while ()
 					
 				return materials;
@@ -264,48 +1543,433 @@ public class ProjectDao extends DaoBase {
 		}
 	}
 	
-	/************************************************************************/
+	/**********************************************************************
+	* modifyProjectDetails() writes only the detail columns set on the
+	* project since it was loaded (Project.getDirtyFields()), increments its
+	* version and returns the new version. The result is empty if the
+	* project does not exist.
+	*
+	* When the project carries a version the UPDATE only matches that
+	* version, so a change committed by someone else in the meantime makes
+	* it match no rows. The current version is then read to tell a stale
+	* project (StaleProjectException) from a deleted one. After a successful
+	* update the new version is simply the old one plus one, so nothing is
+	* read back. A project without a version is updated unconditionally and
+	* its new version is read in the same transaction.
+	************************************************************************/
+	
+	public OptionalInt modifyProjectDetails(Project project) {
 		
-	public boolean modifyProjectDetails(Project project) {
+		Integer projectId = project.getProjectId();
+		Integer expectedVersion = project.getVersion();
+		Set<ProjectField> fields = project.getDirtyFields();
 		
-		// @formatter:off
-		String sql = "" 
-				+ "UPDATE " + PROJECT_TABLE + " SET "
-				+ "project_name = ?, "
-				+ "estimated_hours = ?, "
-				+ "actual_hours = ?, "
-				+ "difficulty = ?, "
-				+ "notes = ? "
-				+ "WHERE project_id = ?";
-		// @formatter:on
+		if(fields.isEmpty() && Objects.nonNull(expectedVersion)) {
+			return OptionalInt.of(expectedVersion);
+		}
+		
+		StringBuilder sql = new StringBuilder("UPDATE " + PROJECT_TABLE + " SET ");
+		
+		for(ProjectField field : fields) {
+			sql.append(columnOf(field)).append(" = ?, ");
+		}
+		
+		sql.append("version = version + 1 WHERE project_id = ?");
+		
+		if(Objects.nonNull(expectedVersion)) {
+			sql.append(" AND version = ?");
+		}
+		
+		int updated;
+		OptionalInt currentVersion = OptionalInt.empty();
 		
 		try(Connection conn = DbConnection.getConnection()){
 			startTransaction(conn);
 			
-			try(PreparedStatement stmt = conn.prepareStatement(sql)){
-				setParameter(stmt, 1, project.getProjectName(), String.class);
-				setParameter(stmt, 2, project.getEstimatedHours(), BigDecimal.class);
-				setParameter(stmt, 3, project.getActualHours(), BigDecimal.class);
-				setParameter(stmt, 4, project.getDifficulty(), Integer.class);
-				setParameter(stmt, 5, project.getNotes(), String.class);
-				setParameter(stmt, 6, project.getProjectId(), Integer.class);
+			try {
+				try(PreparedStatement stmt = conn.prepareStatement(sql.toString())){
+					int index = 1;
+					
+					for(ProjectField field : fields) {
+						setDetail(stmt, index++, project, field);
+					}
+					
+					setParameter(stmt, index++, projectId, Integer.class);
+					
+					if(Objects.nonNull(expectedVersion)) {
+						setParameter(stmt, index, expectedVersion, Integer.class);
+					}
+					
+					updated = stmt.executeUpdate();
+				}
 				
-				boolean updatedProject = stmt.executeUpdate() == 1;
-		        commitTransaction(conn);
-		        
-		        System.out.println("\nThe project was updated and the value is: " + updatedProject);
-		        
-		        return updatedProject;
-			
-			}catch(Exception e){
+				if(updated == 0 || Objects.isNull(expectedVersion)) {
+					currentVersion = fetchVersion(conn, projectId);
+				}
+				
+				commitTransaction(conn);
+			}
+			catch(Exception e) {
 				rollbackTransaction(conn);
 				throw new DbException(e);
 			}
-			
 		} // outer try()
 		catch (SQLException e) {
 			throw new DbException(e);
 		}
+		
+		if(updated == 0) {
+			if(currentVersion.isPresent()) {
+				throw new StaleProjectException(projectId, expectedVersion, currentVersion.getAsInt());
+			}
+			return OptionalInt.empty();
+		}
+		
+		return Objects.nonNull(expectedVersion) ? OptionalInt.of(expectedVersion + 1) : currentVersion;
+	}
+	
+	/**********************************************************************
+	* modifyProjectDetails(Collection) writes the dirty detail columns of
+	* many projects in one transaction without version checks; the last
+	* write wins. Projects with the same set of dirty fields share one
+	* UPDATE statement and one JDBC batch. Projects that no longer exist
+	* are skipped. Each row's version goes up by one. Returns the number of
+	* rows updated.
+	************************************************************************/
+	
+	public int modifyProjectDetails(Collection<Project> projects) {
+		
+		return modifyProjectDetails(projects, project -> 1);
+	}
+	
+	/**********************************************************************
+	* modifyProjectDetails(Collection, ToIntFunction) is the bulk write with
+	* each row's version raised by versionIncrement instead of one, so that a
+	* row carrying several coalesced updates advances by one per update.
+	************************************************************************/
+	
+	public int modifyProjectDetails(Collection<Project> projects, ToIntFunction<Project> versionIncrement) {
+		
+		Map<Set<ProjectField>, List<Project>> projectsByFields = new HashMap<>();
+		
+		for(Project project : projects) {
+			if(!project.getDirtyFields().isEmpty()) {
+				projectsByFields.computeIfAbsent(EnumSet.copyOf(project.getDirtyFields()), 
+						fields -> new ArrayList<>()).add(project);
+			}
+		}
+		
+		if(projectsByFields.isEmpty()) {
+			return 0;
+		}
+		
+		int updated = 0;
+		
+		try(Connection conn = DbConnection.getConnection()){
+			startTransaction(conn);
+			
+			try {
+				for(Map.Entry<Set<ProjectField>, List<Project>> group : projectsByFields.entrySet()) {
+					StringBuilder sql = new StringBuilder("UPDATE " + PROJECT_TABLE + " SET ");
+					
+					for(ProjectField field : group.getKey()) {
+						sql.append(columnOf(field)).append(" = ?, ");
+					}
+					
+					sql.append("version = version + ? WHERE project_id = ?");
+					
+					try(PreparedStatement stmt = conn.prepareStatement(sql.toString())){
+						for(Project project : group.getValue()) {
+							int index = 1;
+							
+							for(ProjectField field : group.getKey()) {
+								setDetail(stmt, index++, project, field);
+							}
+							
+							setParameter(stmt, index++, versionIncrement.applyAsInt(project), Integer.class);
+							setParameter(stmt, index, project.getProjectId(), Integer.class);
+							stmt.addBatch();
+						}
+						
+						for(int count : stmt.executeBatch()) {
+							updated += count == Statement.SUCCESS_NO_INFO ? 1 : count;
+						}
+					}
+				}
+				
+				commitTransaction(conn);
+				return updated;
+			}
+			catch(Exception e) {
+				rollbackTransaction(conn);
+				throw new DbException(e);
+			}
+		}// outer most try()
+		catch(SQLException e) {
+		throw new DbException(e);
+		}
+	}
+	
+	/**********************************************************************/
+	private OptionalInt fetchVersion(Connection conn, Integer projectId) throws SQLException {
+		String sql = "SELECT version FROM " + PROJECT_TABLE + " WHERE project_id = ?";
+		
+		try(PreparedStatement stmt = conn.prepareStatement(sql)){
+			setParameter(stmt, 1, projectId, Integer.class);
+			
+			try(ResultSet rs = stmt.executeQuery()){
+				return rs.next() ? OptionalInt.of(rs.getInt(1)) : OptionalInt.empty();
+			}
+		}
+	}
+	
+	/**********************************************************************/
+	private String columnOf(ProjectField field) {
+		switch(field) {
+		case PROJECT_NAME:
+			return "project_name";
+		case ESTIMATED_HOURS:
+			return "estimated_hours";
+		case ACTUAL_HOURS:
+			return "actual_hours";
+		case DIFFICULTY:
+			return "difficulty";
+		default:
+			return "notes";
+		}
+	}
+	
+	/**********************************************************************/
+	private void setDetail(PreparedStatement stmt, int index, Project project, ProjectField field) throws SQLException {
+		switch(field) {
+		case PROJECT_NAME:
+			setParameter(stmt, index, project.getProjectName(), String.class);
+			break;
+		case ESTIMATED_HOURS:
+			setParameter(stmt, index, project.getEstimatedHours(), BigDecimal.class);
+			break;
+		case ACTUAL_HOURS:
+			setParameter(stmt, index, project.getActualHours(), BigDecimal.class);
+			break;
+		case DIFFICULTY:
+			setParameter(stmt, index, project.getDifficulty(), Integer.class);
+			break;
+		default:
+			setParameter(stmt, index, project.getNotes(), String.class);
+			break;
+		}
+	}
+	
+	/**********************************************************************
+	* applyProjectChanges() applies a whole ProjectChanges set in one
+	* transaction and returns false if the project does not exist. The
+	* project row is locked first, so concurrent change sets for the same
+	* project run one after the other. Each kind of change is one JDBC
+	* batch, in this order: removals, updates, the step reorder (a single
+	* UPDATE), then inserts. Added steps without a step order are numbered
+	* after the highest existing one, read once per change set. An update or
+	* removal that matches no row of this project fails the whole set.
+	************************************************************************/
+	
+	public boolean applyProjectChanges(Integer projectId, ProjectChanges changes) {
+		
+		// @formatter:off
+		String lockSql = "SELECT project_id FROM " + PROJECT_TABLE + " WHERE project_id = ? FOR UPDATE";
+		String removeMaterialSql = "DELETE FROM " + MATERIAL_TABLE + " WHERE material_id = ? AND project_id = ?";
+		String removeStepSql = "DELETE FROM " + STEP_TABLE + " WHERE step_id = ? AND project_id = ?";
+		String unlinkSql = "DELETE FROM " + PROJECT_CATEGORY_TABLE + " WHERE project_id = ? AND category_id = ?";
+		String updateMaterialSql = "UPDATE " + MATERIAL_TABLE 
+				+ " SET material_name = ?, num_required = ?, cost = ? WHERE material_id = ? AND project_id = ?";
+		String updateStepSql = "UPDATE " + STEP_TABLE + " SET step_text = ? WHERE step_id = ? AND project_id = ?";
+		String addMaterialSql = "INSERT INTO " + MATERIAL_TABLE 
+				+ " (project_id, material_name, num_required, cost) VALUES (?, ?, ?, ?)";
+		String addStepSql = "INSERT INTO " + STEP_TABLE + " (project_id, step_text, step_order) VALUES (?, ?, ?)";
+		String linkSql = "INSERT INTO " + PROJECT_CATEGORY_TABLE + " (project_id, category_id) VALUES (?, ?)";
+		// @formatter:on
+		
+		try(Connection conn = DbConnection.getConnection()){
+			startTransaction(conn);
+			
+			try {
+				try(PreparedStatement stmt = conn.prepareStatement(lockSql)){
+					setParameter(stmt, 1, projectId, Integer.class);
+					
+					try(ResultSet rs = stmt.executeQuery()){
+						if(!rs.next()) {
+							rollbackTransaction(conn);
+							return false;
+						}
+					}
+				}
+				
+				executeChildBatch(conn, removeMaterialSql, changes.getRemovedMaterialIds(), (stmt, materialId) -> {
+					setParameter(stmt, 1, materialId, Integer.class);
+					setParameter(stmt, 2, projectId, Integer.class);
+				}, "Material");
+				
+				executeChildBatch(conn, removeStepSql, changes.getRemovedStepIds(), (stmt, stepId) -> {
+					setParameter(stmt, 1, stepId, Integer.class);
+					setParameter(stmt, 2, projectId, Integer.class);
+				}, "Step");
+				
+				executeChildBatch(conn, unlinkSql, changes.getUnlinkedCategoryIds(), (stmt, categoryId) -> {
+					setParameter(stmt, 1, projectId, Integer.class);
+					setParameter(stmt, 2, categoryId, Integer.class);
+				}, "Category link");
+				
+				executeChildBatch(conn, updateMaterialSql, changes.getUpdatedMaterials(), (stmt, material) -> {
+					setParameter(stmt, 1, material.getMaterialName(), String.class);
+					setParameter(stmt, 2, material.getNumRequired(), Integer.class);
+					setParameter(stmt, 3, material.getCost(), BigDecimal.class);
+					setParameter(stmt, 4, material.getMaterialId(), Integer.class);
+					setParameter(stmt, 5, projectId, Integer.class);
+				}, "Material");
+				
+				executeChildBatch(conn, updateStepSql, changes.getUpdatedSteps(), (stmt, step) -> {
+					setParameter(stmt, 1, step.getStepText(), String.class);
+					setParameter(stmt, 2, step.getStepId(), Integer.class);
+					setParameter(stmt, 3, projectId, Integer.class);
+				}, "Step");
+				
+				reorderSteps(conn, projectId, changes.getStepOrder());
+				
+				insertChildren(conn, addMaterialSql, changes.getAddedMaterials(), (stmt, material) -> {
+					material.setProjectId(projectId);
+					setParameter(stmt, 1, projectId, Integer.class);
+					setParameter(stmt, 2, material.getMaterialName(), String.class);
+					setParameter(stmt, 3, material.getNumRequired(), Integer.class);
+					setParameter(stmt, 4, material.getCost(), BigDecimal.class);
+				}, Material::setMaterialId);
+				
+				if(!changes.getAddedSteps().isEmpty()) {
+					int nextOrder = getNextSequenceNumber(conn, projectId, STEP_TABLE, "project_id", "step_order");
+					
+					for(Step step : changes.getAddedSteps()) {
+						step.setProjectId(projectId);
+						
+						if(Objects.isNull(step.getStepOrder())) {
+							step.setStepOrder(nextOrder++);
+						}
+					}
+					
+					insertChildren(conn, addStepSql, changes.getAddedSteps(), (stmt, step) -> {
+						setParameter(stmt, 1, projectId, Integer.class);
+						setParameter(stmt, 2, step.getStepText(), String.class);
+						setParameter(stmt, 3, step.getStepOrder(), Integer.class);
+					}, Step::setStepId);
+				}
+				
+				executeChildBatch(conn, linkSql, changes.getLinkedCategoryIds(), (stmt, categoryId) -> {
+					setParameter(stmt, 1, projectId, Integer.class);
+					setParameter(stmt, 2, categoryId, Integer.class);
+				}, null);
+				
+				commitTransaction(conn);
+				return true;
+			}
+			catch(Exception e) {
+				rollbackTransaction(conn);
+				throw new DbException(e);
+			}
+		}// outer most try()
+		catch(SQLException e) {
+		throw new DbException(e);
+		}
+	}
+	
+	/**********************************************************************
+	* reorderSteps() renumbers a project's steps with one UPDATE. The listed
+	* steps get positions 1 to n through a CASE expression; every other step
+	* is moved past them by adding n, which keeps their relative order.
+	************************************************************************/
+	
+	private void reorderSteps(Connection conn, Integer projectId, List<Integer> stepIds) throws SQLException {
+		
+		if(stepIds.isEmpty()) {
+			return;
+		}
+		
+		StringBuilder sql = new StringBuilder("UPDATE " + STEP_TABLE + " SET step_order = CASE step_id");
+		
+		for(int index = 0; index < stepIds.size(); index++) {
+			sql.append(" WHEN ? THEN ?");
+		}
+		
+		sql.append(" ELSE step_order + ? END WHERE project_id = ?");
+		
+		try(PreparedStatement stmt = conn.prepareStatement(sql.toString())){
+			int parameter = 1;
+			
+			for(int index = 0; index < stepIds.size(); index++) {
+				setParameter(stmt, parameter++, stepIds.get(index), Integer.class);
+				setParameter(stmt, parameter++, index + 1, Integer.class);
+			}
+			
+			setParameter(stmt, parameter++, stepIds.size(), Integer.class);
+			setParameter(stmt, parameter, projectId, Integer.class);
+			stmt.executeUpdate();
+		}
+	}
+	
+	/**********************************************************************
+	* executeChildBatch() binds one batch entry per row and executes the
+	* batch. When entityName is given, every entry must change exactly one
+	* row; drivers that report SUCCESS_NO_INFO are trusted.
+	************************************************************************/
+	
+	private <T> void executeChildBatch(Connection conn, String sql, List<T> rows, RowBinder<T> binder, 
+			String entityName) throws SQLException {
+		
+		if(rows.isEmpty()) {
+			return;
+		}
+		
+		try(PreparedStatement stmt = conn.prepareStatement(sql)){
+			for(T row : rows) {
+				binder.bind(stmt, row);
+				stmt.addBatch();
+			}
+			
+			int[] counts = stmt.executeBatch();
+			
+			if(Objects.nonNull(entityName)) {
+				for(int index = 0; index < counts.length; index++) {
+					if(counts[index] == 0) {
+						throw new DbException(entityName + " " + rows.get(index) + " is not part of the project.");
+					}
+				}
+			}
+		}
+	}
+	
+	/**********************************************************************/
+	private <T> void insertChildren(Connection conn, String sql, List<T> rows, RowBinder<T> binder, 
+			BiConsumer<T, Integer> idSetter) throws SQLException {
+		
+		if(rows.isEmpty()) {
+			return;
+		}
+		
+		try(PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)){
+			for(T row : rows) {
+				binder.bind(stmt, row);
+				stmt.addBatch();
+			}
+			
+			stmt.executeBatch();
+			
+			try(ResultSet keys = stmt.getGeneratedKeys()){
+				for(T row : rows) {
+					idSetter.accept(row, nextGeneratedKey(keys));
+				}
+			}
+		}
+	}
+	
+	/*     Sets the parameters of one batch entry.     */
+	@FunctionalInterface
+	private interface RowBinder<T> {
+		void bind(PreparedStatement stmt, T row) throws SQLException;
 	}
 	
 	/************************************************************************/
@@ -319,18 +1983,9 @@ public class ProjectDao extends DaoBase {
 			try(PreparedStatement stmt = conn.prepareStatement(sql)){
 				setParameter(stmt, 1, projectId, Integer.class);
 				
-				System.out.println("\nBEFORE deletion, Projects:");  // added for testing
-				listAllProjects(conn);  // added for testing
-				
-				boolean updated = stmt.executeUpdate() == 1;
+				boolean deleted = stmt.executeUpdate() == 1;
 				commitTransaction(conn);
-				        
-				System.out.println("\nThe project was deleted : " + updated);
-				
-				System.out.println("\nAFTER deletion, Projects:");  // added for testing
-				listAllProjects(conn);  // added for testing        
-				
-				return updated;
+				return deleted;
 					
 				}catch(Exception e){
 					rollbackTransaction(conn);
@@ -343,23 +1998,67 @@ public class ProjectDao extends DaoBase {
 			}	
 	}
 	
-	 
-	/************************************************************************/
-	private void listAllProjects(Connection conn) throws SQLException {
-		List<Project> projects = new LinkedList<Project>();
+	/**********************************************************************
+	* deleteProjects() deletes many projects in chunks of chunkSize, one
+	* short transaction per chunk, so row locks are held briefly and no
+	* single transaction has to record the whole delete. Within a chunk the
+	* ON DELETE CASCADE children are deleted first, table by table with the
+	* project_id indexes, and then the project rows, so the work per
+	* statement is bounded too. IDs that do not exist are skipped. A failure
+	* rolls back the current chunk only; earlier chunks stay deleted.
+	* A chunk size above MAX_DELETE_CHUNK_SIZE is reduced to it: the IN
+	* list is padded to the next power of two, and an unbounded chunk would
+	* run past the driver's placeholder limit. Returns the number of
+	* projects deleted.
+	************************************************************************/
+	
+	public int deleteProjects(Collection<Integer> projectIds, int chunkSize) {
 		
-		try(CallableStatement stmt = conn.prepareCall("{call list_projects()}")){
-			
-			try(ResultSet rs = stmt.executeQuery()){
+		if(chunkSize < 1) {
+			throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+		}
+		
+		chunkSize = Math.min(chunkSize, MAX_DELETE_CHUNK_SIZE);
+		List<Integer> ids = new ArrayList<>(new LinkedHashSet<>(projectIds));
+		int deleted = 0;
+		
+		try(Connection conn = DbConnection.getConnection()){
+			startTransaction(conn);
 			
-				while(rs.next()) {
-					projects.add(extract(rs, Project.class));
+			for(int from = 0; from < ids.size(); from += chunkSize) {
+				List<Integer> chunk = ids.subList(from, Math.min(from + chunkSize, ids.size()));
 				
-			}// while ()
-						
-			projects.forEach(project -> System.out.println("   " + project.getProjectId() + ": " + project.getProjectName()));
-			} // inner try
-		}// outer try
+				try {
+					deleted += deleteProjectChunk(conn, chunk);
+					commitTransaction(conn);
+				}
+				catch(Exception e) {
+					rollbackTransaction(conn);
+					throw new DbException("Delete failed after " + deleted + " projects", e);
+				}
+			}
+		}// outer most try()
+		catch(SQLException e) {
+		throw new DbException(e);
+		}
+		
+		return deleted;
+	}
+	
+	/**********************************************************************/
+	private int deleteProjectChunk(Connection conn, List<Integer> chunk) throws SQLException {
+		
+		String inList = " WHERE project_id IN (" + inListPlaceholders(chunk.size()) + ")";
+		int deleted = 0;
+		
+		for(String table : List.of(MATERIAL_TABLE, STEP_TABLE, PROJECT_CATEGORY_TABLE, PROJECT_TABLE)) {
+			try(PreparedStatement stmt = prepareWithIds(conn, "DELETE FROM " + table + inList, chunk)){
+				/*     The last table is project itself, so this ends as the project count.     */
+				deleted = stmt.executeUpdate();
+			}
+		}
+		
+		return deleted;
 	}
 	
 	/************************************************************************/
@@ -0,0 +1,13 @@
+package projects.dao;
+
+/**********************************************************************
+* ProjectSort selects the order of a paginated project listing.
+*
+* PROJECT_ID   - ascending project_id.
+* PROJECT_NAME - ascending project_name, ties broken by project_id.
+************************************************************************/
+
+public enum ProjectSort {
+	PROJECT_ID,
+	PROJECT_NAME
+}
@@ -0,0 +1,208 @@
+package projects.dao;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+import javax.management.ObjectName;
+
+/**********************************************************************
+* QueryMetrics collects per-statement latency histograms, execution and
+* row counts, connection acquire times and transaction durations for the
+* connections handed out by DbConnection.
+*
+* Instrumentation is off by default. Turn it on with the system property
+* projects.metrics.enabled=true, with setEnabled(true) or over JMX. When it
+* is off DbConnection returns the plain pooled connection, so the only
+* cost is one volatile read per getConnection() call. Recording never
+* takes a lock (see LatencyHistogram).
+*
+* Statements are keyed by their SQL with every IN list of placeholders
+* collapsed to IN (?...), so lists of different lengths share one entry.
+* At most MAX_STATEMENTS distinct statements are tracked; any further ones
+* are counted together under OTHER_STATEMENTS, so dynamically built SQL
+* cannot grow the map without bound.
+************************************************************************/
+
+public class QueryMetrics implements QueryMetricsMXBean {
+
+	public static final String ENABLED_PROPERTY = "projects.metrics.enabled";
+	private static final String OBJECT_NAME = "projects:type=QueryMetrics";
+
+	private static final int MAX_STATEMENTS = 500;
+	private static final String OTHER_STATEMENTS = "(other statements)";
+	private static final Pattern IN_LIST = Pattern.compile("(?i)\\bIN\\s*\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+
+	private static final QueryMetrics INSTANCE = new QueryMetrics();
+
+	private volatile boolean enabled = Boolean.getBoolean(ENABLED_PROPERTY);
+
+	private final LatencyHistogram connectionAcquire = new LatencyHistogram();
+	private final LatencyHistogram transactions = new LatencyHistogram();
+	private final Map<String, StatementStats> statements = new ConcurrentHashMap<>();
+
+	static {
+		try {
+			ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE, new ObjectName(OBJECT_NAME));
+		} catch (Exception e) {
+			System.err.println("Unable to register " + OBJECT_NAME + " with JMX: " + e);
+		}
+	}
+
+	/************************************************************************/
+	private QueryMetrics() {
+	}
+
+	/************************************************************************/
+	public static QueryMetrics getInstance() {
+		return INSTANCE;
+	}
+
+	/************************************************************************/
+	@Override
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/************************************************************************/
+	@Override
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	/*************************   Recording   *************************/
+
+	void recordConnectionAcquire(long nanos) {
+		connectionAcquire.recordNanos(nanos);
+	}
+
+	/************************************************************************/
+	void recordTransaction(long nanos) {
+		transactions.recordNanos(nanos);
+	}
+
+	/************************************************************************/
+	StatementStats statement(String sql) {
+		/*     SQL without an IN list is its own key, so the common case is a single lookup.     */
+		StatementStats stats = statements.get(sql);
+
+		if(stats != null) {
+			return stats;
+		}
+
+		String key = IN_LIST.matcher(sql).replaceAll("IN (?...)");
+		stats = statements.get(key);
+
+		if(stats != null) {
+			return stats;
+		}
+
+		if(statements.size() >= MAX_STATEMENTS) {
+			key = OTHER_STATEMENTS;
+		}
+
+		return statements.computeIfAbsent(key, StatementStats::new);
+	}
+
+	/*************************   Reporting   *************************/
+
+	@Override
+	public long getConnectionAcquireCount() {
+		return connectionAcquire.getCount();
+	}
+
+	@Override
+	public long getConnectionAcquireP99Micros() {
+		return connectionAcquire.getPercentileMicros(99);
+	}
+
+	@Override
+	public long getTransactionCount() {
+		return transactions.getCount();
+	}
+
+	@Override
+	public long getTransactionP99Micros() {
+		return transactions.getPercentileMicros(99);
+	}
+
+	@Override
+	public long getStatementCount() {
+		return statements.values().stream().mapToLong(stats -> stats.latency.getCount()).sum();
+	}
+
+	@Override
+	public long getRowsReturned() {
+		return statements.values().stream().mapToLong(stats -> stats.rows.sum()).sum();
+	}
+
+	/**********************************************************************
+	* getReport() is the plain-text metrics dump: one line for connection
+	* acquires, one for transactions and one per distinct SQL statement,
+	* busiest statements first. Latencies are in microseconds.
+	************************************************************************/
+
+	@Override
+	public String getReport() {
+		StringBuilder report = new StringBuilder();
+
+		report.append(String.format("%-14s %10s %10s %10s %10s %10s %10s %12s  %s%n",
+				"kind", "count", "errors", "mean_us", "p50_us", "p99_us", "max_us", "rows", "sql"));
+		appendLine(report, "acquire", connectionAcquire, 0, 0, "");
+		appendLine(report, "transaction", transactions, 0, 0, "");
+
+		List<StatementStats> sorted = new ArrayList<>(statements.values());
+		sorted.sort(Comparator.comparingLong((StatementStats stats) -> stats.latency.getCount()).reversed());
+
+		for(StatementStats stats : sorted) {
+			appendLine(report, "statement", stats.latency, stats.errors.sum(), stats.rows.sum(), stats.sql);
+		}
+
+		return report.toString();
+	}
+
+	/************************************************************************/
+	private void appendLine(StringBuilder report, String kind, LatencyHistogram histogram, long errors, long rows,
+			String sql) {
+		report.append(String.format("%-14s %10d %10d %10.1f %10d %10d %10d %12d  %s%n", kind, histogram.getCount(),
+				errors, histogram.getMeanMicros(), histogram.getPercentileMicros(50),
+				histogram.getPercentileMicros(99), histogram.getMaxMicros(), rows, sql));
+	}
+
+	/************************************************************************/
+	@Override
+	public void reset() {
+		connectionAcquire.reset();
+		transactions.reset();
+		statements.clear();
+	}
+
+	/************************************************************************/
+	@Override
+	public String toString() {
+		return getReport();
+	}
+
+	/**********************************************************************
+	* StatementStats holds the numbers for one distinct, normalised SQL
+	* string.
+	************************************************************************/
+
+	static class StatementStats {
+		private final String sql;
+		final LatencyHistogram latency = new LatencyHistogram();
+		final LongAdder rows = new LongAdder();
+		final LongAdder errors = new LongAdder();
+
+		private StatementStats(String sql) {
+			this.sql = sql;
+		}
+	}
+
+	/************************************************************************/
+}
@@ -0,0 +1,29 @@
+package projects.dao;
+
+/**********************************************************************
+* QueryMetricsMXBean is the JMX view of QueryMetrics, registered as
+* projects:type=QueryMetrics.
+************************************************************************/
+
+public interface QueryMetricsMXBean {
+
+	boolean isEnabled();
+
+	void setEnabled(boolean enabled);
+
+	long getConnectionAcquireCount();
+
+	long getConnectionAcquireP99Micros();
+
+	long getTransactionCount();
+
+	long getTransactionP99Micros();
+
+	long getStatementCount();
+
+	long getRowsReturned();
+
+	String getReport();
+
+	void reset();
+}
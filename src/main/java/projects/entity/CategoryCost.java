@@ -0,0 +1,64 @@
+package projects.entity;
+
+import java.math.BigDecimal;
+
+/**
+ * Cost and effort totals for the projects linked to one category. A project in several categories
+ * counts toward each of them. The hours variance is actual minus estimated hours, summed over the
+ * projects that have both values.
+ */
+public class CategoryCost {
+  private final Integer categoryId;
+  private final String categoryName;
+  private final long projectCount;
+  private final BigDecimal materialCost;
+  private final BigDecimal estimatedHours;
+  private final BigDecimal actualHours;
+  private final BigDecimal hoursVariance;
+
+  public CategoryCost(Integer categoryId, String categoryName, long projectCount, BigDecimal materialCost,
+      BigDecimal estimatedHours, BigDecimal actualHours, BigDecimal hoursVariance) {
+    this.categoryId = categoryId;
+    this.categoryName = categoryName;
+    this.projectCount = projectCount;
+    this.materialCost = materialCost;
+    this.estimatedHours = estimatedHours;
+    this.actualHours = actualHours;
+    this.hoursVariance = hoursVariance;
+  }
+
+  public Integer getCategoryId() {
+    return categoryId;
+  }
+
+  public String getCategoryName() {
+    return categoryName;
+  }
+
+  public long getProjectCount() {
+    return projectCount;
+  }
+
+  public BigDecimal getMaterialCost() {
+    return materialCost;
+  }
+
+  public BigDecimal getEstimatedHours() {
+    return estimatedHours;
+  }
+
+  public BigDecimal getActualHours() {
+    return actualHours;
+  }
+
+  public BigDecimal getHoursVariance() {
+    return hoursVariance;
+  }
+
+  @Override
+  public String toString() {
+    return "ID=" + categoryId + ", categoryName=" + categoryName + ", projects=" + projectCount
+        + ", materialCost=" + materialCost + ", estimatedHours=" + estimatedHours + ", actualHours="
+        + actualHours + ", hoursVariance=" + hoursVariance;
+  }
+}
@@ -0,0 +1,73 @@
+package projects.entity;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Cost and effort totals over all projects, with a rollup per category. Material cost is the sum
+ * of num_required * cost. The hours variance is actual minus estimated hours, summed over the
+ * projects that have both values; a positive variance means the work ran over its estimates.
+ */
+public class CostReport {
+  private final long projectCount;
+  private final BigDecimal materialCost;
+  private final BigDecimal estimatedHours;
+  private final BigDecimal actualHours;
+  private final BigDecimal hoursVariance;
+  private final List<CategoryCost> categories;
+
+  public CostReport(long projectCount, BigDecimal materialCost, BigDecimal estimatedHours,
+      BigDecimal actualHours, BigDecimal hoursVariance, List<CategoryCost> categories) {
+    this.projectCount = projectCount;
+    this.materialCost = materialCost;
+    this.estimatedHours = estimatedHours;
+    this.actualHours = actualHours;
+    this.hoursVariance = hoursVariance;
+    this.categories = categories;
+  }
+
+  public long getProjectCount() {
+    return projectCount;
+  }
+
+  public BigDecimal getMaterialCost() {
+    return materialCost;
+  }
+
+  public BigDecimal getEstimatedHours() {
+    return estimatedHours;
+  }
+
+  public BigDecimal getActualHours() {
+    return actualHours;
+  }
+
+  public BigDecimal getHoursVariance() {
+    return hoursVariance;
+  }
+
+  /**
+   * Category rollups ordered by category ID. Categories without projects are not listed.
+   */
+  public List<CategoryCost> getCategories() {
+    return categories;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder result = new StringBuilder();
+
+    result.append("\n   projects=").append(projectCount);
+    result.append("\n   materialCost=").append(materialCost);
+    result.append("\n   estimatedHours=").append(estimatedHours);
+    result.append("\n   actualHours=").append(actualHours);
+    result.append("\n   hoursVariance=").append(hoursVariance);
+    result.append("\n   Categories:");
+
+    for(CategoryCost category : categories) {
+      result.append("\n      ").append(category);
+    }
+
+    return result.toString();
+  }
+}
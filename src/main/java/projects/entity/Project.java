@@ -4,8 +4,11 @@
 package projects.entity;
 
 import java.math.BigDecimal;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * @author Promineo
@@ -18,10 +21,21 @@ public class Project {
   private BigDecimal actualHours;
   private Integer difficulty;
   private String notes;
-
-  private List<Material> materials = new LinkedList<>();
-  private List<Step> steps = new LinkedList<>();
-  private List<Category> categories = new LinkedList<>();
+  private Integer version;
+
+  /*
+   * The detail fields set since the project was loaded or last saved. Rows are mapped onto the
+   * fields directly, so loading a project leaves this empty; only the setters below add to it.
+   */
+  private final Set<ProjectField> dirtyFields = EnumSet.noneOf(ProjectField.class);
+
+  /*
+   * Child lists start with capacity 0, which shares one empty array until the first element is
+   * added. Filled with addAll() they are sized exactly to their contents.
+   */
+  private List<Material> materials = new ArrayList<>(0);
+  private List<Step> steps = new ArrayList<>(0);
+  private List<Category> categories = new ArrayList<>(0);
 
   public Integer getProjectId() {
     return projectId;
@@ -37,6 +51,7 @@ public class Project {
 
   public void setProjectName(String projectName) {
     this.projectName = projectName;
+    dirtyFields.add(ProjectField.PROJECT_NAME);
   }
 
   public BigDecimal getEstimatedHours() {
@@ -45,6 +60,7 @@ public class Project {
 
   public void setEstimatedHours(BigDecimal estimatedHours) {
     this.estimatedHours = estimatedHours;
+    dirtyFields.add(ProjectField.ESTIMATED_HOURS);
   }
 
   public BigDecimal getActualHours() {
@@ -53,6 +69,7 @@ public class Project {
 
   public void setActualHours(BigDecimal actualHours) {
     this.actualHours = actualHours;
+    dirtyFields.add(ProjectField.ACTUAL_HOURS);
   }
 
   public Integer getDifficulty() {
@@ -61,6 +78,7 @@ public class Project {
 
   public void setDifficulty(Integer difficulty) {
     this.difficulty = difficulty;
+    dirtyFields.add(ProjectField.DIFFICULTY);
   }
 
   public String getNotes() {
@@ -69,6 +87,31 @@ public class Project {
 
   public void setNotes(String notes) {
     this.notes = notes;
+    dirtyFields.add(ProjectField.NOTES);
+  }
+
+  /**
+   * The optimistic lock version: 1 when the project is inserted and incremented by every update.
+   * Null for a project that was not read from the database.
+   */
+  public Integer getVersion() {
+    return version;
+  }
+
+  public void setVersion(Integer version) {
+    this.version = version;
+  }
+
+  /**
+   * Returns the detail fields set since the project was loaded or {@link #clearDirtyFields()} was
+   * last called.
+   */
+  public Set<ProjectField> getDirtyFields() {
+    return Collections.unmodifiableSet(dirtyFields);
+  }
+
+  public void clearDirtyFields() {
+    dirtyFields.clear();
   }
 
   public List<Material> getMaterials() {
@@ -85,33 +128,34 @@ public class Project {
 
   @Override
   public String toString() {
-    String result = "";
+    StringBuilder result = new StringBuilder();
     
-    result += "\n   ID=" + projectId;
-    result += "\n   name=" + projectName;
-    result += "\n   estimatedHours=" + estimatedHours;
-    result += "\n   actualHours=" + actualHours;
-    result += "\n   difficulty=" + difficulty;
-    result += "\n   notes=" + notes;
+    result.append("\n   ID=").append(projectId);
+    result.append("\n   name=").append(projectName);
+    result.append("\n   estimatedHours=").append(estimatedHours);
+    result.append("\n   actualHours=").append(actualHours);
+    result.append("\n   difficulty=").append(difficulty);
+    result.append("\n   notes=").append(notes);
+    result.append("\n   version=").append(version);
     
-    result += "\n   Materials:";
+    result.append("\n   Materials:");
     
     for(Material material : materials) {
-      result += "\n      " + material;
+      result.append("\n      ").append(material);
     }
     
-    result += "\n   Steps:";
+    result.append("\n   Steps:");
     
     for(Step step : steps) {
-      result += "\n      " + step;
+      result.append("\n      ").append(step);
     }
     
-    result += "\n   Categories:";
+    result.append("\n   Categories:");
     
     for(Category category : categories) {
-      result += "\n      " + category;
+      result.append("\n      ").append(category);
     }
     
-    return result;
+    return result.toString();
   }
 }
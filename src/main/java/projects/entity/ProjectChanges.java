@@ -0,0 +1,129 @@
+package projects.entity;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A set of changes to one project's materials, steps and category links, applied together in one
+ * transaction. Added materials and steps get their generated IDs once the changes are applied.
+ * Updated materials and steps are matched by ID; all of their columns are written.
+ *
+ * <p>
+ * {@link #reorderSteps(List)} gives the listed steps positions 1 to n in the given order. Steps of
+ * the project that are not listed keep their relative order and follow them, and added steps are
+ * appended at the end.
+ */
+public class ProjectChanges {
+  private final List<Material> addedMaterials = new ArrayList<>();
+  private final List<Material> updatedMaterials = new ArrayList<>();
+  private final List<Integer> removedMaterialIds = new ArrayList<>();
+  private final List<Step> addedSteps = new ArrayList<>();
+  private final List<Step> updatedSteps = new ArrayList<>();
+  private final List<Integer> removedStepIds = new ArrayList<>();
+  private final List<Integer> linkedCategoryIds = new ArrayList<>();
+  private final List<Integer> unlinkedCategoryIds = new ArrayList<>();
+  private List<Integer> stepOrder = List.of();
+
+  public ProjectChanges addMaterial(Material material) {
+    addedMaterials.add(material);
+    return this;
+  }
+
+  public ProjectChanges updateMaterial(Material material) {
+    updatedMaterials.add(material);
+    return this;
+  }
+
+  public ProjectChanges removeMaterial(Integer materialId) {
+    removedMaterialIds.add(materialId);
+    return this;
+  }
+
+  public ProjectChanges addStep(Step step) {
+    addedSteps.add(step);
+    return this;
+  }
+
+  public ProjectChanges updateStep(Step step) {
+    updatedSteps.add(step);
+    return this;
+  }
+
+  public ProjectChanges removeStep(Integer stepId) {
+    removedStepIds.add(stepId);
+    return this;
+  }
+
+  public ProjectChanges reorderSteps(List<Integer> stepIds) {
+    stepOrder = List.copyOf(stepIds);
+    return this;
+  }
+
+  public ProjectChanges linkCategory(Integer categoryId) {
+    linkedCategoryIds.add(categoryId);
+    return this;
+  }
+
+  public ProjectChanges unlinkCategory(Integer categoryId) {
+    unlinkedCategoryIds.add(categoryId);
+    return this;
+  }
+
+  public List<Material> getAddedMaterials() {
+    return Collections.unmodifiableList(addedMaterials);
+  }
+
+  public List<Material> getUpdatedMaterials() {
+    return Collections.unmodifiableList(updatedMaterials);
+  }
+
+  public List<Integer> getRemovedMaterialIds() {
+    return Collections.unmodifiableList(removedMaterialIds);
+  }
+
+  public List<Step> getAddedSteps() {
+    return Collections.unmodifiableList(addedSteps);
+  }
+
+  public List<Step> getUpdatedSteps() {
+    return Collections.unmodifiableList(updatedSteps);
+  }
+
+  public List<Integer> getRemovedStepIds() {
+    return Collections.unmodifiableList(removedStepIds);
+  }
+
+  public List<Integer> getStepOrder() {
+    return stepOrder;
+  }
+
+  public List<Integer> getLinkedCategoryIds() {
+    return Collections.unmodifiableList(linkedCategoryIds);
+  }
+
+  public List<Integer> getUnlinkedCategoryIds() {
+    return Collections.unmodifiableList(unlinkedCategoryIds);
+  }
+
+  /**
+   * Returns true if any material or step text changes, which is what the full-text search indexes.
+   */
+  public boolean changesText() {
+    return !addedMaterials.isEmpty() || !updatedMaterials.isEmpty() || !removedMaterialIds.isEmpty()
+        || !addedSteps.isEmpty() || !updatedSteps.isEmpty() || !removedStepIds.isEmpty();
+  }
+
+  public boolean isEmpty() {
+    return !changesText() && stepOrder.isEmpty() && linkedCategoryIds.isEmpty()
+        && unlinkedCategoryIds.isEmpty();
+  }
+
+  @Override
+  public String toString() {
+    return "materials +" + addedMaterials.size() + " ~" + updatedMaterials.size() + " -"
+        + removedMaterialIds.size() + ", steps +" + addedSteps.size() + " ~" + updatedSteps.size()
+        + " -" + removedStepIds.size() + ", reordered=" + stepOrder.size() + ", categories +"
+        + linkedCategoryIds.size() + " -" + unlinkedCategoryIds.size();
+  }
+}
@@ -0,0 +1,9 @@
+package projects.entity;
+
+/**
+ * The project detail fields that can be updated on their own. {@link Project} records which of them
+ * have been set since it was loaded, so an update only writes the columns that changed.
+ */
+public enum ProjectField {
+  PROJECT_NAME, ESTIMATED_HOURS, ACTUAL_HOURS, DIFFICULTY, NOTES
+}
@@ -0,0 +1,35 @@
+package projects.entity;
+
+import java.util.List;
+
+/**
+ * One page of a project listing. The projects only carry the ID and name. Pass
+ * {@link #getNextPageToken()} back to the listing call to get the following page; it is null on
+ * the last page.
+ */
+public class ProjectPage {
+  private final List<Project> projects;
+  private final String nextPageToken;
+
+  public ProjectPage(List<Project> projects, String nextPageToken) {
+    this.projects = projects;
+    this.nextPageToken = nextPageToken;
+  }
+
+  public List<Project> getProjects() {
+    return projects;
+  }
+
+  public String getNextPageToken() {
+    return nextPageToken;
+  }
+
+  public boolean hasNextPage() {
+    return nextPageToken != null;
+  }
+
+  @Override
+  public String toString() {
+    return "projects=" + projects.size() + ", nextPageToken=" + nextPageToken;
+  }
+}
@@ -0,0 +1,34 @@
+package projects.entity;
+
+/**
+ * One result of a full-text project search: the project's ID and name and its relevance score.
+ * Scores are only comparable between hits of the same query; a higher score is a better match.
+ */
+public class SearchHit {
+  private final Integer projectId;
+  private final String projectName;
+  private final double score;
+
+  public SearchHit(Integer projectId, String projectName, double score) {
+    this.projectId = projectId;
+    this.projectName = projectName;
+    this.score = score;
+  }
+
+  public Integer getProjectId() {
+    return projectId;
+  }
+
+  public String getProjectName() {
+    return projectName;
+  }
+
+  public double getScore() {
+    return score;
+  }
+
+  @Override
+  public String toString() {
+    return "ID=" + projectId + ", projectName=" + projectName + ", score=" + String.format("%.3f", score);
+  }
+}
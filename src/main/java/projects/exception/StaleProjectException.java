@@ -0,0 +1,30 @@
+package projects.exception;
+
+// Thrown when a project was changed by someone else after it was read
+public class StaleProjectException extends DbException {
+
+	private final Integer projectId;
+	private final int expectedVersion;
+	private final int actualVersion;
+
+	public StaleProjectException(Integer projectId, int expectedVersion, int actualVersion) {
+		super("Project with ID= " + projectId + " was changed by someone else (expected version "
+				+ expectedVersion + ", found " + actualVersion + "). Reload it and try again.");
+		this.projectId = projectId;
+		this.expectedVersion = expectedVersion;
+		this.actualVersion = actualVersion;
+	}
+
+	public Integer getProjectId() {
+		return projectId;
+	}
+
+	public int getExpectedVersion() {
+		return expectedVersion;
+	}
+
+	public int getActualVersion() {
+		return actualVersion;
+	}
+
+}
@@ -0,0 +1,486 @@
+package projects.search;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import projects.entity.Material;
+import projects.entity.Project;
+import projects.entity.SearchHit;
+import projects.entity.Step;
+
+/**********************************************************************
+* SearchIndex is an in-memory inverted index over project names, notes,
+* material names and step text. Each term maps to a posting list of
+* (document, weighted term frequency) pairs held in primitive arrays.
+* A term found in the project name counts NAME_WEIGHT times, one in a
+* material name MATERIAL_WEIGHT times and one in notes or step text once.
+*
+* search() scores every document containing a query term with BM25 and
+* keeps the best hits in a bounded heap, so the cost is one pass over the
+* query terms' posting lists plus O(n log limit) for the ranking.
+*
+* Each indexed version of a project is a document with its own number.
+* index() marks the project's previous document deleted and appends a new
+* one, so posting lists only ever grow at the end and stay in document
+* order. Once deleted documents make up a quarter of the index they are
+* compacted away. The index is built with a Loader (see
+* ProjectDao.loadSearchIndex()) and kept current by calling index() and
+* remove(). Reads and writes are guarded by a read-write lock.
+************************************************************************/
+
+public class SearchIndex {
+
+	public static final int NAME_WEIGHT = 3;
+	public static final int MATERIAL_WEIGHT = 2;
+	public static final int TEXT_WEIGHT = 1;
+
+	/*     BM25 term frequency saturation and document length normalization.     */
+	private static final double K1 = 1.2;
+	private static final double B = 0.75;
+
+	/*     Deleted documents are compacted away once there are at least this many.     */
+	private static final int MIN_COMPACT_DELETES = 1024;
+
+	/*     Per-thread score accumulator, reset after each search so it is not reallocated per query.     */
+	private static final ThreadLocal<float[]> SCORES = ThreadLocal.withInitial(() -> new float[0]);
+
+	private final Map<String, Postings> postingsByTerm = new HashMap<>();
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	/*     Per-document columns, indexed by document number.     */
+	private int[] docProjectIds = new int[16];
+	private String[] docNames = new String[16];
+	private int[] docLengths = new int[16];
+	private int docCount;
+
+	private final BitSet deletedDocs = new BitSet();
+	private int deletedCount;
+	private long liveLength;
+
+	/*     Document number + 1 by project ID (0 = not indexed). Project IDs are dense AUTO_INCREMENT values.     */
+	private int[] docByProject = new int[16];
+
+	/************************************************************************/
+	public static Loader loader() {
+		return new Loader();
+	}
+
+	/*     Adds the project, or replaces the document of an already indexed version of it.     */
+	public void index(Project project) {
+		lock.writeLock().lock();
+		try {
+			int projectId = project.getProjectId();
+			removeDocument(projectId);
+
+			int doc = addDocument(projectId, project.getProjectName());
+			addText(doc, project.getProjectName(), NAME_WEIGHT);
+			addText(doc, project.getNotes(), TEXT_WEIGHT);
+
+			for(Material material : project.getMaterials()) {
+				addText(doc, material.getMaterialName(), MATERIAL_WEIGHT);
+			}
+			for(Step step : project.getSteps()) {
+				addText(doc, step.getStepText(), TEXT_WEIGHT);
+			}
+
+			liveLength += docLengths[doc];
+			compactIfNeeded();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/************************************************************************/
+	public boolean remove(int projectId) {
+		lock.writeLock().lock();
+		try {
+			boolean removed = removeDocument(projectId);
+			compactIfNeeded();
+			return removed;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**********************************************************************
+	* search() returns at most limit hits for the query, best first. A
+	* project matches when it contains any query term; projects containing
+	* more of the terms, rarer terms, or terms in their name rank higher.
+	* Ties are broken by project ID.
+	************************************************************************/
+
+	public List<SearchHit> search(String query, int limit) {
+		Set<String> terms = new LinkedHashSet<>();
+		SearchTokenizer.forEachTerm(query, terms::add);
+
+		if(terms.isEmpty() || limit <= 0) {
+			return List.of();
+		}
+
+		lock.readLock().lock();
+		try {
+			int liveCount = docCount - deletedCount;
+
+			if(liveCount == 0) {
+				return List.of();
+			}
+
+			double averageLength = Math.max(1.0, (double)liveLength / liveCount);
+			float[] scores = SCORES.get();
+
+			if(scores.length < docCount) {
+				scores = new float[docCount + docCount / 4];
+				SCORES.set(scores);
+			}
+
+			int[] matched = new int[64];
+			int matchedCount = 0;
+
+			for(String term : terms) {
+				Postings postings = postingsByTerm.get(term);
+
+				if(Objects.isNull(postings)) {
+					continue;
+				}
+
+				/*     Document frequency counts deleted documents too until they are compacted away.     */
+				int documentFrequency = Math.min(postings.size, liveCount);
+				double idf = Math.log(1 + (liveCount - documentFrequency + 0.5) / (documentFrequency + 0.5));
+
+				for(int index = 0; index < postings.size; index++) {
+					int doc = postings.docs[index];
+
+					if(deletedDocs.get(doc)) {
+						continue;
+					}
+
+					int frequency = postings.frequencies[index];
+					double lengthNorm = K1 * (1 - B + B * docLengths[doc] / averageLength);
+
+					if(scores[doc] == 0) {
+						if(matchedCount == matched.length) {
+							matched = Arrays.copyOf(matched, matchedCount * 2);
+						}
+						matched[matchedCount++] = doc;
+					}
+					scores[doc] += (float)(idf * frequency * (K1 + 1) / (frequency + lengthNorm));
+				}
+			}
+
+			List<SearchHit> hits = topHits(scores, matched, matchedCount, limit);
+
+			for(int index = 0; index < matchedCount; index++) {
+				scores[matched[index]] = 0;
+			}
+
+			return hits;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/************************************************************************/
+	public int size() {
+		lock.readLock().lock();
+		try {
+			return docCount - deletedCount;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/************************************************************************/
+	public int getTermCount() {
+		lock.readLock().lock();
+		try {
+			return postingsByTerm.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/*     The heap's head is the worst hit kept so far: lowest score, then highest project ID.     */
+	private List<SearchHit> topHits(float[] scores, int[] matched, int matchedCount, int limit) {
+		PriorityQueue<Integer> heap = new PriorityQueue<>(Math.min(limit, matchedCount) + 1, (left, right) -> {
+			int result = Float.compare(scores[left], scores[right]);
+			return result != 0 ? result : Integer.compare(docProjectIds[right], docProjectIds[left]);
+		});
+
+		/*     Once the heap is full, a hit scoring below its head cannot get in; skip it without boxing.     */
+		float cutoff = Float.NEGATIVE_INFINITY;
+
+		for(int index = 0; index < matchedCount; index++) {
+			int doc = matched[index];
+
+			if(scores[doc] < cutoff) {
+				continue;
+			}
+
+			if(heap.size() < limit) {
+				heap.add(doc);
+			}
+			else if(heap.comparator().compare(doc, heap.peek()) > 0) {
+				heap.poll();
+				heap.add(doc);
+			}
+			else {
+				continue;
+			}
+
+			if(heap.size() == limit) {
+				cutoff = scores[heap.peek()];
+			}
+		}
+
+		SearchHit[] hits = new SearchHit[heap.size()];
+
+		for(int index = hits.length - 1; index >= 0; index--) {
+			int doc = heap.poll();
+			hits[index] = new SearchHit(docProjectIds[doc], docNames[doc], scores[doc]);
+		}
+
+		return List.of(hits);
+	}
+
+	/************************************************************************/
+	private int addDocument(int projectId, String projectName) {
+		if(docCount == docProjectIds.length) {
+			int capacity = docCount * 2;
+			docProjectIds = Arrays.copyOf(docProjectIds, capacity);
+			docNames = Arrays.copyOf(docNames, capacity);
+			docLengths = Arrays.copyOf(docLengths, capacity);
+		}
+		if(projectId >= docByProject.length) {
+			docByProject = Arrays.copyOf(docByProject, Math.max(projectId + 1, docByProject.length * 2));
+		}
+
+		int doc = docCount++;
+		docProjectIds[doc] = projectId;
+		docNames[doc] = projectName;
+		docByProject[projectId] = doc + 1;
+		return doc;
+	}
+
+	/************************************************************************/
+	private void addText(int doc, String text, int weight) {
+		SearchTokenizer.forEachTerm(text, term -> {
+			postingsByTerm.computeIfAbsent(term, key -> new Postings()).add(doc, weight);
+			docLengths[doc]++;
+		});
+	}
+
+	/************************************************************************/
+	private int documentOf(int projectId) {
+		return projectId >= 0 && projectId < docByProject.length ? docByProject[projectId] - 1 : -1;
+	}
+
+	/************************************************************************/
+	private boolean removeDocument(int projectId) {
+		int doc = documentOf(projectId);
+
+		if(doc < 0) {
+			return false;
+		}
+
+		deletedDocs.set(doc);
+		deletedCount++;
+		liveLength -= docLengths[doc];
+		docByProject[projectId] = 0;
+		return true;
+	}
+
+	/**********************************************************************
+	* compactIfNeeded() renumbers the live documents densely and rewrites
+	* every posting list without the deleted ones once they make up a
+	* quarter of the index. Terms left with no postings are dropped.
+	************************************************************************/
+
+	private void compactIfNeeded() {
+		if(deletedCount < MIN_COMPACT_DELETES || deletedCount * 4L < docCount) {
+			return;
+		}
+
+		int[] newDocs = new int[docCount];
+		int liveCount = 0;
+
+		for(int doc = 0; doc < docCount; doc++) {
+			if(deletedDocs.get(doc)) {
+				newDocs[doc] = -1;
+				continue;
+			}
+
+			newDocs[doc] = liveCount;
+			docProjectIds[liveCount] = docProjectIds[doc];
+			docNames[liveCount] = docNames[doc];
+			docLengths[liveCount] = docLengths[doc];
+			docByProject[docProjectIds[liveCount]] = liveCount + 1;
+			liveCount++;
+		}
+
+		Arrays.fill(docNames, liveCount, docCount, null);
+
+		for(Iterator<Postings> iterator = postingsByTerm.values().iterator(); iterator.hasNext();) {
+			Postings postings = iterator.next();
+			postings.renumber(newDocs);
+
+			if(postings.size == 0) {
+				iterator.remove();
+			}
+		}
+
+		docCount = liveCount;
+		deletedDocs.clear();
+		deletedCount = 0;
+	}
+
+	/**********************************************************************
+	* Postings is one term's posting list. Documents are appended in
+	* ascending order; a repeat of the last document adds to its frequency.
+	* Frequencies saturate at Short.MAX_VALUE. Only a Loader can append out
+	* of order, and it sorts the lists before the index is used.
+	************************************************************************/
+
+	private static class Postings {
+		private int[] docs = new int[2];
+		private short[] frequencies = new short[2];
+		private int size;
+		private boolean unsorted;
+
+		private void add(int doc, int frequency) {
+			if(size > 0 && docs[size - 1] == doc) {
+				frequencies[size - 1] = (short)Math.min(Short.MAX_VALUE, frequencies[size - 1] + frequency);
+				return;
+			}
+			if(size > 0 && docs[size - 1] > doc) {
+				unsorted = true;
+			}
+			if(size == docs.length) {
+				docs = Arrays.copyOf(docs, size * 2);
+				frequencies = Arrays.copyOf(frequencies, size * 2);
+			}
+
+			docs[size] = doc;
+			frequencies[size] = (short)Math.min(Short.MAX_VALUE, frequency);
+			size++;
+		}
+
+		/*     Sorts by document, merges the repeats of a document and trims spare capacity.     */
+		private void sort() {
+			if(unsorted) {
+				long[] entries = new long[size];
+
+				for(int index = 0; index < size; index++) {
+					entries[index] = (long)docs[index] << 32 | frequencies[index];
+				}
+
+				Arrays.sort(entries);
+				size = 0;
+
+				for(long entry : entries) {
+					int doc = (int)(entry >>> 32);
+					int frequency = (int)entry;
+
+					if(size > 0 && docs[size - 1] == doc) {
+						frequencies[size - 1] = (short)Math.min(Short.MAX_VALUE, frequencies[size - 1] + frequency);
+					}
+					else {
+						docs[size] = doc;
+						frequencies[size] = (short)frequency;
+						size++;
+					}
+				}
+
+				unsorted = false;
+			}
+
+			docs = Arrays.copyOf(docs, size);
+			frequencies = Arrays.copyOf(frequencies, size);
+		}
+
+		/************************************************************************/
+		private void renumber(int[] newDocs) {
+			int kept = 0;
+
+			for(int index = 0; index < size; index++) {
+				int doc = newDocs[docs[index]];
+
+				if(doc >= 0) {
+					docs[kept] = doc;
+					frequencies[kept] = frequencies[index];
+					kept++;
+				}
+			}
+
+			size = kept;
+		}
+	}
+
+	/**********************************************************************
+	* Loader builds a SearchIndex from streamed rows. Projects are added
+	* first; materials and steps may then arrive in any order and are
+	* attached to their project by ID. Rows for projects that were not
+	* added are ignored. A Loader is not thread-safe and must not be used
+	* after build().
+	************************************************************************/
+
+	public static class Loader {
+		private final SearchIndex index = new SearchIndex();
+
+		/************************************************************************/
+		public Loader addProject(int projectId, String projectName, String notes) {
+			index.removeDocument(projectId);
+
+			int doc = index.addDocument(projectId, projectName);
+			index.addText(doc, projectName, NAME_WEIGHT);
+			index.addText(doc, notes, TEXT_WEIGHT);
+			return this;
+		}
+
+		/************************************************************************/
+		public Loader addMaterial(int projectId, String materialName) {
+			int doc = index.documentOf(projectId);
+
+			if(doc >= 0) {
+				index.addText(doc, materialName, MATERIAL_WEIGHT);
+			}
+			return this;
+		}
+
+		/************************************************************************/
+		public Loader addStep(int projectId, String stepText) {
+			int doc = index.documentOf(projectId);
+
+			if(doc >= 0) {
+				index.addText(doc, stepText, TEXT_WEIGHT);
+			}
+			return this;
+		}
+
+		/************************************************************************/
+		public SearchIndex build() {
+			index.postingsByTerm.values().forEach(Postings::sort);
+			index.liveLength = 0;
+
+			for(int doc = 0; doc < index.docCount; doc++) {
+				if(!index.deletedDocs.get(doc)) {
+					index.liveLength += index.docLengths[doc];
+				}
+			}
+
+			index.compactIfNeeded();
+			return index;
+		}
+	}
+
+	/************************************************************************/
+}
@@ -0,0 +1,51 @@
+package projects.search;
+
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**********************************************************************
+* SearchTokenizer splits text into search terms: runs of letters and
+* digits, lower-cased. Common English words that would match nearly
+* every project are dropped. Indexed text and queries go through the
+* same tokenizer, so they always agree on what a term is.
+************************************************************************/
+
+public class SearchTokenizer {
+
+	private static final Set<String> STOP_WORDS = Set.of("a", "an", "and", "are", "as", "at", "be", "by", "for",
+			"from", "in", "into", "is", "it", "of", "on", "or", "the", "then", "to", "with");
+
+	/************************************************************************/
+	private SearchTokenizer() {
+	}
+
+	/************************************************************************/
+	public static void forEachTerm(String text, Consumer<String> action) {
+		if(Objects.isNull(text)) {
+			return;
+		}
+
+		int length = text.length();
+		int start = -1;
+
+		for(int index = 0; index <= length; index++) {
+			boolean wordChar = index < length && Character.isLetterOrDigit(text.charAt(index));
+
+			if(wordChar && start < 0) {
+				start = index;
+			}
+			else if(!wordChar && start >= 0) {
+				String term = text.substring(start, index).toLowerCase(Locale.ROOT);
+
+				if(!STOP_WORDS.contains(term)) {
+					action.accept(term);
+				}
+				start = -1;
+			}
+		}
+	}
+
+	/************************************************************************/
+}
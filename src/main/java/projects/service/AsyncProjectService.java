@@ -0,0 +1,159 @@
+package projects.service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+import projects.dao.DbConnection;
+import projects.dao.ProjectDao;
+import projects.entity.Category;
+import projects.entity.Material;
+import projects.entity.Project;
+import projects.entity.Step;
+import projects.exception.DbException;
+
+/**********************************************************************
+* AsyncProjectService is a non-blocking facade over ProjectService. Every
+* call returns a CompletableFuture and runs on its own virtual thread.
+*
+* Concurrency is bounded by a semaphore sized to the connection pool, so
+* no more DAO calls are in flight than there are connections to serve
+* them. Only the DAO calls take a permit; the virtual threads that
+* combine their results do not, so a caller can never deadlock waiting on
+* its own sub-queries.
+*
+* fetchProjectById() loads the project row, materials, steps and
+* categories concurrently, so its latency approaches one round trip. Unlike
+* ProjectService.fetchProjectById() the four reads do not share a
+* transaction; see loadProjectConcurrently().
+************************************************************************/
+
+public class AsyncProjectService implements AutoCloseable {
+
+	private final ProjectService projectService;
+	private final ProjectDao projectDao;
+	private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+	private final Semaphore permits;
+
+	/************************************************************************/
+	public AsyncProjectService() {
+		this(new ProjectService(), DbConnection.getPool().getMaxSize());
+	}
+
+	/************************************************************************/
+	public AsyncProjectService(ProjectService projectService, int maxConcurrentCalls) {
+		this.projectService = projectService;
+		this.projectDao = projectService.projectDao;
+		this.permits = new Semaphore(maxConcurrentCalls, true);
+	}
+
+	/************************************************************************/
+	public CompletableFuture<Project> addProject(Project project) {
+		return supplyWithPermit(() -> projectService.addProject(project));
+	}
+
+	/************************************************************************/
+	public CompletableFuture<List<Project>> fetchAllProjects() {
+		return supplyWithPermit(projectService::fetchAllProjects);
+	}
+
+	/************************************************************************/
+	public CompletableFuture<List<Project>> fetchProjectsByIds(Collection<Integer> projectIds) {
+		return supplyWithPermit(() -> projectService.fetchProjectsByIds(projectIds));
+	}
+
+	/**********************************************************************
+	* fetchProjectById() checks the project cache first. On a miss, the four
+	* queries are started at once, each on its own connection, and the graph
+	* is assembled when all of them have finished.
+	************************************************************************/
+
+	public CompletableFuture<Project> fetchProjectById(Integer projectId) {
+		return CompletableFuture.supplyAsync(
+				() -> projectService.fetchProjectById(projectId, this::loadProjectConcurrently), executor);
+	}
+
+	/**********************************************************************
+	* loadProjectConcurrently() reads the project row and its three child
+	* lists on four connections with no shared transaction, so the result is
+	* not a consistent snapshot: a write that commits between the reads can
+	* produce a graph that never existed, for example new materials with the
+	* old project name, or a project whose children were deleted after its
+	* row was read. Use ProjectService.fetchProjectById() where that matters.
+	************************************************************************/
+
+	private Project loadProjectConcurrently(Integer projectId) {
+		CompletableFuture<Project> project = supplyWithPermit(() -> projectDao.fetchProjectRowById(projectId)
+				.orElseThrow(() -> new NoSuchElementException("Project with project ID= " + projectId + " does not exist.")));
+		CompletableFuture<List<Material>> materials = supplyWithPermit(() -> projectDao.fetchMaterialsByProjectId(projectId));
+		CompletableFuture<List<Step>> steps = supplyWithPermit(() -> projectDao.fetchStepsByProjectId(projectId));
+		CompletableFuture<List<Category>> categories = supplyWithPermit(() -> projectDao.fetchCategoriesByProjectId(projectId));
+
+		try {
+			Project result = project.join();
+			result.getMaterials().addAll(materials.join());
+			result.getSteps().addAll(steps.join());
+			result.getCategories().addAll(categories.join());
+			return result;
+		} catch (CompletionException e) {
+			if(e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException)e.getCause();
+			}
+			throw e;
+		}
+	}
+
+	/************************************************************************/
+	public CompletableFuture<Integer> updateProjectDetails(Project project) {
+		return supplyWithPermit(() -> projectService.updateProjectDetails(project));
+	}
+
+	/************************************************************************/
+	public CompletableFuture<Void> deleteProject(Integer projectId) {
+		return supplyWithPermit(() -> {
+			projectService.deleteProject(projectId);
+			return null;
+		});
+	}
+
+	/**********************************************************************
+	* supplyWithPermit() runs one DAO-backed call on a virtual thread while
+	* holding a permit, so the number of concurrent calls never exceeds the
+	* number of pooled connections.
+	************************************************************************/
+
+	private <T> CompletableFuture<T> supplyWithPermit(Callable<T> call) {
+		return CompletableFuture.supplyAsync(() -> {
+			try {
+				permits.acquire();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new DbException("Interrupted while waiting to run a database call", e);
+			}
+
+			try {
+				return call.call();
+			} catch (RuntimeException e) {
+				throw e;
+			} catch (Exception e) {
+				throw new DbException(e);
+			} finally {
+				permits.release();
+			}
+		}, executor);
+	}
+
+	/************************************************************************/
+	@Override
+	public void close() {
+		executor.close();
+	}
+
+	/************************************************************************/
+}
@@ -0,0 +1,207 @@
+package projects.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import projects.entity.Category;
+import projects.entity.Material;
+import projects.entity.Project;
+import projects.entity.Step;
+
+/**********************************************************************
+* ProjectCache is a bounded, in-process read-through cache of full
+* Project graphs keyed by project ID. Entries are evicted least recently
+* used first once maxSize is reached, and expire ttlMillis after they were
+* loaded.
+*
+* The cache keeps its own private copy of each graph and hands every
+* caller a fresh copy, so a caller that modifies the Project it got back
+* cannot affect the cached snapshot or any other caller.
+************************************************************************/
+
+public class ProjectCache {
+
+	private final int maxSize;
+	private final long ttlMillis;
+	private final Map<Integer, Entry> entries;
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong evictions = new AtomicLong();
+
+	/*     Bumped on every invalidation so a load that raced with a write is not cached.     */
+	private long invalidationCount;
+
+	/************************************************************************/
+	public ProjectCache(int maxSize, long ttlMillis) {
+		this.maxSize = maxSize;
+		this.ttlMillis = ttlMillis;
+		this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Integer, Entry> eldest) {
+				if(size() > ProjectCache.this.maxSize) {
+					evictions.incrementAndGet();
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/**********************************************************************
+	* get() returns a copy of the cached project, loading it with loader on
+	* a miss or when the entry has expired. The loader runs outside the lock
+	* so a slow database call does not block other readers.
+	************************************************************************/
+
+	public Project get(Integer projectId, Function<Integer, Project> loader) {
+		long now = System.currentTimeMillis();
+		long invalidationsBeforeLoad;
+		Entry entry;
+
+		synchronized(entries) {
+			invalidationsBeforeLoad = invalidationCount;
+			entry = entries.get(projectId);
+
+			if(Objects.nonNull(entry) && now - entry.loadedAt > ttlMillis) {
+				entries.remove(projectId);
+				evictions.incrementAndGet();
+				entry = null;
+			}
+		}
+
+		if(Objects.nonNull(entry)) {
+			hits.incrementAndGet();
+			return copyOf(entry.project);
+		}
+
+		misses.incrementAndGet();
+		Project loaded = loader.apply(projectId);
+		Project snapshot = copyOf(loaded);
+
+		synchronized(entries) {
+			if(invalidationCount == invalidationsBeforeLoad) {
+				entries.put(projectId, new Entry(snapshot, now));
+			}
+		}
+
+		return copyOf(snapshot);
+	}
+
+	/************************************************************************/
+	public void invalidate(Integer projectId) {
+		synchronized(entries) {
+			invalidationCount++;
+			entries.remove(projectId);
+		}
+	}
+
+	/************************************************************************/
+	public void invalidateAll() {
+		synchronized(entries) {
+			invalidationCount++;
+			entries.clear();
+		}
+	}
+
+	/*************************   Cache statistics   *************************/
+
+	public long getHitCount() {
+		return hits.get();
+	}
+
+	public long getMissCount() {
+		return misses.get();
+	}
+
+	public long getEvictionCount() {
+		return evictions.get();
+	}
+
+	public int size() {
+		synchronized(entries) {
+			return entries.size();
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "size=" + size() + ", hits=" + getHitCount() + ", misses=" + getMissCount()
+				+ ", evictions=" + getEvictionCount();
+	}
+
+	/**********************************************************************
+	* copyOf() makes a deep copy of a project graph. Children are copied into
+	* presized lists and added with addAll() so the copy's lists are sized
+	* exactly. The copy starts with no dirty fields, like a freshly loaded
+	* project.
+	************************************************************************/
+
+	static Project copyOf(Project source) {
+		Project project = new Project();
+		project.setProjectId(source.getProjectId());
+		project.setProjectName(source.getProjectName());
+		project.setEstimatedHours(source.getEstimatedHours());
+		project.setActualHours(source.getActualHours());
+		project.setDifficulty(source.getDifficulty());
+		project.setNotes(source.getNotes());
+		project.setVersion(source.getVersion());
+		project.clearDirtyFields();
+
+		List<Material> materials = new ArrayList<>(source.getMaterials().size());
+		List<Step> steps = new ArrayList<>(source.getSteps().size());
+		List<Category> categories = new ArrayList<>(source.getCategories().size());
+
+		for(Material sourceMaterial : source.getMaterials()) {
+			Material material = new Material();
+			material.setMaterialId(sourceMaterial.getMaterialId());
+			material.setProjectId(sourceMaterial.getProjectId());
+			material.setMaterialName(sourceMaterial.getMaterialName());
+			material.setNumRequired(sourceMaterial.getNumRequired());
+			material.setCost(sourceMaterial.getCost());
+			materials.add(material);
+		}
+
+		for(Step sourceStep : source.getSteps()) {
+			Step step = new Step();
+			step.setStepId(sourceStep.getStepId());
+			step.setProjectId(sourceStep.getProjectId());
+			step.setStepText(sourceStep.getStepText());
+			step.setStepOrder(sourceStep.getStepOrder());
+			steps.add(step);
+		}
+
+		for(Category sourceCategory : source.getCategories()) {
+			Category category = new Category();
+			category.setCategoryId(sourceCategory.getCategoryId());
+			category.setCategoryName(sourceCategory.getCategoryName());
+			categories.add(category);
+		}
+
+		project.getMaterials().addAll(materials);
+		project.getSteps().addAll(steps);
+		project.getCategories().addAll(categories);
+
+		return project;
+	}
+
+	/************************************************************************/
+	private static class Entry {
+		private final Project project;
+		private final long loadedAt;
+
+		private Entry(Project project, long loadedAt) {
+			this.project = project;
+			this.loadedAt = loadedAt;
+		}
+	}
+
+	/************************************************************************/
+}
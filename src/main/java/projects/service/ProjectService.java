@@ -1,203 +1,706 @@
 package projects.service;
 
 
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
-import java.util.LinkedList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.NoSuchElementException;
-import java.util.stream.Collectors;
+import java.util.Objects;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
 
+import projects.analytics.AggregationMode;
+import projects.analytics.CategoryIndex;
+import projects.analytics.CostAggregator;
+import projects.analytics.ProjectCatalog;
+import projects.dao.FetchMode;
 import projects.dao.ProjectDao;
+import projects.dao.ProjectSort;
+import projects.entity.CostReport;
 import projects.entity.Project;
+import projects.entity.ProjectChanges;
+import projects.entity.ProjectField;
+import projects.entity.ProjectPage;
+import projects.entity.SearchHit;
 import projects.exception.DbException;
+import projects.search.SearchIndex;
 
 public class ProjectService {
 	
 	private static final String SCHEMA_FILE = "project_schema.sql";
 	private static final String DATA_FILE = "project_data.sql";
 	
+	/*     Bump this and add a ProjectDao.migrateSchema() step whenever project_schema.sql changes.     */
+	private static final int SCHEMA_VERSION = 3;
+	
+	/*     Set once the schema has been verified or created in this JVM.     */
+	private static volatile boolean schemaReady;
+	
+	/*     Number of script statements sent to the database per batch.     */
+	private static final int SCRIPT_BATCH_SIZE = 500;
+	
+	/*     In-memory aggregation reloads a catalog snapshot older than this.     */
+	private static final long CATALOG_MAX_AGE_MILLIS = 60_000;
+	
+	/*     AUTO aggregates in memory from this many material rows up; below it SQL sums are cheaper than a catalog load.     */
+	private static final long IN_MEMORY_AGGREGATION_MIN_ROWS = 100_000;
+	
+	/*     How long updateProjectDetailsLater() waits for room in a full write-behind buffer before failing.     */
+	private static final long WRITE_BEHIND_SUBMIT_TIMEOUT_MILLIS = 10_000;
+	
+	/*     Project cache settings     */
+	private static final int CACHE_MAX_SIZE = 1000;
+	private static final long CACHE_TTL_MILLIS = 60_000;
+	
 	ProjectDao projectDao = new ProjectDao();
+	ProjectCache projectCache = new ProjectCache(CACHE_MAX_SIZE, CACHE_TTL_MILLIS);
+	
+	/*     Most recent catalog snapshot and when it was loaded, for in-memory aggregation.     */
+	private volatile ProjectCatalog catalog;
+	private volatile long catalogLoadedAt;
+	
+	/*     In-memory category index, null until enableCategoryIndex() is called.     */
+	private volatile CategoryIndex categoryIndex;
+	
+	/*     In-memory full-text index, null until enableSearchIndex() or the first search.     */
+	private volatile SearchIndex searchIndex;
+	
+	/*     Write-behind buffer for detail updates, null unless enableWriteBehind() was called.     */
+	private volatile WriteBehindBuffer writeBehind;
 
 	/********************************************************/
-	/* 1. First check to see if the project table exists. 
-	*  2. It the table exists then add a new project to the table specified by the user.
-	*  3. If the project table DOESN'T exist then create the table, and then add a new project to the table specified by user.
+	/* 1. Read the installed schema version (one cheap lookup).
+	*  2. If nothing is recorded and there is no project table, the database
+	*     is empty: create the current schema, load the seed data and record
+	*     SCHEMA_VERSION.
+	*  3. Otherwise apply the migration steps from the installed version up
+	*     to SCHEMA_VERSION in order, recording each version as it is
+	*     reached. A database that predates versioning counts as version 0.
+	*     Migrations alter tables in place, so no data is lost.
+	*  4. Remember that the schema is ready so later calls make no round trips.
+	*  This runs once at application startup and is safe to call again.
 	*/
 	
-	public Project addProject(Project project) {
-		
-		boolean tableExists = projectDao.checkToSeeIfProjectTableExist();
-		System.out.println("Table exists is " + tableExists);
+	public void initializeSchema() {
 		
-		if(tableExists) {
-			return projectDao.insertProject(project);
+		if(schemaReady) {
+			return;
 		}
-		else {
-			/* If the project table DOESN'T exist then create all the tables 
-			 * and then add the project specified by the user. */
+		
+		synchronized(ProjectService.class) {
+			if(schemaReady) {
+				return;
+			}
+			
+			int installedVersion = projectDao.fetchSchemaVersion().orElse(0);
+			
+			if(installedVersion == 0 && !projectDao.checkToSeeIfProjectTableExist()) {
+				createTables();
+				populateTables();
+				projectDao.recordSchemaVersion(SCHEMA_VERSION);
+			}
+			else {
+				for(int version = installedVersion + 1; version <= SCHEMA_VERSION; version++) {
+					projectDao.migrateSchema(version);
+					projectDao.recordSchemaVersion(version);
+				}
+				
+				if(installedVersion == 0 && projectDao.checkToSeeIfRowCountInProjectTableIsGreaterThanZero() == 0) {
+					populateTables();
+				}
+			}
 			
-			createTables();
-			return projectDao.insertProject(project);
+			schemaReady = true;
 		}
 	}
 	
 	/********************************************************/
+	public Project addProject(Project project) {
+		
+		initializeSchema();
+		Project dbProject = projectDao.insertProject(project);
+		projectCache.invalidate(dbProject.getProjectId());
+		
+		SearchIndex textIndex = searchIndex;
+		if(Objects.nonNull(textIndex)) {
+			textIndex.index(dbProject);
+		}
+		
+		return dbProject;
+	}
 	
-	/* 1. First check to see if the project table exists. 
-	*  2. It the table exists then check if the row count in the table is > 0
-	*  3. If the table exists and the row count > 0 then list all the projects.
-	*  4. If the table exists but the row count is NOT > 0 then populate the table and then list all the projects.
-	*  5. If the project table DOESN'T exist then create the table, populate it and then list all the projects.
-	*/
+	/********************************************************/
+	/* Imports many project graphs (with materials, steps and category
+	*  links) using batched inserts, committing every chunkSize projects.
+	*  Returns the number of projects inserted. */
+	
+	public int addProjects(Collection<Project> projects) {
 		
-	public List<Project> fetchAllProjects() {
+		return addProjects(projects, ProjectDao.DEFAULT_IMPORT_CHUNK_SIZE);
+	}
+	
+	/********************************************************/
+	public int addProjects(Collection<Project> projects, int chunkSize) {
 		
-		List<Project> projects = new ArrayList<Project>();
+		initializeSchema();
+		int inserted;
 		
-		boolean tableExists = projectDao.checkToSeeIfProjectTableExist();
-		int rowCount = projectDao.checkToSeeIfRowCountInProjectTableIsGreaterThanZero();
+		try {
+			inserted = projectDao.insertProjects(projects, chunkSize);
+		}
+		catch(RuntimeException e) {
+			/*     Some chunks may have been committed; rebuild the indexes when they are next enabled.     */
+			categoryIndex = null;
+			searchIndex = null;
+			throw e;
+		}
+		finally {
+			projectCache.invalidateAll();
+		}
 		
-		if(tableExists) {
-			if(rowCount > 0) {
-				//If the table exists and the row count > 0 then list all the projects.
-				projects = projectDao.fetchAllProjects(); 
-					
-			}
-			else {
-				// If the table exists but the row count is NOT > 0 then populate the tables and then list all the projects.
-				populateTables();
-				projects = projectDao.fetchAllProjects();
+		CategoryIndex index = categoryIndex;
+		
+		if(Objects.nonNull(index)) {
+			for(Project project : projects) {
+				project.getCategories().forEach(category -> index.addLink(project.getProjectId(), category.getCategoryId()));
 			}
 		}
+		
+		SearchIndex textIndex = searchIndex;
+		
+		if(Objects.nonNull(textIndex)) {
+			projects.forEach(textIndex::index);
+		}
+		
+		return inserted;
+	}
+	
+	/********************************************************/
+	public List<Project> fetchAllProjects() {
+		
+		initializeSchema();
+		return projectDao.fetchAllProjects();
+	}
+	
+	/********************************************************/
+	/* Returns one page of project IDs and names. Pass null for the first
+	*  page and the previous page's next page token after that. */
+	
+	public ProjectPage listProjects(ProjectSort sort, int pageSize, String pageToken) {
+		
+		return projectDao.listProjects(sort, pageSize, pageToken);
+	}
+	
+	/********************************************************/
+	/* Streams every project without buffering the table in memory. The
+	*  returned stream holds a database connection and must be closed. */
+	
+	public Stream<Project> streamAllProjects() {
+		
+		return projectDao.streamAllProjects(ProjectDao.DEFAULT_STREAM_FETCH_SIZE);
+	}
+	
+	/********************************************************/
+	public Stream<Project> streamAllProjects(int fetchSize) {
+		
+		return projectDao.streamAllProjects(fetchSize);
+	}
+	
+	/********************************************************/
+	/* Served from projectCache when possible. Each caller gets its own copy. */
+	
+	public Project fetchProjectById(Integer projectId) {
+		
+		return projectCache.get(projectId, id -> projectDao.fetchProjectById(id).orElseThrow(
+				() -> new NoSuchElementException("Project with project ID= " + id + " does not exist.")));
+	}
+
+	/********************************************************/
+	public Project fetchProjectById(Integer projectId, FetchMode fetchMode) {
+		
+		return projectCache.get(projectId, id -> projectDao.fetchProjectById(id, fetchMode).orElseThrow(
+				() -> new NoSuchElementException("Project with project ID= " + id + " does not exist.")));
+	}
+	
+	/********************************************************/
+	/* Served from projectCache when possible; on a miss the graph is read
+	*  by loader, which must throw NoSuchElementException for an unknown ID,
+	*  and cached like any other. For callers that load the graph their own
+	*  way, such as AsyncProjectService. */
+	
+	public Project fetchProjectById(Integer projectId, Function<Integer, Project> loader) {
+		
+		return projectCache.get(projectId, loader);
+	}
+	
+	/********************************************************/
+	public ProjectCache getProjectCache() {
+		return projectCache;
+	}
+
+	/********************************************************/
+	/* Loads the full graph of every project in projectIds without issuing
+	*  per-project queries. Missing IDs are skipped. */
+	
+	public List<Project> fetchProjectsByIds(Collection<Integer> projectIds) {
+		
+		return projectDao.fetchProjectsByIds(projectIds);
+	}
+
+	/********************************************************/
+	/* Loads every project into a compact columnar ProjectCatalog for
+	*  analytics scans. The catalog is a snapshot; later changes to the
+	*  database are not reflected in it. The newest snapshot is kept for
+	*  aggregateCosts(). */
+	
+	public ProjectCatalog loadProjectCatalog() {
+		
+		ProjectCatalog loaded = projectDao.loadProjectCatalog();
+		catalogLoadedAt = System.currentTimeMillis();
+		catalog = loaded;
+		return loaded;
+	}
+
+	/********************************************************/
+	/* Computes material cost, hour totals and per-category rollups.
+	*  SQL pushes the sums down to the database; only the totals cross the
+	*  wire, and on small tables that is the cheapest way. IN_MEMORY scans
+	*  the columnar catalog (in parallel for large catalogs), which answers
+	*  in milliseconds over millions of rows once the catalog is loaded; a
+	*  snapshot older than CATALOG_MAX_AGE_MILLIS is reloaded first, so the
+	*  report is never more than that out of date. AUTO picks by data size:
+	*  IN_MEMORY from IN_MEMORY_AGGREGATION_MIN_ROWS material rows up, SQL
+	*  below. The size is taken from the held snapshot, or counted when
+	*  there is none. */
+	
+	public CostReport aggregateCosts(AggregationMode mode) {
+		
+		switch(mode) {
+		case IN_MEMORY:
+			return CostAggregator.aggregate(freshCatalog());
+		case AUTO:
+			ProjectCatalog snapshot = catalog;
+			long materialRows = Objects.nonNull(snapshot) ? snapshot.getMaterialCount() : projectDao.countMaterialRows();
 			
-		else {
-			// If the project table DOESN'T exist then create tables, populate them and then list all the projects.
-			createTables();
-			populateTables();
-			projects = projectDao.fetchAllProjects();
+			if(materialRows >= IN_MEMORY_AGGREGATION_MIN_ROWS) {
+				return CostAggregator.aggregate(freshCatalog());
+			}
+			return projectDao.aggregateCosts();
+		default:
+			return projectDao.aggregateCosts();
 		}
+	}
+	
+	/********************************************************/
+	/* Returns the held catalog snapshot, reloading it first if there is
+	*  none or it is older than CATALOG_MAX_AGE_MILLIS. Only one caller
+	*  reloads; the others wait for its snapshot. */
+	
+	private ProjectCatalog freshCatalog() {
+		
+		ProjectCatalog snapshot = catalog;
+		
+		if(Objects.nonNull(snapshot) && System.currentTimeMillis() - catalogLoadedAt < CATALOG_MAX_AGE_MILLIS) {
+			return snapshot;
+		}
+		
+		synchronized(this) {
+			snapshot = catalog;
 			
-		return projects;
+			if(Objects.nonNull(snapshot) && System.currentTimeMillis() - catalogLoadedAt < CATALOG_MAX_AGE_MILLIS) {
+				return snapshot;
+			}
+			return loadProjectCatalog();
+		}
 	}
+
+	/********************************************************/
+	/* Returns one page of the projects in a category, ordered by ID. */
 	
+	public ProjectPage listProjectsByCategory(Integer categoryId, int pageSize, String pageToken) {
+		
+		return projectDao.listProjectsByCategory(categoryId, pageSize, pageToken);
+	}
+
 	/********************************************************/
-	public Project fetchProjectById(Integer projectId) {
+	/* Loads the in-memory category index. From then on
+	*  findProjectIdsByCategories() answers from bitmaps instead of SQL and
+	*  the index is kept current as projects are added and deleted. */
+	
+	public CategoryIndex enableCategoryIndex() {
 		
-		return projectDao.fetchProjectById(projectId).orElseThrow(() -> new NoSuchElementException(
-				"Project with project ID= "	+ projectId + " does not exist."));
+		CategoryIndex index = projectDao.loadCategoryIndex();
+		categoryIndex = index;
+		return index;
 	}
 
 	/********************************************************/
-	public void updateProjectDetails(Project project) {
-		if(!projectDao.modifyProjectDetails(project)) 
-		{
-			throw new DbException("Project with ID= " + project.getProjectId() + " does not exist.");
+	/* Returns the IDs, ascending, of the projects in all (matchAll) or any
+	*  of the given categories. */
+	
+	public int[] findProjectIdsByCategories(Collection<Integer> categoryIds, boolean matchAll) {
+		
+		CategoryIndex index = categoryIndex;
+		
+		if(Objects.isNull(index)) {
+			return projectDao.fetchProjectIdsByCategories(categoryIds, matchAll);
 		}
-		else System.out.println("\nThe project was updated.");
 		
+		return (matchAll ? index.matchAll(categoryIds) : index.matchAny(categoryIds)).toArray();
 	}
+
+	/********************************************************/
+	/* Loads the in-memory full-text index over project names, notes,
+	*  material names and step text. It is kept current as projects are
+	*  added, updated and deleted through this service. */
 	
+	public SearchIndex enableSearchIndex() {
+		
+		SearchIndex index = projectDao.loadSearchIndex();
+		searchIndex = index;
+		return index;
+	}
+
 	/********************************************************/
-	public void deleteProject(Integer projectId) {
+	/* Returns up to limit projects matching any word of the query, best
+	*  match first. The first search loads the full-text index. */
+	
+	public List<SearchHit> searchProjects(String query, int limit) {
+		
+		SearchIndex index = searchIndex;
+		
+		if(Objects.isNull(index)) {
+			synchronized(this) {
+				index = searchIndex;
+				
+				if(Objects.isNull(index)) {
+					index = enableSearchIndex();
+				}
+			}
+		}
+		
+		return index.search(query, limit);
+	}
 
-		if(!projectDao.deleteProject(projectId)) 
+	/********************************************************/
+	/* Writes the detail fields changed on the project since it was read
+	*  and returns its new version, which is also set on the project. If
+	*  the project carries a version and someone else has updated it since,
+	*  nothing is written and a StaleProjectException is thrown. */
+	
+	public int updateProjectDetails(Project project) {
+		Set<ProjectField> changed = EnumSet.noneOf(ProjectField.class);
+		changed.addAll(project.getDirtyFields());
+		
+		/*     The version check must see updates still waiting in the write-behind buffer.     */
+		WriteBehindBuffer buffer = writeBehind;
+		if(Objects.nonNull(buffer) && buffer.isPending(project.getProjectId())) {
+			buffer.flush();
+		}
+		
+		OptionalInt version;
+		
+		try {
+			version = projectDao.modifyProjectDetails(project);
+		}
+		finally {
+			/*     Also on failure, so a caller that re-reads after a StaleProjectException sees the stored row.     */
+			projectCache.invalidate(project.getProjectId());
+		}
+		
+		if(version.isEmpty()) 
 		{
-			throw new DbException("Project with ID= " + projectId + " does not exist.");
+			throw new NoSuchElementException("Project with ID= " + project.getProjectId() + " does not exist.");
+		}
+		
+		project.setVersion(version.getAsInt());
+		project.clearDirtyFields();
+		
+		/*     The index needs the project's materials and steps too, so re-read the graph.     */
+		SearchIndex textIndex = searchIndex;
+		if(Objects.nonNull(textIndex) && (changed.contains(ProjectField.PROJECT_NAME) || changed.contains(ProjectField.NOTES))) {
+			projectDao.fetchProjectById(project.getProjectId()).ifPresent(textIndex::index);
 		}
-		else System.out.println("\nThe project was deleted.");
 		
+		return version.getAsInt();
 	}
 	
-	/****************   Added the lines below to load Schema and Data files   ******************/
+	/********************************************************/
+	/* Turns on write-behind for updateProjectDetailsLater(): updates are
+	*  coalesced per project and written in batches of up to maxBatchSize
+	*  every flushIntervalMillis, or sooner once maxBatchSize projects are
+	*  pending. At most maxPendingProjects are buffered; callers then wait up
+	*  to WRITE_BEHIND_SUBMIT_TIMEOUT_MILLIS for room before failing. A
+	*  buffer that was already enabled is flushed and closed first. */
 	
-	/************************************************************************/
-	public void createTables() {
-		loadFromFile(SCHEMA_FILE);
+	public WriteBehindBuffer enableWriteBehind(int maxPendingProjects, int maxBatchSize, long flushIntervalMillis) {
+		
+		disableWriteBehind();
+		
+		WriteBehindBuffer buffer = new WriteBehindBuffer(projectDao, maxPendingProjects, maxBatchSize, 
+				flushIntervalMillis, WRITE_BEHIND_SUBMIT_TIMEOUT_MILLIS, this::afterWriteBehindFlush);
+		writeBehind = buffer;
+		return buffer;
 	}
 	
-	/************************************************************************/
-	public void populateTables() {
-		loadFromFile(DATA_FILE);
+	/********************************************************/
+	/* Flushes and closes the write-behind buffer, if there is one. If the
+	*  final flush fails the exception is rethrown; the updates it could not
+	*  write are still available from the buffer enableWriteBehind()
+	*  returned, via getUnwrittenUpdates() or another flush(). */
+	
+	public void disableWriteBehind() {
+		
+		WriteBehindBuffer buffer = writeBehind;
+		writeBehind = null;
+		
+		if(Objects.nonNull(buffer)) {
+			buffer.close();
+		}
 	}
 	
-	/************************************************************************/
-	private void loadFromFile(String fileName) {
+	/********************************************************/
+	/* Queues the detail fields changed on the project for a batched write
+	*  and clears them on the project. Meant for frequent last-write-wins
+	*  updates such as logging actual hours: there is no version check and
+	*  reads may not see the change until the next flush. The project's
+	*  version is advanced to the one its row will have once written, so a
+	*  later updateProjectDetails() on the same object is not rejected as
+	*  stale by its own write. Without write-behind enabled this is
+	*  updateProjectDetails(). */
+	
+	public void updateProjectDetailsLater(Project project) {
 		
-		String content = readFileContent(fileName);
-		List<String> sqlStatements = convertContentToSqlStatements(content);
+		WriteBehindBuffer buffer = writeBehind;
 		
-		//sqlStatements.forEach(line -> System.out.println(line));
+		if(Objects.isNull(buffer)) {
+			updateProjectDetails(project);
+			return;
+		}
 		
-		projectDao.executeBatch(sqlStatements);
+		buffer.submit(project);
+		project.clearDirtyFields();
 		
+		if(Objects.nonNull(project.getVersion())) {
+			project.setVersion(project.getVersion() + 1);
+		}
 	}
 	
-	/************************************************************************/
-	private List<String> convertContentToSqlStatements(String content) {
-		content = removeComments(content);
-		content = removeWhiteSpaceSequencesWithSingleSpace(content);
+	/********************************************************/
+	private void afterWriteBehindFlush(List<Project> flushed) {
 		
-		return extractLinesFromContent(content);
-	}
-
-	/************************************************************************/
-	private List<String> extractLinesFromContent(String content) {
-		List<String> lines = new LinkedList<>();
-		while(!content.isEmpty()) {
-			int semiColon = content.indexOf(";");
+		SearchIndex textIndex = searchIndex;
+		
+		for(Project project : flushed) {
+			projectCache.invalidate(project.getProjectId());
 			
-			if(semiColon == -1) {
-				if(!content.isBlank()) {
-					lines.add(content);
+			if(Objects.nonNull(textIndex) && (project.getDirtyFields().contains(ProjectField.PROJECT_NAME) 
+					|| project.getDirtyFields().contains(ProjectField.NOTES))) {
+				try {
+					projectDao.fetchProjectById(project.getProjectId()).ifPresent(textIndex::index);
+				}
+				catch(RuntimeException e) {
+					/*     The index would miss this change; rebuild it on the next search instead.     */
+					searchIndex = null;
+					textIndex = null;
 				}
-				content = "";
-			}
-			else {
-				lines.add(content.substring(0, semiColon).trim());
-				content = content.substring(semiColon + 1 );
 			}
 		}
+	}
+	
+	/********************************************************/
+	/* Applies a set of material, step and category link changes to one
+	*  project in a single transaction. Either every change is applied or,
+	*  if any fails, none is. */
+	
+	public void applyProjectChanges(Integer projectId, ProjectChanges changes) {
 		
-		return lines;
+		if(changes.isEmpty()) {
+			return;
+		}
+		
+		boolean applied = projectDao.applyProjectChanges(projectId, changes);
+		projectCache.invalidate(projectId);
+		
+		if(!applied) 
+		{
+			throw new DbException("Project with ID= " + projectId + " does not exist.");
+		}
+		
+		CategoryIndex index = categoryIndex;
+		if(Objects.nonNull(index)) {
+			changes.getUnlinkedCategoryIds().forEach(categoryId -> index.removeLink(projectId, categoryId));
+			changes.getLinkedCategoryIds().forEach(categoryId -> index.addLink(projectId, categoryId));
+		}
+		
+		SearchIndex textIndex = searchIndex;
+		if(Objects.nonNull(textIndex) && changes.changesText()) {
+			projectDao.fetchProjectById(projectId).ifPresent(textIndex::index);
+		}
 	}
 	
-	/************************************************************************/
-	private String removeWhiteSpaceSequencesWithSingleSpace(String content) {
+	/********************************************************/
+	public void deleteProject(Integer projectId) {
+		boolean deleted = projectDao.deleteProject(projectId);
+		projectCache.invalidate(projectId);
+		
+		CategoryIndex index = categoryIndex;
+		if(Objects.nonNull(index)) {
+			index.removeProject(projectId);
+		}
+		
+		SearchIndex textIndex = searchIndex;
+		if(Objects.nonNull(textIndex)) {
+			textIndex.remove(projectId);
+		}
+
+		if(!deleted) 
+		{
+			throw new NoSuchElementException("Project with ID= " + projectId + " does not exist.");
+		}
 		
-		return content.replaceAll("\\s+", " ");
 	}
 	
-	/************************************************************************/
-	private String removeComments(String content) {
-		StringBuilder builder = new StringBuilder(content);
-		int commentPos = 0;  //comment position
-		
-		while((commentPos = builder.indexOf("-- " , commentPos)) != -1) {
-			int eolPos = builder.indexOf("\n", commentPos +1);  // end of line position
-			if(eolPos == -1) {
-				builder.replace(commentPos, builder.length(), "");
+	/********************************************************/
+	/* Deletes the given projects, with their materials, steps and category
+	*  links, in chunks of ProjectDao.DEFAULT_DELETE_CHUNK_SIZE projects per
+	*  transaction, so concurrent readers and writers are never held up for
+	*  long. Returns the number of projects deleted; unknown IDs are skipped. */
+	
+	public int deleteProjects(Collection<Integer> projectIds) {
+		
+		return deleteProjects(projectIds, ProjectDao.DEFAULT_DELETE_CHUNK_SIZE);
+	}
+	
+	/********************************************************/
+	/* As above with the given chunk size, capped at
+	*  ProjectDao.MAX_DELETE_CHUNK_SIZE. */
+	
+	public int deleteProjects(Collection<Integer> projectIds, int chunkSize) {
+		
+		if(chunkSize < 1) {
+			throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+		}
+		
+		int deleted;
+		
+		try {
+			deleted = projectDao.deleteProjects(projectIds, chunkSize);
+		}
+		catch(RuntimeException e) {
+			/*     Earlier chunks are committed and the failed one is not; rebuild the indexes when they are next enabled.     */
+			categoryIndex = null;
+			searchIndex = null;
+			throw e;
+		}
+		finally {
+			projectCache.invalidateAll();
+		}
+		
+		CategoryIndex index = categoryIndex;
+		SearchIndex textIndex = searchIndex;
+		
+		for(Integer projectId : projectIds) {
+			if(Objects.nonNull(index)) {
+				index.removeProject(projectId);
 			}
-			else {
-				builder.replace(commentPos, eolPos +1, "");
+			if(Objects.nonNull(textIndex)) {
+				textIndex.remove(projectId);
 			}
 		}
 		
-		return builder.toString();
+		return deleted;
 	}
-
+	
+	/********************************************************/
+	/* Deletes every project linked to the category. */
+	
+	public int deleteProjectsInCategory(Integer categoryId) {
+		
+		int[] projectIds = findProjectIdsByCategories(List.of(categoryId), false);
+		return deleteProjects(Arrays.stream(projectIds).boxed().toList());
+	}
+	
+	/********************************************************/
+	/* Deletes every project whose row (details only, no children) matches
+	*  the predicate. The table is streamed to find them, so this suits
+	*  conditions that cannot be written as an ID list or a category. */
+	
+	public int deleteProjectsMatching(Predicate<Project> predicate) {
+		
+		List<Integer> projectIds;
+		
+		try(Stream<Project> projects = streamAllProjects()) {
+			projectIds = projects.filter(predicate).map(Project::getProjectId).toList();
+		}
+		
+		return deleteProjects(projectIds);
+	}
+	
+	/****************   Added the lines below to load Schema and Data files   ******************/
+	
 	/************************************************************************/
-	private String readFileContent(String fileName) {
-		try {
-			Path path = Paths.get(getClass().getClassLoader().getResource(fileName).toURI());
-			return Files.readString(path);
-		} catch (Exception e) {
+	public void createTables() {
+		loadFromFile(SCHEMA_FILE);
+	}
+	
+	/************************************************************************/
+	public void populateTables() {
+		loadFromFile(DATA_FILE);
+	}
+	
+	/**********************************************************************
+	* loadFromFile() streams a SQL script from the classpath (this also works
+	* when the application runs from a JAR) through SqlScriptTokenizer and
+	* executes it in batches of SCRIPT_BATCH_SIZE statements, so memory use
+	* does not depend on the size of the script.
+	************************************************************************/
+	
+	private void loadFromFile(String fileName) {
+		
+		InputStream input = getClass().getClassLoader().getResourceAsStream(fileName);
+		
+		if(Objects.isNull(input)) {
+			throw new DbException("SQL script " + fileName + " was not found on the classpath.");
+		}
+		
+		try(SqlScriptTokenizer tokenizer = new SqlScriptTokenizer(
+				new InputStreamReader(input, StandardCharsets.UTF_8))) {
+			executeScript(tokenizer);
+		} catch (IOException e) {
 			throw new DbException(e);
 		}
 		
 	}
+	
+	/************************************************************************/
+	private void executeScript(SqlScriptTokenizer tokenizer) throws IOException {
+		List<String> sqlBatch = new ArrayList<>(SCRIPT_BATCH_SIZE);
+		String sql;
+		
+		while((sql = tokenizer.nextStatement()) != null) {
+			sqlBatch.add(sql);
+			
+			if(sqlBatch.size() == SCRIPT_BATCH_SIZE) {
+				projectDao.executeBatch(sqlBatch);
+				sqlBatch.clear();
+			}
+		}
+		
+		if(!sqlBatch.isEmpty()) {
+			projectDao.executeBatch(sqlBatch);
+		}
+	}
+	
 	/************************************************************************/
 
 }
@@ -0,0 +1,191 @@
+package projects.service;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.PushbackReader;
+import java.io.Reader;
+
+/**********************************************************************
+* SqlScriptTokenizer splits a SQL script into individual statements in a
+* single pass over a Reader, so a script of any size can be executed with
+* only one statement held in memory at a time.
+*
+* - Statements end at a semicolon that is not inside a quoted string or
+*   identifier ('...', "..." or `...`).
+* - "-- " and "#" line comments and slash-star block comments are dropped.
+* - Runs of whitespace outside quotes collapse to a single space and each
+*   statement is trimmed. Quoted text is kept exactly as written.
+************************************************************************/
+
+public class SqlScriptTokenizer implements Closeable {
+
+	private static final int EOF = -1;
+
+	private final PushbackReader reader;
+	private final StringBuilder statement = new StringBuilder();
+
+	/************************************************************************/
+	public SqlScriptTokenizer(Reader reader) {
+		this.reader = new PushbackReader(
+				reader instanceof BufferedReader ? reader : new BufferedReader(reader), 2);
+	}
+
+	/**********************************************************************
+	* nextStatement() returns the next non-empty statement without its
+	* terminating semicolon, or null when the script is exhausted.
+	************************************************************************/
+
+	public String nextStatement() throws IOException {
+		statement.setLength(0);
+		boolean pendingSpace = false;
+		int ch;
+
+		while((ch = read()) != EOF) {
+			if(ch == ';') {
+				if(statement.length() > 0) {
+					return statement.toString();
+				}
+				pendingSpace = false;
+				continue;
+			}
+
+			if(ch == '-' && peekLineCommentStart()) {
+				skipToEndOfLine();
+				pendingSpace = true;
+				continue;
+			}
+
+			if(ch == '#') {
+				skipToEndOfLine();
+				pendingSpace = true;
+				continue;
+			}
+
+			if(ch == '/' && peek() == '*') {
+				read();
+				skipBlockComment();
+				pendingSpace = true;
+				continue;
+			}
+
+			if(Character.isWhitespace(ch)) {
+				pendingSpace = true;
+				continue;
+			}
+
+			if(pendingSpace && statement.length() > 0) {
+				statement.append(' ');
+			}
+			pendingSpace = false;
+
+			statement.append((char)ch);
+
+			if(ch == '\'' || ch == '"' || ch == '`') {
+				copyQuoted(ch);
+			}
+		}
+
+		return statement.length() > 0 ? statement.toString() : null;
+	}
+
+	/************************************************************************/
+	@Override
+	public void close() throws IOException {
+		reader.close();
+	}
+
+	/**********************************************************************
+	* copyQuoted() copies a quoted string or identifier, including the
+	* closing quote. A doubled quote is an escaped quote, and inside '...'
+	* and "..." a backslash escapes the next character.
+	************************************************************************/
+
+	private void copyQuoted(int quote) throws IOException {
+		int ch;
+
+		while((ch = read()) != EOF) {
+			statement.append((char)ch);
+
+			if(ch == '\\' && quote != '`') {
+				int escaped = read();
+				if(escaped != EOF) {
+					statement.append((char)escaped);
+				}
+			}
+			else if(ch == quote) {
+				if(peek() == quote) {
+					statement.append((char)read());
+				}
+				else {
+					return;
+				}
+			}
+		}
+	}
+
+	/**********************************************************************
+	* peekLineCommentStart() is called after a dash. It returns true if the
+	* dash starts a "-- " comment. Otherwise nothing is consumed.
+	************************************************************************/
+
+	private boolean peekLineCommentStart() throws IOException {
+		int second = read();
+
+		if(second != '-') {
+			unread(second);
+			return false;
+		}
+
+		int third = peek();
+
+		if(third == EOF || Character.isWhitespace(third)) {
+			return true;
+		}
+
+		unread(second);
+		return false;
+	}
+
+	/************************************************************************/
+	private void skipToEndOfLine() throws IOException {
+		int ch;
+
+		while((ch = read()) != EOF && ch != '\n') {
+			/*     Skip the comment text.     */
+		}
+	}
+
+	/************************************************************************/
+	private void skipBlockComment() throws IOException {
+		int ch;
+
+		while((ch = read()) != EOF) {
+			if(ch == '*' && peek() == '/') {
+				read();
+				return;
+			}
+		}
+	}
+
+	/************************************************************************/
+	private int read() throws IOException {
+		return reader.read();
+	}
+
+	/************************************************************************/
+	private void unread(int ch) throws IOException {
+		if(ch != EOF) {
+			reader.unread(ch);
+		}
+	}
+
+	/************************************************************************/
+	private int peek() throws IOException {
+		int ch = reader.read();
+		unread(ch);
+		return ch;
+	}
+
+	/************************************************************************/
+}
@@ -0,0 +1,476 @@
+package projects.service;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+import projects.dao.LatencyHistogram;
+import projects.dao.ProjectDao;
+import projects.entity.Project;
+import projects.entity.ProjectField;
+import projects.exception.DbException;
+
+/**********************************************************************
+* WriteBehindBuffer collects project detail updates in memory and writes
+* them to the database in batches. Updates are keyed by project ID, so
+* many updates to one project before a flush (time tracking ticks, for
+* instance) are coalesced into one row write carrying the latest value of
+* each changed field.
+*
+* A flush is triggered when maxBatchSize projects are pending, every
+* flushIntervalMillis, on flush() and on close(). It takes everything
+* pending and writes it with ProjectDao.modifyProjectDetails(Collection)
+* in chunks of maxBatchSize, one transaction per chunk. Writes carry no
+* version check: the last write wins.
+*
+* At most maxPendingProjects projects are buffered. When the buffer is
+* full, submit() requests a flush and waits up to submitTimeoutMillis for
+* room, so a writer faster than the database is slowed down instead of
+* running out of memory, and fails the submit if the database stays out
+* of reach. A chunk that fails to write is put back, under any newer
+* update to the same project, and retried on the next flush. Each row's
+* version goes up by the number of updates coalesced into it.
+*
+* close() flushes whatever is left. If that flush fails, close() throws
+* and the updates stay in the buffer: flush() retries them and
+* getUnwrittenUpdates() hands them out. A JVM shutdown hook calls close()
+* too, so updates survive a normal exit; when its flush fails it prints
+* the unwritten updates to stderr. Updates still buffered when the
+* process is killed are lost.
+************************************************************************/
+
+public class WriteBehindBuffer implements AutoCloseable {
+
+	private final ProjectDao projectDao;
+	private final int maxBatchSize;
+	private final long submitTimeoutMillis;
+	private final Consumer<List<Project>> onFlushed;
+
+	private final ConcurrentHashMap<Integer, PendingUpdate> pending = new ConcurrentHashMap<>();
+	private final Semaphore capacity;
+	private final ScheduledExecutorService flusher;
+	private final AtomicBoolean flushRequested = new AtomicBoolean();
+	private final Thread shutdownHook = new Thread(this::closeOnShutdown, "write-behind-shutdown");
+
+	/*     submit() holds the read lock while it adds and close() the write lock, so nothing is accepted after the last flush.     */
+	private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
+	private boolean closed;
+
+	/*     Statistics     */
+	private final AtomicLong submittedUpdates = new AtomicLong();
+	private final AtomicLong flushedUpdates = new AtomicLong();
+	private final AtomicLong writtenProjects = new AtomicLong();
+	private final AtomicLong batchCount = new AtomicLong();
+	private final AtomicLong maxBatchSeen = new AtomicLong();
+	private final AtomicLong failedBatches = new AtomicLong();
+	private final AtomicLong backpressureWaits = new AtomicLong();
+	private final LatencyHistogram flushLatency = new LatencyHistogram();
+
+	/**********************************************************************
+	* onFlushed is called on the flushing thread with each chunk after it
+	* has been committed. If it throws, the failure is logged and the flush
+	* carries on with the next chunk.
+	************************************************************************/
+
+	public WriteBehindBuffer(ProjectDao projectDao, int maxPendingProjects, int maxBatchSize,
+			long flushIntervalMillis, long submitTimeoutMillis, Consumer<List<Project>> onFlushed) {
+
+		if(maxPendingProjects < 1 || maxBatchSize < 1 || flushIntervalMillis < 1 || submitTimeoutMillis < 1) {
+			throw new IllegalArgumentException("Write-behind limits must be positive.");
+		}
+
+		this.projectDao = projectDao;
+		this.maxBatchSize = maxBatchSize;
+		this.submitTimeoutMillis = submitTimeoutMillis;
+		this.onFlushed = onFlushed;
+		this.capacity = new Semaphore(maxPendingProjects);
+		this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "write-behind-flusher");
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis, flushIntervalMillis,
+				TimeUnit.MILLISECONDS);
+		Runtime.getRuntime().addShutdownHook(shutdownHook);
+	}
+
+	/**********************************************************************
+	* submit() buffers the project's dirty fields. The project itself is not
+	* kept, so the caller may reuse it. While the buffer is full it waits,
+	* without holding up close(), and throws a DbException if no room frees
+	* up within submitTimeoutMillis.
+	************************************************************************/
+
+	public void submit(Project project) {
+		Integer projectId = Objects.requireNonNull(project.getProjectId(), "projectId");
+
+		if(project.getDirtyFields().isEmpty()) {
+			return;
+		}
+
+		/*     Coalesce into an update that is already pending; that needs no capacity.     */
+		if(addToPending(projectId, project, false)) {
+			return;
+		}
+
+		if(!capacity.tryAcquire()) {
+			backpressureWaits.incrementAndGet();
+			requestFlush();
+			awaitCapacity();
+		}
+
+		addToPending(projectId, project, true);
+	}
+
+	/*     Returns false, without adding, if there is no pending update to merge into and acquired is false.     */
+	private boolean addToPending(Integer projectId, Project project, boolean acquired) {
+		closeLock.readLock().lock();
+		try {
+			if(closed) {
+				if(acquired) {
+					capacity.release();
+				}
+				throw new IllegalStateException("The write-behind buffer is closed.");
+			}
+
+			if(!acquired) {
+				if(Objects.isNull(pending.computeIfPresent(projectId, (id, update) -> update.merge(project)))) {
+					return false;
+				}
+				submittedUpdates.incrementAndGet();
+				return true;
+			}
+
+			PendingUpdate added = new PendingUpdate(projectId);
+			PendingUpdate current = pending.compute(projectId,
+					(id, update) -> (Objects.isNull(update) ? added : update).merge(project));
+
+			if(current != added) {
+				capacity.release();
+			}
+
+			submittedUpdates.incrementAndGet();
+
+			if(pending.size() >= maxBatchSize) {
+				requestFlush();
+			}
+			return true;
+		} finally {
+			closeLock.readLock().unlock();
+		}
+	}
+
+	/************************************************************************/
+	private void awaitCapacity() {
+		boolean acquired;
+
+		try {
+			acquired = capacity.tryAcquire(submitTimeoutMillis, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new DbException("Interrupted while waiting for room in the write-behind buffer.");
+		}
+
+		if(!acquired) {
+			throw new DbException("The write-behind buffer stayed full for " + submitTimeoutMillis
+					+ " ms; " + pending.size() + " projects are waiting to be written.");
+		}
+	}
+
+	/************************************************************************/
+	public boolean isPending(Integer projectId) {
+		return pending.containsKey(projectId);
+	}
+
+	/**********************************************************************
+	* flush() writes everything pending now and returns the number of
+	* project rows written. A failed chunk, and every chunk after it, is put
+	* back and the exception is rethrown.
+	************************************************************************/
+
+	public synchronized int flush() {
+		flushRequested.set(false);
+
+		List<PendingUpdate> drained = new ArrayList<>(pending.size());
+
+		for(Integer projectId : pending.keySet()) {
+			PendingUpdate update = pending.remove(projectId);
+
+			if(Objects.nonNull(update)) {
+				drained.add(update);
+			}
+		}
+
+		int written = 0;
+
+		for(int from = 0; from < drained.size(); from += maxBatchSize) {
+			List<PendingUpdate> chunk = drained.subList(from, Math.min(from + maxBatchSize, drained.size()));
+			List<Project> projects = new ArrayList<>(chunk.size());
+			Map<Project, Integer> updateCounts = new IdentityHashMap<>(chunk.size());
+			int updates = 0;
+
+			for(PendingUpdate update : chunk) {
+				projects.add(update.project);
+				updateCounts.put(update.project, update.updateCount);
+				updates += update.updateCount;
+			}
+
+			long start = System.nanoTime();
+
+			try {
+				written += projectDao.modifyProjectDetails(projects, updateCounts::get);
+			}
+			catch(RuntimeException e) {
+				failedBatches.incrementAndGet();
+				drained.subList(from, drained.size()).forEach(this::requeue);
+				throw e;
+			}
+
+			flushLatency.recordNanos(System.nanoTime() - start);
+			capacity.release(chunk.size());
+			flushedUpdates.addAndGet(updates);
+			writtenProjects.addAndGet(chunk.size());
+			batchCount.incrementAndGet();
+			maxBatchSeen.accumulateAndGet(chunk.size(), Math::max);
+
+			try {
+				onFlushed.accept(projects);
+			}
+			catch(RuntimeException e) {
+				/*     The chunk is written; stopping here would strand the rest of drained.     */
+				System.err.println("Write-behind flush callback failed for " + chunk.size() + " projects: " + e);
+			}
+		}
+
+		return written;
+	}
+
+	/**********************************************************************
+	* close() stops accepting updates, stops the timer and flushes what is
+	* left. If that flush fails the exception is rethrown and the updates
+	* it could not write stay pending; see getUnwrittenUpdates(). It is
+	* safe to call more than once.
+	************************************************************************/
+
+	@Override
+	public void close() {
+		closeLock.writeLock().lock();
+		try {
+			if(closed) {
+				return;
+			}
+			closed = true;
+		} finally {
+			closeLock.writeLock().unlock();
+		}
+
+		flusher.shutdown();
+
+		try {
+			flusher.awaitTermination(1, TimeUnit.MINUTES);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		try {
+			Runtime.getRuntime().removeShutdownHook(shutdownHook);
+		} catch (IllegalStateException e) {
+			/*     Already shutting down; this call is the hook.     */
+		}
+
+		flush();
+	}
+
+	/**********************************************************************
+	* getUnwrittenUpdates() returns a copy of each pending update: a Project
+	* holding just the project ID and the dirty fields not yet written. After
+	* a failed close() these are the updates that would otherwise be lost;
+	* the caller can retry with flush() or write them elsewhere.
+	************************************************************************/
+
+	public List<Project> getUnwrittenUpdates() {
+		List<Project> unwritten = new ArrayList<>(pending.size());
+
+		for(PendingUpdate update : pending.values()) {
+			unwritten.add(new PendingUpdate(update.projectId).merge(update.project).project);
+		}
+
+		return unwritten;
+	}
+
+	/************************************************************************/
+	private void closeOnShutdown() {
+		try {
+			close();
+		} catch (RuntimeException e) {
+			System.err.println("Write-behind flush at shutdown failed: " + e);
+
+			for(Project update : getUnwrittenUpdates()) {
+				System.err.println("  project " + update.getProjectId() + " " + update.getDirtyFields() + ":" + update);
+			}
+		}
+	}
+
+	/************************************************************************/
+	private void requestFlush() {
+		if(flushRequested.compareAndSet(false, true) && !flusher.isShutdown()) {
+			flusher.execute(this::flushQuietly);
+		}
+	}
+
+	/************************************************************************/
+	private void flushQuietly() {
+		try {
+			flush();
+		} catch (RuntimeException e) {
+			System.err.println("Write-behind flush failed, will retry: " + e);
+		}
+	}
+
+	/*     A newer update to the same project, submitted while the write failed, wins field by field.     */
+	private void requeue(PendingUpdate failed) {
+		boolean[] mergedIntoNewer = new boolean[1];
+
+		pending.compute(failed.projectId, (id, newer) -> {
+			if(Objects.isNull(newer)) {
+				return failed;
+			}
+			mergedIntoNewer[0] = true;
+			return failed.merge(newer);
+		});
+
+		/*     The failed update still holds its permit; the newer one's is no longer needed.     */
+		if(mergedIntoNewer[0]) {
+			capacity.release();
+		}
+	}
+
+	/*************************   Statistics   *************************/
+
+	public int getPendingCount() {
+		return pending.size();
+	}
+
+	/************************************************************************/
+	public long getSubmittedUpdates() {
+		return submittedUpdates.get();
+	}
+
+	/*     Number of project rows written; each carries one or more coalesced updates.     */
+	public long getWrittenProjects() {
+		return writtenProjects.get();
+	}
+
+	/*     Submitted updates per row written, over the flushes so far. 1.0 means nothing was coalesced.     */
+	public double getCoalescingRatio() {
+		long written = writtenProjects.get();
+		return written == 0 ? 0 : (double)flushedUpdates.get() / written;
+	}
+
+	/************************************************************************/
+	public long getBatchCount() {
+		return batchCount.get();
+	}
+
+	/************************************************************************/
+	public double getAverageBatchSize() {
+		long batches = batchCount.get();
+		return batches == 0 ? 0 : (double)writtenProjects.get() / batches;
+	}
+
+	/************************************************************************/
+	public long getMaxBatchSize() {
+		return maxBatchSeen.get();
+	}
+
+	/************************************************************************/
+	public long getFailedBatches() {
+		return failedBatches.get();
+	}
+
+	/************************************************************************/
+	public long getBackpressureWaits() {
+		return backpressureWaits.get();
+	}
+
+	/*     Time to write one batch, commit included.     */
+	public LatencyHistogram getFlushLatency() {
+		return flushLatency;
+	}
+
+	/************************************************************************/
+	@Override
+	public String toString() {
+		return String.format("pending=%d, submitted=%d, written=%d, coalescingRatio=%.2f, batches=%d, avgBatchSize=%.1f, "
+				+ "maxBatchSize=%d, flushP50Us=%d, flushP99Us=%d, flushMaxUs=%d, backpressureWaits=%d, failedBatches=%d",
+				getPendingCount(), getSubmittedUpdates(), getWrittenProjects(), getCoalescingRatio(), getBatchCount(),
+				getAverageBatchSize(), getMaxBatchSize(), flushLatency.getPercentileMicros(50),
+				flushLatency.getPercentileMicros(99), flushLatency.getMaxMicros(), getBackpressureWaits(),
+				getFailedBatches());
+	}
+
+	/**********************************************************************
+	* PendingUpdate is the coalesced update of one project: a Project whose
+	* dirty fields hold the latest submitted value of each changed field,
+	* and the number of updates merged into it.
+	************************************************************************/
+
+	private static class PendingUpdate {
+		private final Integer projectId;
+		private final Project project = new Project();
+		private int updateCount;
+
+		private PendingUpdate(Integer projectId) {
+			this.projectId = projectId;
+			project.setProjectId(projectId);
+		}
+
+		/*     Copies the source's dirty fields over this update's values.     */
+		private PendingUpdate merge(Project source) {
+			for(ProjectField field : source.getDirtyFields()) {
+				switch(field) {
+				case PROJECT_NAME:
+					project.setProjectName(source.getProjectName());
+					break;
+				case ESTIMATED_HOURS:
+					project.setEstimatedHours(source.getEstimatedHours());
+					break;
+				case ACTUAL_HOURS:
+					project.setActualHours(source.getActualHours());
+					break;
+				case DIFFICULTY:
+					project.setDifficulty(source.getDifficulty());
+					break;
+				default:
+					project.setNotes(source.getNotes());
+					break;
+				}
+			}
+
+			updateCount++;
+			return this;
+		}
+
+		/*     Merges a newer pending update into this older one.     */
+		private PendingUpdate merge(PendingUpdate newer) {
+			merge(newer.project);
+			updateCount += newer.updateCount - 1;
+			return this;
+		}
+	}
+
+	/************************************************************************/
+}
@@ -3,12 +3,16 @@
  */
 package provided.util;
 
-import java.lang.reflect.Constructor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
 import java.math.BigDecimal;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.sql.Time;
@@ -16,7 +20,11 @@ import java.sql.Timestamp;
 import java.sql.Types;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * This class contains utility methods for the DAO class.
@@ -137,20 +145,23 @@ public abstract class DaoBase {
   }
 
   /**
-   * This retrieves the number of child rows and adds one to the value. It is used to set the order
-   * of a child row. For a *real* application, a more sophisticated approach is desired. This method
-   * does not allow for entity reordering and does not allow for an entity to be deleted.
+   * This returns one more than the highest sequence number among the parent's child rows, or 1 if
+   * it has none. It is used to append a child row to an ordered list. Taking the maximum instead
+   * of counting the rows stays correct after children have been deleted or reordered. To number
+   * several new rows, call this once and increment the result locally.
    * 
    * @param conn The connection
    * @param id The ID of the parent entity
    * @param tableName The name of the table with the child rows
    * @param idName The name of the parent ID field
-   * @return The count of the entities attached to the parent plus one
+   * @param orderName The name of the sequence number field
+   * @return The highest sequence number of the entities attached to the parent plus one
    * @throws SQLException Thrown if an error occurs.
    */
   protected Integer getNextSequenceNumber(Connection conn, Integer id, String tableName,
-      String idName) throws SQLException {
-    String sql = "SELECT COUNT(*) FROM " + tableName + " WHERE " + idName + " = ?";
+      String idName, String orderName) throws SQLException {
+    String sql = "SELECT COALESCE(MAX(" + orderName + "), 0) FROM " + tableName + " WHERE " + idName
+        + " = ?";
 
     try(PreparedStatement stmt = conn.prepareStatement(sql)) {
       setParameter(stmt, 1, id, Integer.class);
@@ -166,20 +177,45 @@ public abstract class DaoBase {
   }
 
   /**
-   * This returns the integer primary key value of the last row inserted into the given table. It
+   * This returns the integer primary key value generated by the last insert executed on the given
+   * statement. The statement must have been prepared with {@link Statement#RETURN_GENERATED_KEYS}.
+   * If the driver does not return any generated keys, this falls back to
+   * {@link #getLastInsertId(Connection, String)}.
+   * 
+   * @param conn The connection on which the insert was executed
+   * @param stmt The statement that executed the insert
+   * @param table The name of the table the row was inserted into
+   * @return The primary key value
+   * @throws SQLException Thrown if an error occurs
+   */
+  protected Integer getGeneratedId(Connection conn, Statement stmt, String table)
+      throws SQLException {
+    try(ResultSet keys = stmt.getGeneratedKeys()) {
+      if(keys.next()) {
+        return keys.getInt(1);
+      }
+    }
+
+    return getLastInsertId(conn, table);
+  }
+
+  /**
+   * This returns the integer primary key value of the last row inserted on the connection. It
    * allows the ID to be inserted into the entity object after inserting it into the table.
    * 
-   * The other way of doing this is to call {@link Statement#getGeneratedKeys()}, but this returns a
-   * result set that needs to be parsed for the ID. It's not really any easier than this approach
-   * but should be closer to database-agnostic.
+   * The query has no FROM clause. LAST_INSERT_ID() is tracked per connection, so selecting it from
+   * the table would only return the same value once per row in the table and get slower as the
+   * table grows. Prefer {@link #getGeneratedId(Connection, Statement, String)}, which reads the key
+   * returned with the insert and avoids the extra round trip.
    * 
    * @param conn The connection
-   * @param table The name of the table on which to get the last inserted primary key value
+   * @param table The name of the table the row was inserted into. It is only used in the error
+   *        message.
    * @return The primary key value
    * @throws SQLException Thrown if an error occurs
    */
   protected Integer getLastInsertId(Connection conn, String table) throws SQLException {
-    String sql = String.format("SELECT LAST_INSERT_ID() FROM %s", table);
+    String sql = "SELECT LAST_INSERT_ID()";
 
     try(Statement stmt = conn.createStatement()) {
       try(ResultSet rs = stmt.executeQuery(sql)) {
@@ -187,7 +223,8 @@ public abstract class DaoBase {
           return rs.getInt(1);
         }
 
-        throw new SQLException("Unable to retrieve the primary key value. No result set!");
+        throw new SQLException(
+            "Unable to retrieve the primary key value for table " + table + ". No result set!");
       }
     }
   }
@@ -196,13 +233,15 @@ public abstract class DaoBase {
    * This extracts an object of the given type from a result set. The object must have a
    * zero-argument constructor. It builds an object from a result set using reflection as follows:
    * <ol>
-   * <li>The zero-argument constructor is obtained.</li>
-   * <li>An object of the given class type is created.</li>
-   * <li>A list of fields is obtained using reflection.</li>
+   * <li>The zero-argument constructor and the list of fields are obtained once per class and cached
+   * (see {@link RowMapper}).</li>
    * <li>The field name is converted from Java naming to SQL naming conventions (camel case to snake
    * case). Obviously, for this to work, the Java name must match the column name. So, if the Java
    * name is numServings, the column name must be num_servings.</li>
-   * <li>The value is assigned to the field in the object.</li>
+   * <li>The column names of the result set are matched to the fields and each column is read by
+   * index. To match them only once when reading many rows, use
+   * {@link #extractor(ResultSet, Class)} before the row loop instead.</li>
+   * <li>An object of the given class type is created and the values are assigned to the fields.</li>
    * </ol>
    * 
    * Example: if a query returns values for a recipe, a Recipe object is returned. So:
@@ -218,7 +257,7 @@ public abstract class DaoBase {
    * unchanged. So, class Recipe has an instance variable:
    * 
    * <pre>
-   * List<Ingredient> ingredients = new LinkedList<>();
+   * List<Ingredient> ingredients = new ArrayList<>();
    * </pre>
    * 
    * Since the result set does not contain a column named "ingredients", the value is left alone and
@@ -231,58 +270,204 @@ public abstract class DaoBase {
    * @return A populated class.
    */
   protected <T> T extract(ResultSet rs, Class<T> classType) {
+    return extractor(rs, classType).extract();
+  }
+
+  /**
+   * This returns a {@link RowExtractor} that builds objects of the given type from the rows of a
+   * result set, as {@link #extract(ResultSet, Class)} does. The column names are matched to the
+   * fields once, when the extractor is created, so call this once before the row loop:
+   * 
+   * <pre>
+   * RowExtractor&lt;Recipe&gt; recipes = extractor(rs, Recipe.class);
+   * 
+   * while(rs.next()) {
+   *   list.add(recipes.extract());
+   * }
+   * </pre>
+   * 
+   * @param <T> The Generic for the type of object to create.
+   * @param rs The result set from which to extract rows.
+   * @param classType The actual class type of the objects to create.
+   * @return An extractor for the current row of the result set.
+   */
+  protected <T> RowExtractor<T> extractor(ResultSet rs, Class<T> classType) {
     try {
-      /* Obtain the constructor and create an object of the correct type. */
-      Constructor<T> con = classType.getConstructor();
-      T obj = con.newInstance();
+      @SuppressWarnings("unchecked")
+      RowMapper<T> mapper = (RowMapper<T>)ROW_MAPPERS.get(classType);
 
-      /* Get the list of fields and loop through them. */
-      for(Field field : classType.getDeclaredFields()) {
-        String colName = camelCaseToSnakeCase(field.getName());
-        Class<?> fieldType = field.getType();
+      return new RowExtractor<>(mapper, rs, mapper.bindingFor(rs));
+    }
+    catch(DaoException e) {
+      throw e;
+    }
+    catch(Throwable e) {
+      throw new DaoException("Unable to create object of type " + classType.getName(), e);
+    }
+  }
 
-        /*
-         * Set the field accessible flag which means that we can populate even private fields
-         * without using the setter.
-         */
-        field.setAccessible(true);
-        Object fieldValue = null;
+  /**
+   * This builds objects of one type from the rows of one result set. The fields are bound to
+   * column indexes when it is created, so each row is read without looking at the result set
+   * metadata. It holds no shared state and belongs to the code reading the result set.
+   * 
+   * @param <T> The entity type
+   */
+  protected static final class RowExtractor<T> {
+    private final RowMapper<T> mapper;
+    private final ResultSet rs;
+    private final int[] columnIndexes;
+
+    private RowExtractor(RowMapper<T> mapper, ResultSet rs, int[] columnIndexes) {
+      this.mapper = mapper;
+      this.rs = rs;
+      this.columnIndexes = columnIndexes;
+    }
 
-        try {
-          fieldValue = rs.getObject(colName);
+    /**
+     * This builds an object from the row the result set is positioned on.
+     * 
+     * @return A populated object.
+     */
+    public T extract() {
+      try {
+        return mapper.map(rs, columnIndexes);
+      }
+      catch(DaoException e) {
+        throw e;
+      }
+      catch(Throwable e) {
+        throw new DaoException("Unable to create object of type " + mapper.typeName, e);
+      }
+    }
+  }
+
+  /**
+   * One {@link RowMapper} per entity class, built the first time the class is extracted.
+   */
+  private static final ClassValue<RowMapper<?>> ROW_MAPPERS = new ClassValue<>() {
+    @Override
+    protected RowMapper<?> computeValue(Class<?> classType) {
+      return new RowMapper<>(classType);
+    }
+  };
+
+  /**
+   * This holds the reflection metadata for one entity class: a method handle for the zero-argument
+   * constructor and, for each field, its snake case column name and a setter method handle. These
+   * are computed once per class instead of once per row.
+   * 
+   * The fields are bound to result set column indexes once per result set shape (the list of
+   * column labels), and the bindings are cached by shape. A {@link RowExtractor} resolves its
+   * binding once and passes it in for every row, so no binding is shared between threads reading
+   * different result sets. Columns that have no matching field, and fields that have no matching
+   * column, are simply skipped, so there is no exception thrown per missing column.
+   * 
+   * @param <T> The entity type
+   */
+  private static class RowMapper<T> {
+    private final String typeName;
+    private final MethodHandle constructor;
+    private final String[] columnNames;
+    private final Class<?>[] fieldTypes;
+    private final MethodHandle[] setters;
+    private final Map<String, int[]> bindingsByShape = new ConcurrentHashMap<>();
+
+    RowMapper(Class<T> classType) {
+      typeName = classType.getName();
+
+      try {
+        MethodHandles.Lookup lookup =
+            MethodHandles.privateLookupIn(classType, MethodHandles.lookup());
+        constructor = lookup.findConstructor(classType, MethodType.methodType(void.class));
+
+        List<Field> fields = new ArrayList<>();
+
+        for(Field field : classType.getDeclaredFields()) {
+          if(!Modifier.isStatic(field.getModifiers()) && !Modifier.isFinal(field.getModifiers())) {
+            fields.add(field);
+          }
         }
-        catch(SQLException e) {
-          /*
-           * An exception caught here means that the field name isn't in the result set. Don't take
-           * any action.
-           */
+
+        columnNames = new String[fields.size()];
+        fieldTypes = new Class<?>[fields.size()];
+        setters = new MethodHandle[fields.size()];
+
+        for(int index = 0; index < fields.size(); index++) {
+          Field field = fields.get(index);
+          columnNames[index] = camelCaseToSnakeCase(field.getName());
+          fieldTypes[index] = field.getType();
+          setters[index] = lookup.unreflectSetter(field)
+              .asType(MethodType.methodType(void.class, Object.class, Object.class));
         }
+      }
+      catch(ReflectiveOperationException e) {
+        throw new DaoException("Unable to read the fields of type " + classType.getName(), e);
+      }
+    }
+
+    @SuppressWarnings("unchecked")
+    T map(ResultSet rs, int[] columnIndexes) throws Throwable {
+      Object obj = constructor.invoke();
+
+      for(int index = 0; index < setters.length; index++) {
+        int columnIndex = columnIndexes[index];
+
+        if(columnIndex == 0) {
+          continue;
+        }
+
+        Object fieldValue = rs.getObject(columnIndex);
 
         /*
-         * Only set the value in the object if there is a value with the same name in the result
-         * set. This will preserve instance variables (like lists) that are assigned values when the
-         * object is created.
+         * Only set the value in the object if there is a value in the result set. This will
+         * preserve instance variables (like lists) that are assigned values when the object is
+         * created.
          */
         if(Objects.nonNull(fieldValue)) {
           /*
            * Convert the following types: Time -> LocalTime, and Timestamp -> LocalDateTime.
            */
-          if(fieldValue instanceof Time && fieldType.equals(LocalTime.class)) {
+          if(fieldValue instanceof Time && fieldTypes[index].equals(LocalTime.class)) {
             fieldValue = ((Time)fieldValue).toLocalTime();
           }
-          else if(fieldValue instanceof Timestamp && fieldType.equals(LocalDateTime.class)) {
+          else if(fieldValue instanceof Timestamp && fieldTypes[index].equals(LocalDateTime.class)) {
             fieldValue = ((Timestamp)fieldValue).toLocalDateTime();
           }
 
-          field.set(obj, fieldValue);
+          setters[index].invokeExact(obj, fieldValue);
         }
       }
 
-      return obj;
-
+      return (T)obj;
     }
-    catch(Exception e) {
-      throw new DaoException("Unable to create object of type " + classType.getName(), e);
+
+    /**
+     * Returns the one-based column index for each field, or 0 if the field is not in the result set.
+     */
+    int[] bindingFor(ResultSet rs) throws SQLException {
+      ResultSetMetaData metaData = rs.getMetaData();
+      int columnCount = metaData.getColumnCount();
+      String[] labels = new String[columnCount];
+
+      for(int column = 1; column <= columnCount; column++) {
+        labels[column - 1] = metaData.getColumnLabel(column).toLowerCase();
+      }
+
+      return bindingsByShape.computeIfAbsent(String.join(",", labels), shape -> {
+        int[] indexes = new int[columnNames.length];
+
+        for(int index = 0; index < columnNames.length; index++) {
+          for(int column = 0; column < labels.length; column++) {
+            if(labels[column].equals(columnNames[index])) {
+              indexes[index] = column + 1;
+              break;
+            }
+          }
+        }
+
+        return indexes;
+      });
     }
   }
 
@@ -292,7 +477,7 @@ public abstract class DaoBase {
    * @param identifier The name in camel case to convert.
    * @return The name converted to snake case.
    */
-  private String camelCaseToSnakeCase(String identifier) {
+  private static String camelCaseToSnakeCase(String identifier) {
     StringBuilder nameBuilder = new StringBuilder();
 
     for(char ch : identifier.toCharArray()) {
@@ -5,6 +5,13 @@ DROP TABLE IF EXISTS step;
 DROP TABLE IF EXISTS project_category;
 DROP TABLE IF EXISTS category;
 DROP TABLE IF EXISTS project;
+DROP TABLE IF EXISTS schema_version;
+
+CREATE TABLE schema_version(
+	version INT NOT NULL,
+	applied_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+	PRIMARY KEY (version)
+);
 
 CREATE TABLE project(
 	project_id INT AUTO_INCREMENT NOT NULL,
@@ -13,7 +20,9 @@ CREATE TABLE project(
 	actual_hours DECIMAL(7,2),
 	difficulty INT,
 	notes TEXT,
-	PRIMARY KEY (project_id)
+	version INT NOT NULL DEFAULT 1,
+	PRIMARY KEY (project_id),
+	INDEX idx_project_name (project_name)
 );
 
 CREATE TABLE category(
@@ -29,7 +38,8 @@ CREATE TABLE project_category(
 	category_id INT NOT NULL,
 	FOREIGN KEY (project_id) REFERENCES project (project_id) ON DELETE CASCADE,
     FOREIGN KEY (category_id) REFERENCES category (category_id) ON DELETE CASCADE,
-    UNIQUE KEY (project_id, category_id)
+    PRIMARY KEY (project_id, category_id),
+    INDEX idx_project_category_category (category_id, project_id)
 );
 
 CREATE TABLE step(